@@ -0,0 +1,146 @@
+package com.arisweeping.tasks;
+
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arisweeping.tasks.enums.TaskPriority;
+import com.arisweeping.tasks.models.TaskExecution;
+
+/**
+ * 任务队列入队/出队基准
+ * 
+ * 队列预先填入 depth 个三种优先级交替的任务，每次操作取出队首再放回（重新计算截止时间），队列深度保持不变。
+ * 对照组是按 优先级、截止时间 排序的 {@link PriorityBlockingQueue}，即分桶队列之前的单锁实现方式。
+ * contended 组中生产者和消费者在不同线程上，出队的任务经回收队列交回生产者
+ * 
+ * 运行：gradlew jmh -PjmhArgs="TaskQueueBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class TaskQueueBenchmark {
+    
+    private static final TaskPriority[] PRIORITIES = {
+        TaskPriority.LOW, TaskPriority.NORMAL, TaskPriority.HIGH
+    };
+    
+    private static final Comparator<TaskExecution> BASELINE_ORDER =
+        Comparator.comparing(TaskExecution::getPriority, Comparator.reverseOrder())
+            .thenComparingLong(TaskExecution::getQueueDeadlineNanos);
+    
+    @Param({"16", "256"})
+    public int depth;
+    
+    private TaskQueue queue;
+    private PriorityBlockingQueue<TaskExecution> baseline;
+    private Queue<TaskExecution> recycled;
+    private Queue<TaskExecution> baselineRecycled;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = new TaskQueue();
+        baseline = new PriorityBlockingQueue<>(depth * 2, BASELINE_ORDER);
+        recycled = new ConcurrentLinkedQueue<>();
+        baselineRecycled = new ConcurrentLinkedQueue<>();
+        
+        for (int i = 0; i < depth; i++) {
+            queue.enqueue(execution(i));
+            recycled.offer(execution(depth + i));
+            
+            TaskExecution execution = execution(i);
+            execution.markEnqueued();
+            baseline.offer(execution);
+            baselineRecycled.offer(execution(depth + i));
+        }
+    }
+    
+    private static TaskExecution execution(int sequence) {
+        return new TaskExecution(UUID.randomUUID(), sequence, "BENCHMARK",
+            PRIORITIES[sequence % PRIORITIES.length], null);
+    }
+    
+    // ==================== 单线程 ====================
+    
+    @Benchmark
+    @Group("single")
+    public TaskExecution taskQueue() {
+        TaskExecution execution = queue.dequeue();
+        queue.enqueue(execution);
+        return execution;
+    }
+    
+    @Benchmark
+    @Group("singleBaseline")
+    public TaskExecution priorityBlockingQueue() {
+        TaskExecution execution = baseline.poll();
+        execution.markEnqueued();
+        baseline.offer(execution);
+        return execution;
+    }
+    
+    // ==================== 生产者/消费者 ====================
+    
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public boolean contendedEnqueue() {
+        TaskExecution execution = recycled.poll();
+        return execution != null && queue.enqueue(execution);
+    }
+    
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public TaskExecution contendedDequeue() {
+        TaskExecution execution = queue.dequeue();
+        if (execution != null) {
+            recycled.offer(execution);
+        }
+        return execution;
+    }
+    
+    @Benchmark
+    @Group("contendedBaseline")
+    @GroupThreads(2)
+    public boolean contendedBaselineEnqueue() {
+        TaskExecution execution = baselineRecycled.poll();
+        if (execution == null) {
+            return false;
+        }
+        execution.markEnqueued();
+        return baseline.offer(execution);
+    }
+    
+    @Benchmark
+    @Group("contendedBaseline")
+    @GroupThreads(2)
+    public TaskExecution contendedBaselineDequeue() {
+        TaskExecution execution = baseline.poll();
+        if (execution != null) {
+            baselineRecycled.offer(execution);
+        }
+        return execution;
+    }
+}
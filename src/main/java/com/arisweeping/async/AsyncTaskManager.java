@@ -2,6 +2,7 @@ package com.arisweeping.async;
 import com.arisweeping.core.ArisLogger;
 
 import com.arisweeping.core.Constants;
+import com.arisweeping.tasks.enums.TaskPriority;
 
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -11,6 +12,9 @@ import java.util.concurrent.atomic.AtomicLong;
  * 异步任务管理器
  * 
  * 负责管理多个线程池，提供不同类型的异步任务执行能力
+ * 
+ * 优先级模式下核心和IO线程池使用 {@link PriorityWorkQueue}，按 {@link TaskContext} 的优先级和提交顺序出队，
+ * 并带有老化，低优先级任务不会饿死；未指定上下文的任务继承提交线程的上下文
  */
 public class AsyncTaskManager {
     
@@ -18,13 +22,24 @@ public class AsyncTaskManager {
     private final ThreadPoolExecutor coreThreadPool;
     private final ThreadPoolExecutor ioThreadPool;
     private final ScheduledExecutorService schedulerThreadPool;
+    private final ForkJoinPool kernelPool;
+    private final SnapshotKernels snapshotKernels;
     
     // 管理状态
     private final AtomicBoolean isShutdown = new AtomicBoolean(false);
     private final AtomicLong taskCounter = new AtomicLong(0);
+    private final boolean prioritized;
     
     public AsyncTaskManager() {
+        this(Constants.AsyncProcessing.PRIORITY_SCHEDULING_ENABLED);
+    }
+    
+    /**
+     * @param prioritized 核心和IO线程池是否按任务优先级出队
+     */
+    public AsyncTaskManager(boolean prioritized) {
         ArisLogger.info("Initializing AsyncTaskManager...");
+        this.prioritized = prioritized;
         
         // 创建核心线程池 - 用于CPU密集型任务
         this.coreThreadPool = new ThreadPoolExecutor(
@@ -32,7 +47,7 @@ public class AsyncTaskManager {
             Constants.AsyncProcessing.MAX_THREAD_POOL_SIZE,
             Constants.AsyncProcessing.THREAD_KEEP_ALIVE_SECONDS,
             TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(Constants.AsyncProcessing.TASK_QUEUE_CAPACITY),
+            createWorkQueue(),
             this::createCoreThread,
             new ThreadPoolExecutor.CallerRunsPolicy()
         );
@@ -43,7 +58,7 @@ public class AsyncTaskManager {
             Constants.AsyncProcessing.IO_THREAD_POOL_SIZE * 2,
             Constants.AsyncProcessing.THREAD_KEEP_ALIVE_SECONDS,
             TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(Constants.AsyncProcessing.TASK_QUEUE_CAPACITY),
+            createWorkQueue(),
             this::createIOThread,
             new ThreadPoolExecutor.CallerRunsPolicy()
         );
@@ -54,43 +69,56 @@ public class AsyncTaskManager {
             this::createSchedulerThread
         );
         
+        // 创建计算内核池 - 用于快照过滤等可拆分的fork-join计算
+        this.kernelPool = new ForkJoinPool(
+            Constants.AsyncProcessing.CORE_THREAD_POOL_SIZE,
+            this::createKernelThread,
+            null,
+            false
+        );
+        this.snapshotKernels = new SnapshotKernels(kernelPool);
+        
         // 允许核心线程超时
         this.coreThreadPool.allowCoreThreadTimeOut(true);
         this.ioThreadPool.allowCoreThreadTimeOut(true);
         
-        ArisLogger.info("AsyncTaskManager initialized with core pool size: {}, io pool size: {}, scheduler pool size: {}",
+        ArisLogger.info("AsyncTaskManager initialized with core pool size: {}, io pool size: {}, scheduler pool size: {}, prioritized: {}",
                    coreThreadPool.getCorePoolSize(), ioThreadPool.getCorePoolSize(), 
-                   Constants.AsyncProcessing.SCHEDULER_THREAD_POOL_SIZE);
+                   Constants.AsyncProcessing.SCHEDULER_THREAD_POOL_SIZE, prioritized);
+    }
+    
+    private BlockingQueue<Runnable> createWorkQueue() {
+        return prioritized
+            ? new PriorityWorkQueue(Constants.AsyncProcessing.TASK_QUEUE_CAPACITY)
+            : new LinkedBlockingQueue<>(Constants.AsyncProcessing.TASK_QUEUE_CAPACITY);
     }
     
     /**
-     * 提交核心任务（CPU密集型）
+     * 提交核心任务（CPU密集型），继承当前线程的调度上下文
      */
     public <T> CompletableFuture<T> submitCoreTask(Callable<T> task) {
-        if (isShutdown.get()) {
-            return CompletableFuture.failedFuture(new IllegalStateException("AsyncTaskManager is shutdown"));
-        }
-        
-        taskCounter.incrementAndGet();
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return task.call();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }, coreThreadPool);
+        return submitCoreTask(TaskContext.current(), task);
+    }
+    
+    /**
+     * 以指定优先级提交核心任务，作为新的提交参与排序
+     */
+    public <T> CompletableFuture<T> submitCoreTask(TaskPriority priority, Callable<T> task) {
+        return submitCoreTask(TaskContext.create(priority), task);
+    }
+    
+    /**
+     * 以指定调度上下文提交核心任务，子任务传入父任务的上下文即可沿用其优先级和提交顺序
+     */
+    public <T> CompletableFuture<T> submitCoreTask(TaskContext context, Callable<T> task) {
+        return submit(coreThreadPool, context, task);
     }
     
     /**
      * 提交核心任务（无返回值）
      */
     public CompletableFuture<Void> submitCoreTask(Runnable task) {
-        if (isShutdown.get()) {
-            return CompletableFuture.failedFuture(new IllegalStateException("AsyncTaskManager is shutdown"));
-        }
-        
-        taskCounter.incrementAndGet();
-        return CompletableFuture.runAsync(task, coreThreadPool);
+        return submit(coreThreadPool, TaskContext.current(), Executors.callable(task, null));
     }
     
     /**
@@ -111,30 +139,52 @@ public class AsyncTaskManager {
      * 提交IO任务
      */
     public <T> CompletableFuture<T> submitIOTask(Callable<T> task) {
-        if (isShutdown.get()) {
-            return CompletableFuture.failedFuture(new IllegalStateException("AsyncTaskManager is shutdown"));
-        }
-        
-        taskCounter.incrementAndGet();
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return task.call();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }, ioThreadPool);
+        return submit(ioThreadPool, TaskContext.current(), task);
     }
     
     /**
      * 提交IO任务（无返回值）
      */
     public CompletableFuture<Void> submitIOTask(Runnable task) {
+        return submit(ioThreadPool, TaskContext.current(), Executors.callable(task, null));
+    }
+    
+    /**
+     * 以指定调度上下文提交IO任务
+     */
+    public <T> CompletableFuture<T> submitIOTask(TaskContext context, Callable<T> task) {
+        return submit(ioThreadPool, context, task);
+    }
+    
+    /**
+     * 以指定调度上下文提交IO任务（无返回值）
+     */
+    public CompletableFuture<Void> submitIOTask(TaskContext context, Runnable task) {
+        return submit(ioThreadPool, context, Executors.callable(task, null));
+    }
+    
+    /**
+     * 把任务包装为带上下文的任务提交到线程池；任务中抛出的异常包装为 {@link CompletionException}
+     */
+    private <T> CompletableFuture<T> submit(ThreadPoolExecutor pool, TaskContext context, Callable<T> task) {
         if (isShutdown.get()) {
             return CompletableFuture.failedFuture(new IllegalStateException("AsyncTaskManager is shutdown"));
         }
         
         taskCounter.incrementAndGet();
-        return CompletableFuture.runAsync(task, ioThreadPool);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            pool.execute(new PriorityWorkQueue.PrioritizedTask(context, () -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(new CompletionException(e));
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
     }
     
     /**
@@ -180,14 +230,21 @@ public class AsyncTaskManager {
         
         return String.format(
             "Core Pool: %d/%d (active/total), IO Pool: %d/%d (active/total), " +
-            "Queue sizes: Core=%d, IO=%d, Total tasks: %d",
+            "Queue sizes: Core=%d, IO=%d, Total tasks: %d, Order: %s",
             coreThreadPool.getActiveCount(), coreThreadPool.getPoolSize(),
             ioThreadPool.getActiveCount(), ioThreadPool.getPoolSize(),
             coreThreadPool.getQueue().size(), ioThreadPool.getQueue().size(),
-            taskCounter.get()
+            taskCounter.get(), prioritized ? "priority" : "fifo"
         );
     }
     
+    /**
+     * 核心和IO线程池是否按优先级出队
+     */
+    public boolean isPrioritized() {
+        return prioritized;
+    }
+    
     /**
      * 检查是否已关闭
      */
@@ -206,6 +263,7 @@ public class AsyncTaskManager {
             coreThreadPool.shutdown();
             ioThreadPool.shutdown();
             schedulerThreadPool.shutdown();
+            kernelPool.shutdown();
             
             try {
                 // 等待任务完成
@@ -242,6 +300,7 @@ public class AsyncTaskManager {
             coreThreadPool.shutdownNow();
             ioThreadPool.shutdownNow();
             schedulerThreadPool.shutdownNow();
+            kernelPool.shutdownNow();
             
             ArisLogger.warn("AsyncTaskManager force shutdown completed. Total tasks processed: {}", taskCounter.get());
         }
@@ -270,6 +329,13 @@ public class AsyncTaskManager {
         return thread;
     }
     
+    private ForkJoinWorkerThread createKernelThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("ArisSweeping-Kernel-" + taskCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+    
     // Getter methods for monitoring
     
     /**
@@ -286,6 +352,13 @@ public class AsyncTaskManager {
         return ioThreadPool;
     }
     
+    /**
+     * 获取快照计算内核
+     */
+    public SnapshotKernels getSnapshotKernels() {
+        return snapshotKernels;
+    }
+    
     /**
      * 获取调度线程池
      */
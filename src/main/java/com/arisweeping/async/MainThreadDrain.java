@@ -0,0 +1,282 @@
+package com.arisweeping.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.core.Constants;
+import com.arisweeping.data.ConfigData;
+
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 主线程空闲时间执行器
+ * 
+ * 在每个服务器tick结束时，只利用距离下一个50ms tick边界剩余的时间（受配置的硬上限约束）
+ * 执行排队的主线程工作，未完成的工作自动顺延到后续tick，避免一次性大批量操作造成tick尖峰
+ * 
+ * 任务可以从任意线程提交，但只会在服务器主线程上执行
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class MainThreadDrain {
+    
+    /**
+     * 可分步执行的主线程工作
+     */
+    public interface DrainTask {
+        /**
+         * 执行一个工作单元
+         * 
+         * @return 是否还有剩余工作
+         */
+        boolean runStep();
+        
+        /**
+         * 任务是否在等待外部条件（例如区块加载），为true时本tick不再调用 {@link #runStep()}，
+         * 任务移到队尾，下一个tick再继续
+         */
+        default boolean isWaiting() {
+            return false;
+        }
+        
+        /**
+         * 任务因服务器关闭而被丢弃时调用
+         */
+        default void onDiscarded() {
+        }
+    }
+    
+    private static final MainThreadDrain INSTANCE = new MainThreadDrain();
+    
+    private final Queue<DrainTask> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
+    private final List<Runnable> tickEndHooks = new CopyOnWriteArrayList<>();
+    
+    // 以下字段只在主线程访问
+    private DrainTask currentTask;
+    private long tickStartNanos;
+    
+    // 统计信息
+    private volatile long lastTickMicros = 0;
+    private volatile double averageTickMicros = 0.0;
+    private final AtomicLong totalMicros = new AtomicLong(0);
+    private final AtomicLong totalSteps = new AtomicLong(0);
+    
+    private MainThreadDrain() {
+    }
+    
+    /**
+     * 获取执行器实例
+     */
+    public static MainThreadDrain getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * 提交主线程工作（线程安全）
+     */
+    public void submit(DrainTask task) {
+        if (task == null) {
+            return;
+        }
+        pendingTasks.offer(task);
+        pendingCount.incrementAndGet();
+    }
+    
+    /**
+     * 注册tick结束回调，在每个tick的工作执行完毕后于主线程调用（用于合并本tick产生的副作用）
+     */
+    public void addTickEndHook(Runnable hook) {
+        tickEndHooks.add(hook);
+    }
+    
+    /**
+     * tick开始 - 记录时间基准；tick结束 - 用剩余时间执行排队工作
+     */
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            INSTANCE.tickStartNanos = System.nanoTime();
+        } else {
+            INSTANCE.drain();
+        }
+    }
+    
+    /**
+     * 服务器停止时丢弃剩余工作
+     */
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        INSTANCE.discardAll();
+    }
+    
+    /**
+     * 在本tick剩余预算内执行工作
+     */
+    private void drain() {
+        if (currentTask == null && pendingTasks.isEmpty()) {
+            lastTickMicros = 0;
+            updateAverage(0);
+            runTickEndHooks();
+            return;
+        }
+        
+        long start = System.nanoTime();
+        long deadline = start + computeBudgetNanos(start);
+        long steps = 0;
+        List<DrainTask> waiting = null;
+        
+        try {
+            while (true) {
+                if (currentTask == null) {
+                    currentTask = pendingTasks.poll();
+                    if (currentTask == null) {
+                        break;
+                    }
+                    pendingCount.decrementAndGet();
+                }
+                
+                boolean hasMore;
+                try {
+                    hasMore = currentTask.runStep();
+                } catch (Exception e) {
+                    ArisLogger.error("Main thread drain task failed, dropping it", e);
+                    hasMore = false;
+                }
+                steps++;
+                
+                if (!hasMore) {
+                    currentTask = null;
+                } else if (currentTask.isWaiting()) {
+                    if (waiting == null) {
+                        waiting = new ArrayList<>();
+                    }
+                    waiting.add(currentTask);
+                    currentTask = null;
+                }
+                
+                // 每隔固定步数检查一次时间，降低System.nanoTime开销
+                if (steps % Constants.MainThread.BUDGET_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+        } finally {
+            if (waiting != null) {
+                for (DrainTask task : waiting) {
+                    pendingTasks.offer(task);
+                    pendingCount.incrementAndGet();
+                }
+            }
+            runTickEndHooks();
+            long elapsedMicros = (System.nanoTime() - start) / 1000;
+            lastTickMicros = elapsedMicros;
+            totalMicros.addAndGet(elapsedMicros);
+            totalSteps.addAndGet(steps);
+            updateAverage(elapsedMicros);
+        }
+    }
+    
+    /**
+     * 计算本tick可用的预算：距离50ms边界的剩余时间，限制在[最小保证, 硬上限]之间
+     */
+    private long computeBudgetNanos(long now) {
+        ConfigData config = ArisSweepingMod.getConfigData();
+        long maxNanos = (config != null ? config.getTickBudgetMaxMicros()
+                : Constants.MainThread.DEFAULT_TICK_BUDGET_MAX_MICROS) * 1000L;
+        long minNanos = (config != null ? config.getTickBudgetMinMicros()
+                : Constants.MainThread.DEFAULT_TICK_BUDGET_MIN_MICROS) * 1000L;
+        
+        long slack = tickStartNanos > 0
+                ? Constants.MainThread.TICK_NANOS - (now - tickStartNanos)
+                : maxNanos;
+        
+        return Math.max(minNanos, Math.min(maxNanos, slack));
+    }
+    
+    private void runTickEndHooks() {
+        for (Runnable hook : tickEndHooks) {
+            try {
+                hook.run();
+            } catch (Exception e) {
+                ArisLogger.error("Main thread drain tick end hook failed", e);
+            }
+        }
+    }
+    
+    private void updateAverage(long micros) {
+        // 指数移动平均，约20个tick的窗口
+        averageTickMicros = averageTickMicros * 0.95 + micros * 0.05;
+    }
+    
+    private void discardAll() {
+        int discarded = 0;
+        if (currentTask != null) {
+            currentTask.onDiscarded();
+            currentTask = null;
+            discarded++;
+        }
+        DrainTask task;
+        while ((task = pendingTasks.poll()) != null) {
+            task.onDiscarded();
+            discarded++;
+        }
+        pendingCount.set(0);
+        
+        if (discarded > 0) {
+            ArisLogger.warn("Discarded {} pending main thread tasks on server stop", discarded);
+        }
+    }
+    
+    /**
+     * 获取上一个tick花费的时间（微秒）
+     */
+    public long getLastTickMicros() {
+        return lastTickMicros;
+    }
+    
+    /**
+     * 获取每tick平均花费的时间（微秒）
+     */
+    public double getAverageTickMicros() {
+        return averageTickMicros;
+    }
+    
+    /**
+     * 获取累计花费的时间（微秒）
+     */
+    public long getTotalMicros() {
+        return totalMicros.get();
+    }
+    
+    /**
+     * 获取累计执行的工作单元数
+     */
+    public long getTotalSteps() {
+        return totalSteps.get();
+    }
+    
+    /**
+     * 获取等待中的任务数（不含正在执行的任务）
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+    
+    /**
+     * 获取状态信息
+     */
+    public String getStatus() {
+        return String.format("MainThreadDrain[pending=%d, last=%dus, avg=%.1fus, totalSteps=%d]",
+                pendingCount.get(), lastTickMicros, averageTickMicros, totalSteps.get());
+    }
+}
@@ -0,0 +1,116 @@
+package com.arisweeping.async;
+
+import java.util.Collection;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.arisweeping.core.Constants;
+import com.arisweeping.tasks.enums.TaskPriority;
+
+/**
+ * 线程池的优先级工作队列
+ * 
+ * 每个工作单元在提交时记录自己的排序键：提交时间减去 优先级等级 x 老化间隔，按排序键从小到大出队。
+ * 高优先级工作相当于"提前"了若干个老化间隔，低优先级工作等待足够久后可以排到新提交的高优先级工作之前，不会饿死；
+ * 老化间隔远大于一次清理的正常耗时，正常负载下顺序仍按优先级。CRITICAL 工作单独排在最前，老化不会越过它。
+ * 排序键在提交时确定，之后不再变化，队列的堆结构始终有效。
+ * 容量有上限：满时 {@link #offer} 返回false，线程池照常扩容或执行拒绝策略，与有界的LinkedBlockingQueue行为一致。
+ * 直接提交到线程池的普通Runnable会被包装，继承提交线程的上下文
+ */
+class PriorityWorkQueue extends PriorityBlockingQueue<Runnable> {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final int capacity;
+    
+    PriorityWorkQueue(int capacity) {
+        super(Math.min(capacity, 64));
+        this.capacity = capacity;
+    }
+    
+    @Override
+    public boolean offer(Runnable task) {
+        // 检查与入队之间的竞争最多超出容量几个元素，可以接受
+        if (size() >= capacity) {
+            return false;
+        }
+        return super.offer(PrioritizedTask.wrap(task));
+    }
+    
+    @Override
+    public void put(Runnable task) {
+        super.offer(PrioritizedTask.wrap(task));
+    }
+    
+    @Override
+    public boolean add(Runnable task) {
+        if (!offer(task)) {
+            throw new IllegalStateException("Queue full");
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean addAll(Collection<? extends Runnable> tasks) {
+        boolean changed = false;
+        for (Runnable task : tasks) {
+            changed |= add(task);
+        }
+        return changed;
+    }
+    
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+    
+    /**
+     * 带调度上下文的任务
+     */
+    static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        
+        private static final AtomicLong SUBMISSION = new AtomicLong(0);
+        private static final long AGING_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Constants.AsyncProcessing.PRIORITY_AGING_MILLIS);
+        
+        private final TaskContext context;
+        private final long submission;
+        private final long sortKey;
+        private final Runnable delegate;
+        
+        PrioritizedTask(TaskContext context, Runnable delegate) {
+            this.context = context;
+            this.submission = SUBMISSION.incrementAndGet();
+            this.sortKey = System.nanoTime() - context.getPriority().getLevel() * AGING_NANOS;
+            this.delegate = delegate;
+        }
+        
+        static PrioritizedTask wrap(Runnable task) {
+            return task instanceof PrioritizedTask prioritized ? prioritized
+                : new PrioritizedTask(TaskContext.current(), task);
+        }
+        
+        @Override
+        public void run() {
+            context.runWithin(delegate);
+        }
+        
+        /**
+         * CRITICAL优先；其余先比较排序键（按nanoTime差值比较，避免溢出），再比较父任务和自身的提交顺序
+         */
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            boolean critical = context.getPriority() == TaskPriority.CRITICAL;
+            if (critical != (other.context.getPriority() == TaskPriority.CRITICAL)) {
+                return critical ? -1 : 1;
+            }
+            int byKey = Long.signum(sortKey - other.sortKey);
+            if (byKey != 0) {
+                return byKey;
+            }
+            int bySequence = Long.compare(context.getSequence(), other.context.getSequence());
+            return bySequence != 0 ? bySequence : Long.compare(submission, other.submission);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.arisweeping.async;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.arisweeping.cleaning.EntitySnapshot;
+
+/**
+ * 实体快照并行计算内核
+ * 
+ * 把对快照下标的过滤拆分为fork-join子任务，在专用的ForkJoinPool上执行，
+ * 结果保持原下标顺序。小于拆分阈值的输入直接在调用线程上顺序执行
+ */
+public class SnapshotKernels {
+    
+    /** 单个子任务处理的最少条目数 */
+    private static final int SPLIT_THRESHOLD = 4096;
+    
+    private final ForkJoinPool pool;
+    
+    public SnapshotKernels(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * 过滤快照中的全部条目
+     * 
+     * @return 满足条件的下标（升序）
+     */
+    public int[] filterAll(EntitySnapshot snapshot, EntitySnapshot.EntryPredicate predicate) {
+        return run(new FilterTask(snapshot, null, 0, snapshot.size(), predicate));
+    }
+    
+    /**
+     * 过滤给定的下标集合
+     * 
+     * @return 满足条件的下标（保持输入顺序）
+     */
+    public int[] filter(EntitySnapshot snapshot, int[] indices, EntitySnapshot.EntryPredicate predicate) {
+        return run(new FilterTask(snapshot, indices, 0, indices.length, predicate));
+    }
+    
+    private int[] run(FilterTask task) {
+        if (task.to - task.from <= SPLIT_THRESHOLD) {
+            return task.compute();
+        }
+        return pool.invoke(task);
+    }
+    
+    /**
+     * 过滤子任务：按区间二分，叶子节点顺序压缩，合并时拼接
+     */
+    private static class FilterTask extends RecursiveTask<int[]> {
+        private final EntitySnapshot snapshot;
+        private final int[] indices; // null 表示直接使用 [from, to) 区间
+        private final int from;
+        private final int to;
+        private final EntitySnapshot.EntryPredicate predicate;
+        
+        FilterTask(EntitySnapshot snapshot, int[] indices, int from, int to,
+                   EntitySnapshot.EntryPredicate predicate) {
+            this.snapshot = snapshot;
+            this.indices = indices;
+            this.from = from;
+            this.to = to;
+            this.predicate = predicate;
+        }
+        
+        @Override
+        protected int[] compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                return computeDirectly();
+            }
+            
+            int mid = (from + to) >>> 1;
+            FilterTask left = new FilterTask(snapshot, indices, from, mid, predicate);
+            FilterTask right = new FilterTask(snapshot, indices, mid, to, predicate);
+            left.fork();
+            int[] rightResult = right.compute();
+            int[] leftResult = left.join();
+            
+            int[] merged = Arrays.copyOf(leftResult, leftResult.length + rightResult.length);
+            System.arraycopy(rightResult, 0, merged, leftResult.length, rightResult.length);
+            return merged;
+        }
+        
+        private int[] computeDirectly() {
+            int[] out = new int[to - from];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                int index = indices != null ? indices[i] : i;
+                if (predicate.test(snapshot, index)) {
+                    out[count++] = index;
+                }
+            }
+            return count == out.length ? out : Arrays.copyOf(out, count);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.arisweeping.async;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * 任务检查点
+ * 
+ * 长时间运行的任务在区块批次边界调用 {@link #shouldSuspend()}：收到让出或暂停请求时停在边界上，
+ * 已完成的区块记录在这里，任务重新执行时跳过这些区块，从中断处继续。
+ * 
+ * 请求可以从任意线程发出；已完成区块集合只在服务器主线程读写
+ */
+public class TaskCheckpoint {
+    
+    /**
+     * 挂起请求
+     */
+    public enum Request {
+        /** 继续执行 */
+        NONE,
+        /** 让出执行名额给更高优先级的任务，之后重新排队 */
+        YIELD,
+        /** 暂停，直到显式恢复 */
+        PAUSE
+    }
+    
+    private final AtomicReference<Request> request = new AtomicReference<>(Request.NONE);
+    private final LongOpenHashSet completedChunks = new LongOpenHashSet();
+    private volatile boolean suspended = false;
+    private volatile long resumeIndex = 0;
+    private final AtomicLong processedCount = new AtomicLong(0);
+    
+    /**
+     * 请求让出；已有其他请求时不覆盖
+     * 
+     * @return 是否由本次调用发出请求
+     */
+    public boolean requestYield() {
+        return request.compareAndSet(Request.NONE, Request.YIELD);
+    }
+    
+    /**
+     * 请求暂停（覆盖让出请求）
+     */
+    public void requestPause() {
+        request.set(Request.PAUSE);
+    }
+    
+    /**
+     * 撤回尚未生效的请求
+     */
+    public void clearRequest() {
+        request.set(Request.NONE);
+    }
+    
+    /**
+     * 是否应在当前批次边界停下（工作线程和主线程都可调用）
+     */
+    public boolean shouldSuspend() {
+        return request.get() != Request.NONE;
+    }
+    
+    public Request getRequest() {
+        return request.get();
+    }
+    
+    /**
+     * 任务已在检查点停下，剩余工作未执行
+     */
+    public void markSuspended() {
+        suspended = true;
+    }
+    
+    public boolean isSuspended() {
+        return suspended;
+    }
+    
+    /**
+     * 重新执行前调用：清除请求和挂起标记，保留已完成的进度
+     */
+    public void resume() {
+        suspended = false;
+        request.set(Request.NONE);
+    }
+    
+    /**
+     * 区块是否已在之前的执行中处理（主线程）
+     */
+    public boolean isChunkCompleted(long chunkKey) {
+        return completedChunks.contains(chunkKey);
+    }
+    
+    /**
+     * 记录已处理的区块（主线程）
+     */
+    public void markChunkCompleted(long chunkKey) {
+        completedChunks.add(chunkKey);
+    }
+    
+    public int getCompletedChunkCount() {
+        return completedChunks.size();
+    }
+    
+    /**
+     * 清空已完成区块，任务转到下一个维度时调用（区块键不区分维度）
+     */
+    public void clearCompletedChunks() {
+        completedChunks.clear();
+    }
+    
+    /**
+     * 累计本任务各次执行已处理的数量
+     */
+    public void addProcessedCount(long count) {
+        processedCount.addAndGet(count);
+    }
+    
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+    
+    /**
+     * 不按区块划分的任务使用的续点（已完成的批次数）
+     */
+    public long getResumeIndex() {
+        return resumeIndex;
+    }
+    
+    public void setResumeIndex(long resumeIndex) {
+        this.resumeIndex = resumeIndex;
+    }
+}
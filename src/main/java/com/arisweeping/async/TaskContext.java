@@ -0,0 +1,76 @@
+package com.arisweeping.async;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.arisweeping.tasks.enums.TaskPriority;
+
+/**
+ * 任务调度上下文：优先级 + 提交顺序
+ * 
+ * 上下文只携带优先级和父任务的提交序号，排队时间由每个工作单元在入队时各自记录（见 {@link PriorityWorkQueue}），
+ * 长时间运行的任务后续提交的子任务不会继承父任务的等待时间。
+ * 
+ * 在线程池中执行的任务会把自己的上下文设为当前线程的上下文，从中提交的子任务默认继承；
+ * 跨越主线程回调时需要先用 {@link #current()} 取得上下文再显式传递
+ */
+public final class TaskContext {
+    
+    private static final AtomicLong SEQUENCE = new AtomicLong(0);
+    private static final ThreadLocal<TaskContext> CURRENT = new ThreadLocal<>();
+    
+    private final TaskPriority priority;
+    private final long sequence;
+    
+    private TaskContext(TaskPriority priority, long sequence) {
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+    
+    /**
+     * 创建新的上下文，分配新的提交序号
+     */
+    public static TaskContext create(TaskPriority priority) {
+        return new TaskContext(priority, SEQUENCE.incrementAndGet());
+    }
+    
+    /**
+     * 当前线程正在执行的任务的上下文；不在线程池任务中时创建一个普通优先级的新上下文
+     */
+    public static TaskContext current() {
+        TaskContext context = CURRENT.get();
+        return context != null ? context : create(TaskPriority.NORMAL);
+    }
+    
+    /**
+     * 在当前线程上以本上下文执行任务，结束后恢复原来的上下文
+     */
+    void runWithin(Runnable task) {
+        TaskContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            task.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+    
+    public TaskPriority getPriority() {
+        return priority;
+    }
+    
+    /**
+     * 全局提交序号，子任务沿用父任务的序号
+     */
+    public long getSequence() {
+        return sequence;
+    }
+    
+    @Override
+    public String toString() {
+        return priority + "#" + sequence;
+    }
+}
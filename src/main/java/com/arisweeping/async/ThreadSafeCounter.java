@@ -250,6 +250,7 @@ public class ThreadSafeCounter {
     public static final String UNDO_OPERATIONS = "undo_operations";
     public static final String UNDO_SUCCESSES = "undo_successes";
     public static final String UNDO_FAILURES = "undo_failures";
+    public static final String REMOVE_PACKETS_SAVED = "remove_packets_saved";
     
     /**
      * 初始化预定义计数器
@@ -264,6 +265,7 @@ public class ThreadSafeCounter {
         getCounter(UNDO_OPERATIONS);
         getCounter(UNDO_SUCCESSES);
         getCounter(UNDO_FAILURES);
+        getCounter(REMOVE_PACKETS_SAVED);
     }
     
     /**
@@ -0,0 +1,215 @@
+package com.arisweeping.cleaning;
+
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.core.Constants;
+import com.arisweeping.data.ConfigData;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+/**
+ * 自适应清理间隔控制器
+ * 
+ * 根据实测MSPT、掉落物和动物的增长速度以及上次清理的主线程开销计算下一次清理的时间，
+ * 结果限制在配置的最小/最大间隔之间：
+ * <ul>
+ *   <li>MSPT低于目标时按余量拉长间隔，高于目标时缩短</li>
+ *   <li>按当前增长速度，间隔不超过积压到目标数量所需的时间</li>
+ *   <li>清理开销占用主线程时间的比例不超过上限</li>
+ * </ul>
+ * 每次调整只向目标值靠近一部分，避免间隔来回振荡
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class AdaptiveIntervalController {
+    
+    private static final AdaptiveIntervalController INSTANCE = new AdaptiveIntervalController();
+    
+    // 测量值
+    private volatile double smoothedMspt = 0.0;
+    private volatile double growthPerTick = 0.0;
+    private volatile long lastSweepCostMicros = 0;
+    private volatile int lastSweepEntities = 0;
+    
+    // 控制器状态
+    private volatile int currentIntervalTicks = Constants.Cleaning.DEFAULT_CLEANING_INTERVAL_TICKS;
+    private volatile long lastSweepTick = 0;
+    private long lastEntityCount = -1; // 只在主线程访问
+    
+    private AdaptiveIntervalController() {
+    }
+    
+    /**
+     * 获取控制器实例
+     */
+    public static AdaptiveIntervalController getInstance() {
+        return INSTANCE;
+    }
+    
+    // ==================== 事件处理 ====================
+    
+    /**
+     * 定期采样MSPT和实体数量
+     */
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) {
+            return;
+        }
+        
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null && server.getTickCount() % Constants.AdaptiveInterval.SAMPLE_INTERVAL_TICKS == 0) {
+            INSTANCE.sample(server);
+        }
+    }
+    
+    /**
+     * 服务器停止时重置状态
+     */
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        INSTANCE.reset();
+    }
+    
+    // ==================== 采样和反馈 ====================
+    
+    /**
+     * 采样（主线程）
+     */
+    private void sample(MinecraftServer server) {
+        double mspt = server.getAverageTickTime();
+        smoothedMspt = smoothedMspt <= 0.0 ? mspt : ewma(smoothedMspt, mspt);
+        
+        EntityChunkIndex index = EntityChunkIndex.getInstance();
+        long entityCount = 0;
+        for (ServerLevel level : server.getAllLevels()) {
+            entityCount += index.getTotalCount(level, EntityCategory.ITEM);
+            entityCount += index.getTotalCount(level, EntityCategory.ANIMAL);
+        }
+        
+        if (lastEntityCount >= 0) {
+            // 清理导致的数量下降不算作负增长
+            double delta = Math.max(0, entityCount - lastEntityCount);
+            growthPerTick = ewma(growthPerTick, delta / Constants.AdaptiveInterval.SAMPLE_INTERVAL_TICKS);
+        }
+        lastEntityCount = entityCount;
+        
+        recompute();
+    }
+    
+    /**
+     * 记录清理开始（主线程），下一次清理从此刻开始计时
+     */
+    public void onSweepStarted(long serverTick) {
+        lastSweepTick = serverTick;
+    }
+    
+    /**
+     * 记录清理完成
+     * 
+     * @param mainThreadMicros 本次清理在主线程上花费的时间（微秒）
+     * @param entitiesAffected 本次移除或合并的实体数
+     */
+    public void onSweepFinished(long mainThreadMicros, int entitiesAffected) {
+        lastSweepCostMicros = mainThreadMicros;
+        lastSweepEntities = entitiesAffected;
+        recompute();
+    }
+    
+    /**
+     * 重新计算清理间隔
+     */
+    private synchronized void recompute() {
+        ConfigData config = ArisSweepingMod.getConfigData();
+        int baseInterval = config != null ? config.getCleaningIntervalTicks()
+                : Constants.Cleaning.DEFAULT_CLEANING_INTERVAL_TICKS;
+        if (config != null && !config.isAdaptiveCleaningInterval()) {
+            currentIntervalTicks = baseInterval;
+            return;
+        }
+        
+        int minInterval = config != null ? config.getMinCleaningIntervalTicks()
+                : Constants.AdaptiveInterval.DEFAULT_MIN_INTERVAL_TICKS;
+        int maxInterval = config != null ? config.getMaxCleaningIntervalTicks()
+                : Constants.AdaptiveInterval.DEFAULT_MAX_INTERVAL_TICKS;
+        
+        // MSPT余量：空闲时拉长，过载时缩短
+        double desired = baseInterval * Constants.AdaptiveInterval.TARGET_MSPT / Math.max(smoothedMspt, 1.0);
+        
+        // 增长速度：不等到积压超过目标数量
+        if (growthPerTick > 0.0) {
+            desired = Math.min(desired, Constants.AdaptiveInterval.TARGET_BACKLOG / growthPerTick);
+        }
+        
+        // 清理开销：主线程占用比例不超过上限
+        double costFloor = lastSweepCostMicros / 1000.0
+                / Constants.AdaptiveInterval.MAX_SWEEP_DUTY_CYCLE / 50.0;
+        desired = Math.max(desired, costFloor);
+        desired = clamp(desired, minInterval, maxInterval);
+        
+        int previous = currentIntervalTicks;
+        double next = previous + (desired - previous) * Constants.AdaptiveInterval.DAMPING;
+        currentIntervalTicks = (int) clamp(Math.round(next), minInterval, maxInterval);
+        
+        if (Math.abs(currentIntervalTicks - previous) >= previous / 4) {
+            ArisLogger.debug("Cleaning interval adjusted {} -> {} ticks (mspt={}, growth={}/s, lastCost={}us)",
+                previous, currentIntervalTicks, String.format("%.1f", smoothedMspt),
+                String.format("%.2f", growthPerTick * 20.0), lastSweepCostMicros);
+        }
+    }
+    
+    private void reset() {
+        smoothedMspt = 0.0;
+        growthPerTick = 0.0;
+        lastSweepCostMicros = 0;
+        lastSweepEntities = 0;
+        lastSweepTick = 0;
+        lastEntityCount = -1;
+        currentIntervalTicks = Constants.Cleaning.DEFAULT_CLEANING_INTERVAL_TICKS;
+    }
+    
+    private static double ewma(double previous, double sample) {
+        return previous + (sample - previous) * Constants.AdaptiveInterval.SMOOTHING;
+    }
+    
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+    
+    // ==================== 查询 ====================
+    
+    /**
+     * 判断是否到了下一次清理的时间
+     */
+    public boolean isSweepDue(long serverTick) {
+        return serverTick - lastSweepTick >= currentIntervalTicks;
+    }
+    
+    /**
+     * 获取距离下一次清理的tick数
+     */
+    public long getTicksUntilNextSweep(long serverTick) {
+        return Math.max(0, lastSweepTick + currentIntervalTicks - serverTick);
+    }
+    
+    public int getCurrentIntervalTicks() { return currentIntervalTicks; }
+    public long getNextSweepTick() { return lastSweepTick + currentIntervalTicks; }
+    public double getSmoothedMspt() { return smoothedMspt; }
+    /** 掉落物和动物的增长速度（每秒） */
+    public double getGrowthPerSecond() { return growthPerTick * 20.0; }
+    public long getLastSweepCostMicros() { return lastSweepCostMicros; }
+    public int getLastSweepEntities() { return lastSweepEntities; }
+    
+    /**
+     * 获取状态信息
+     */
+    public String getStatus() {
+        return String.format("AdaptiveInterval[interval=%d ticks, mspt=%.1f, growth=%.2f/s, lastCost=%dus, lastEntities=%d]",
+                currentIntervalTicks, smoothedMspt, getGrowthPerSecond(), lastSweepCostMicros, lastSweepEntities);
+    }
+}
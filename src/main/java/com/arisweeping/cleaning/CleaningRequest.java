@@ -14,7 +14,10 @@ public class CleaningRequest {
     private final UUID playerUUID;
     private final double radius;
     private final Set<net.minecraft.world.level.ChunkPos> chunks;
+    private final String dimension;
+    private final String strategy;
     private final Map<String, Object> parameters;
+    private final Fingerprint fingerprint;
     
     private CleaningRequest(Builder builder) {
         this.taskId = builder.taskId;
@@ -23,7 +26,10 @@ public class CleaningRequest {
         this.playerUUID = builder.playerUUID;
         this.radius = builder.radius;
         this.chunks = builder.chunks != null ? Set.copyOf(builder.chunks) : Collections.emptySet();
+        this.dimension = builder.dimension;
+        this.strategy = builder.strategy;
         this.parameters = builder.parameters != null ? Map.copyOf(builder.parameters) : Collections.emptyMap();
+        this.fingerprint = new Fingerprint(this);
     }
     
     public static Builder builder() {
@@ -36,6 +42,8 @@ public class CleaningRequest {
     public UUID getPlayerUUID() { return playerUUID; }
     public double getRadius() { return radius; }
     public Set<net.minecraft.world.level.ChunkPos> getChunks() { return chunks; }
+    public String getDimension() { return dimension; }
+    public String getStrategy() { return strategy; }
     public Map<String, Object> getParameters() { return parameters; }
     
     public boolean hasSpecificChunks() {
@@ -46,6 +54,13 @@ public class CleaningRequest {
         return playerUUID != null && radius > 0;
     }
     
+    /**
+     * 请求指纹：维度、区域、清理类别和策略都相同的请求扫描结果相同，可以合并为一次执行
+     */
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+    
     @Override
     public String toString() {
         return String.format("CleaningRequest{taskId=%s, items=%s, animals=%s, player=%s, radius=%.1f, chunks=%d}",
@@ -59,6 +74,8 @@ public class CleaningRequest {
         private UUID playerUUID;
         private double radius = 0;
         private Set<net.minecraft.world.level.ChunkPos> chunks;
+        private String dimension;
+        private String strategy;
         private Map<String, Object> parameters;
         
         public Builder setTaskId(UUID taskId) {
@@ -87,6 +104,22 @@ public class CleaningRequest {
             return this;
         }
         
+        /**
+         * 限定维度（维度ID，如 minecraft:overworld），不设置时清理所有维度
+         */
+        public Builder setDimension(String dimension) {
+            this.dimension = dimension;
+            return this;
+        }
+        
+        /**
+         * 指定清理策略名，不设置时使用配置中的策略
+         */
+        public Builder setStrategy(String strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+        
         public Builder setParameters(Map<String, Object> parameters) {
             this.parameters = parameters;
             return this;
@@ -96,4 +129,53 @@ public class CleaningRequest {
             return new CleaningRequest(this);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * 请求指纹，不包含任务ID，两个请求指纹相等表示清理范围和规则完全相同
+     */
+    public static final class Fingerprint {
+        private final String dimension;
+        private final Set<net.minecraft.world.level.ChunkPos> chunks;
+        private final UUID playerUUID;
+        private final double radius;
+        private final boolean cleanItems;
+        private final boolean cleanAnimals;
+        private final String strategy;
+        private final int hash;
+        
+        private Fingerprint(CleaningRequest request) {
+            this.dimension = request.dimension;
+            this.chunks = request.chunks;
+            this.playerUUID = request.playerUUID;
+            this.radius = request.radius;
+            this.cleanItems = request.cleanItems;
+            this.cleanAnimals = request.cleanAnimals;
+            this.strategy = request.strategy;
+            this.hash = Objects.hash(dimension, chunks, playerUUID, radius, cleanItems, cleanAnimals, strategy);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Fingerprint other) || hash != other.hash) return false;
+            return cleanItems == other.cleanItems
+                && cleanAnimals == other.cleanAnimals
+                && Double.compare(radius, other.radius) == 0
+                && Objects.equals(dimension, other.dimension)
+                && Objects.equals(playerUUID, other.playerUUID)
+                && Objects.equals(strategy, other.strategy)
+                && chunks.equals(other.chunks);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Fingerprint{dimension=%s, items=%s, animals=%s, player=%s, radius=%.1f, chunks=%d, strategy=%s}",
+                dimension, cleanItems, cleanAnimals, playerUUID, radius, chunks.size(), strategy);
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class CleaningResult {
     private final String level;
     private final int itemsRemoved;
     private final int animalsRemoved;
+    private final int itemEntitiesMerged;
     private final List<EntityRemovalInfo> removedEntities;
     
     private CleaningResult(Builder builder) {
@@ -29,6 +30,7 @@ public class CleaningResult {
         this.level = builder.level;
         this.itemsRemoved = builder.itemsRemoved;
         this.animalsRemoved = builder.animalsRemoved;
+        this.itemEntitiesMerged = builder.itemEntitiesMerged;
         this.removedEntities = builder.removedEntities != null ? 
             List.copyOf(builder.removedEntities) : Collections.emptyList();
     }
@@ -47,12 +49,14 @@ public class CleaningResult {
     public String getLevel() { return level; }
     public int getItemsRemoved() { return itemsRemoved; }
     public int getAnimalsRemoved() { return animalsRemoved; }
+    /** 通过合并堆叠减少的物品实体数（物品本身未丢失） */
+    public int getItemEntitiesMerged() { return itemEntitiesMerged; }
     public List<EntityRemovalInfo> getRemovedEntities() { return removedEntities; }
     
     @Override
     public String toString() {
-        return String.format("CleaningResult{taskId=%s, successful=%s, items=%d, animals=%d, duration=%dms}",
-            taskId, successful, itemsRemoved, animalsRemoved, duration);
+        return String.format("CleaningResult{taskId=%s, successful=%s, items=%d, animals=%d, merged=%d, duration=%dms}",
+            taskId, successful, itemsRemoved, animalsRemoved, itemEntitiesMerged, duration);
     }
     
     public static class Builder {
@@ -65,6 +69,7 @@ public class CleaningResult {
         private String level;
         private int itemsRemoved;
         private int animalsRemoved;
+        private int itemEntitiesMerged;
         private List<EntityRemovalInfo> removedEntities = new ArrayList<>();
         
         public Builder setTaskId(UUID taskId) {
@@ -122,6 +127,16 @@ public class CleaningResult {
             return this;
         }
         
+        public Builder addItemEntitiesMerged(int count) {
+            this.itemEntitiesMerged += count;
+            return this;
+        }
+        
+        public Builder setItemEntitiesMerged(int count) {
+            this.itemEntitiesMerged = count;
+            return this;
+        }
+        
         public Builder addRemovedEntities(List<EntityRemovalInfo> entities) {
             this.removedEntities.addAll(entities);
             return this;
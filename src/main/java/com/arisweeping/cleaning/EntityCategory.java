@@ -0,0 +1,42 @@
+package com.arisweeping.cleaning;
+
+import net.minecraft.world.entity.Entity;
+
+/**
+ * 实体清理分类
+ * 
+ * 清理系统关心的实体类别，用于索引分桶和扫描路径选择
+ */
+public enum EntityCategory {
+    /** 掉落物 */
+    ITEM,
+    
+    /** 畜牧动物 */
+    ANIMAL,
+    
+    /** 其他实体 - 不参与清理，仅用于区块负载统计 */
+    OTHER;
+    
+    private static final EntityCategory[] VALUES = values();
+    
+    /**
+     * 获取实体所属分类（查 {@link EntityTypeTable}，每种实体类型只做一次类型判断）
+     */
+    public static EntityCategory of(Entity entity) {
+        return EntityTypeTable.categoryOf(entity);
+    }
+    
+    /**
+     * 按序号获取分类（避免重复创建values数组）
+     */
+    public static EntityCategory byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+    
+    /**
+     * 分类数量
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+}
@@ -0,0 +1,307 @@
+package com.arisweeping.cleaning;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import com.arisweeping.collections.Long2ObjectTable;
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.entity.EntityEvent;
+import net.minecraftforge.event.entity.EntityJoinLevelEvent;
+import net.minecraftforge.event.entity.EntityLeaveLevelEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 实体区块索引
+ * 
+ * 通过实体加入/离开/跨区块事件实时维护 (维度, 区块, 分类) -> 实体 的索引，
+ * 使清理扫描只访问需要的分类和区块，而不必遍历整个世界的实体列表
+ * 
+ * 区块表只在服务端线程上写入和遍历；分类总数可以在任意线程读取。已移除的实体会在遍历时被惰性剔除
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class EntityChunkIndex {
+    
+    private static final EntityChunkIndex INSTANCE = new EntityChunkIndex();
+    
+    private final Map<ResourceKey<Level>, LevelIndex> levels = new ConcurrentHashMap<>();
+    
+    private EntityChunkIndex() {
+    }
+    
+    /**
+     * 获取索引实例
+     */
+    public static EntityChunkIndex getInstance() {
+        return INSTANCE;
+    }
+    
+    // ==================== 事件处理 ====================
+    
+    /**
+     * 实体加入世界 - 最低优先级，确保只索引没有被其他模组取消的实体
+     */
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onEntityJoinLevel(EntityJoinLevelEvent event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            Entity entity = event.getEntity();
+            INSTANCE.add(level, entity, entity.chunkPosition().toLong());
+        }
+    }
+    
+    /**
+     * 实体离开世界（死亡、清除或随区块卸载）
+     */
+    @SubscribeEvent
+    public static void onEntityLeaveLevel(EntityLeaveLevelEvent event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            Entity entity = event.getEntity();
+            INSTANCE.remove(level, entity, entity.chunkPosition().toLong());
+        }
+    }
+    
+    /**
+     * 实体跨越区段 - 只在跨区块时重新分桶
+     */
+    @SubscribeEvent
+    public static void onEntityEnteringSection(EntityEvent.EnteringSection event) {
+        if (!event.didChunkChange()) {
+            return;
+        }
+        
+        Entity entity = event.getEntity();
+        if (entity.level() instanceof ServerLevel level) {
+            long oldSection = event.getPackedOldPos();
+            long newSection = event.getPackedNewPos();
+            INSTANCE.move(level, entity,
+                ChunkPos.asLong(SectionPos.x(oldSection), SectionPos.z(oldSection)),
+                ChunkPos.asLong(SectionPos.x(newSection), SectionPos.z(newSection)));
+        }
+    }
+    
+    /**
+     * 维度卸载时丢弃对应索引
+     */
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            INSTANCE.levels.remove(level.dimension());
+        }
+    }
+    
+    /**
+     * 服务器停止时清空索引
+     */
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        INSTANCE.clear();
+    }
+    
+    // ==================== 写入 ====================
+    
+    private void add(ServerLevel level, Entity entity, long chunkKey) {
+        LevelIndex index = levels.computeIfAbsent(level.dimension(), k -> new LevelIndex());
+        index.add(chunkKey, EntityCategory.of(entity), entity);
+    }
+    
+    private void remove(ServerLevel level, Entity entity, long chunkKey) {
+        LevelIndex index = levels.get(level.dimension());
+        if (index != null) {
+            index.remove(chunkKey, EntityCategory.of(entity), entity);
+        }
+    }
+    
+    private void move(ServerLevel level, Entity entity, long fromChunk, long toChunk) {
+        LevelIndex index = levels.computeIfAbsent(level.dimension(), k -> new LevelIndex());
+        EntityCategory category = EntityCategory.of(entity);
+        index.remove(fromChunk, category, entity);
+        index.add(toChunk, category, entity);
+    }
+    
+    /**
+     * 清空所有维度的索引
+     */
+    public void clear() {
+        levels.clear();
+        ArisLogger.debug("Entity chunk index cleared");
+    }
+    
+    // ==================== 查询 ====================
+    
+    /**
+     * 遍历维度内指定分类的所有实体
+     */
+    public void forEach(ServerLevel level, EntityCategory category, Consumer<Entity> consumer) {
+        LevelIndex index = levels.get(level.dimension());
+        if (index == null) {
+            return;
+        }
+        
+        Long2ObjectTable<ChunkBucket> chunks = index.chunks;
+        for (int slot = chunks.nextSlot(-1); slot >= 0; slot = chunks.nextSlot(slot)) {
+            chunks.valueAt(slot).forEach(index, category, consumer);
+        }
+    }
+    
+    /**
+     * 遍历指定区块内指定分类的实体
+     */
+    public void forEachInChunk(ServerLevel level, long chunkKey, EntityCategory category, Consumer<Entity> consumer) {
+        LevelIndex index = levels.get(level.dimension());
+        if (index == null) {
+            return;
+        }
+        
+        ChunkBucket bucket = index.chunks.get(chunkKey);
+        if (bucket != null) {
+            bucket.forEach(index, category, consumer);
+        }
+    }
+    
+    /**
+     * 遍历维度内含有指定分类实体的区块键
+     */
+    public void forEachChunk(ServerLevel level, EntityCategory category, LongConsumer consumer) {
+        LevelIndex index = levels.get(level.dimension());
+        if (index == null) {
+            return;
+        }
+        
+        Long2ObjectTable<ChunkBucket> chunks = index.chunks;
+        for (int slot = chunks.nextSlot(-1); slot >= 0; slot = chunks.nextSlot(slot)) {
+            if (!chunks.valueAt(slot).entities[category.ordinal()].isEmpty()) {
+                consumer.accept(chunks.keyAt(slot));
+            }
+        }
+    }
+    
+    /**
+     * 获取指定区块内的实体总数（所有分类）
+     */
+    public int getChunkCount(ServerLevel level, long chunkKey) {
+        LevelIndex index = levels.get(level.dimension());
+        if (index == null) {
+            return 0;
+        }
+        
+        ChunkBucket bucket = index.chunks.get(chunkKey);
+        return bucket != null ? bucket.total() : 0;
+    }
+    
+    /**
+     * 获取指定区块内指定分类的实体数
+     */
+    public int getChunkCount(ServerLevel level, long chunkKey, EntityCategory category) {
+        LevelIndex index = levels.get(level.dimension());
+        if (index == null) {
+            return 0;
+        }
+        
+        ChunkBucket bucket = index.chunks.get(chunkKey);
+        return bucket != null ? bucket.entities[category.ordinal()].size() : 0;
+    }
+    
+    /**
+     * 获取维度内指定分类的实体总数
+     */
+    public int getTotalCount(ServerLevel level, EntityCategory category) {
+        LevelIndex index = levels.get(level.dimension());
+        return index != null ? index.totals[category.ordinal()].get() : 0;
+    }
+    
+    /**
+     * 获取维度内已索引的区块数
+     */
+    public int getIndexedChunkCount(ServerLevel level) {
+        LevelIndex index = levels.get(level.dimension());
+        return index != null ? index.chunks.size() : 0;
+    }
+    
+    /**
+     * 单个维度的索引
+     */
+    private static class LevelIndex {
+        private final Long2ObjectTable<ChunkBucket> chunks = new Long2ObjectTable<>();
+        private final AtomicInteger[] totals = new AtomicInteger[EntityCategory.count()];
+        
+        LevelIndex() {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] = new AtomicInteger(0);
+            }
+        }
+        
+        void add(long chunkKey, EntityCategory category, Entity entity) {
+            ChunkBucket bucket = chunks.computeIfAbsent(chunkKey, k -> new ChunkBucket());
+            if (bucket.entities[category.ordinal()].add(entity)) {
+                totals[category.ordinal()].incrementAndGet();
+            }
+        }
+        
+        void remove(long chunkKey, EntityCategory category, Entity entity) {
+            ChunkBucket bucket = chunks.get(chunkKey);
+            if (bucket == null) {
+                return;
+            }
+            
+            if (bucket.entities[category.ordinal()].remove(entity)) {
+                totals[category.ordinal()].decrementAndGet();
+            }
+            
+            // 区块桶为空时回收，避免索引随玩家探索无限增长
+            if (bucket.total() == 0) {
+                chunks.remove(chunkKey, bucket);
+            }
+        }
+    }
+    
+    /**
+     * 单个区块的分类实体集合
+     */
+    private static class ChunkBucket {
+        @SuppressWarnings("unchecked")
+        private final Set<Entity>[] entities = new Set[EntityCategory.count()];
+        
+        ChunkBucket() {
+            for (int i = 0; i < entities.length; i++) {
+                entities[i] = ConcurrentHashMap.newKeySet();
+            }
+        }
+        
+        int total() {
+            int total = 0;
+            for (Set<Entity> set : entities) {
+                total += set.size();
+            }
+            return total;
+        }
+        
+        void forEach(LevelIndex owner, EntityCategory category, Consumer<Entity> consumer) {
+            Set<Entity> set = entities[category.ordinal()];
+            for (Entity entity : set) {
+                // 实体可能在未被追踪的区段中随区块卸载而没有离开事件，这里惰性剔除
+                if (entity.isRemoved()) {
+                    if (set.remove(entity)) {
+                        owner.totals[category.ordinal()].decrementAndGet();
+                    }
+                    continue;
+                }
+                consumer.accept(entity);
+            }
+        }
+    }
+}
@@ -2,27 +2,42 @@ package com.arisweeping.cleaning;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 import com.arisweeping.async.AsyncTaskManager;
+import com.arisweeping.async.MainThreadDrain;
+import com.arisweeping.async.SnapshotKernels;
+import com.arisweeping.async.TaskCheckpoint;
+import com.arisweeping.async.TaskContext;
 import com.arisweeping.cleaning.filters.AnimalDensityFilter;
 import com.arisweeping.cleaning.filters.ItemEntityFilter;
 import com.arisweeping.cleaning.strategies.CleaningStrategy;
 import com.arisweeping.cleaning.strategies.DensityBasedStrategy;
 import com.arisweeping.cleaning.strategies.DistanceBasedStrategy;
+import com.arisweeping.cleaning.strategies.ItemMergeStrategy;
 import com.arisweeping.cleaning.strategies.TimeBasedStrategy;
 import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.core.Constants;
 import com.arisweeping.data.ConfigData;
+import com.arisweeping.tasks.SmartTaskManager;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2DoubleOpenHashMap;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
 import net.minecraft.world.entity.Entity;
-import net.minecraft.world.entity.animal.Animal;
-import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.phys.AABB;
 
@@ -36,10 +51,12 @@ public class EntityCleaner {
     private final AsyncTaskManager asyncTaskManager;
     private final ConfigData configData;
     private final Map<String, CleaningStrategy> strategies;
+    private final EntityChunkIndex entityIndex;
     
     // 统计信息
     private final AtomicLong totalItemsRemoved = new AtomicLong(0);
     private final AtomicLong totalAnimalsRemoved = new AtomicLong(0);
+    private final AtomicLong totalItemEntitiesMerged = new AtomicLong(0);
     private final AtomicLong totalOperations = new AtomicLong(0);
     
     // 过滤器
@@ -49,6 +66,7 @@ public class EntityCleaner {
     public EntityCleaner(AsyncTaskManager asyncTaskManager, ConfigData configData) {
         this.asyncTaskManager = asyncTaskManager;
         this.configData = configData;
+        this.entityIndex = EntityChunkIndex.getInstance();
         
         // 初始化过滤器
         this.itemFilter = new ItemEntityFilter(configData);
@@ -68,38 +86,54 @@ public class EntityCleaner {
         strategies.put("time", new TimeBasedStrategy(configData));
         strategies.put("distance", new DistanceBasedStrategy(configData));
         strategies.put("density", new DensityBasedStrategy(configData));
+        strategies.put("merge", new ItemMergeStrategy(configData));
     }
     
     /**
      * 执行完整的清理操作
+     * 
+     * 分为三个阶段：主线程捕获实体快照 -> 工作线程在快照上执行过滤器和策略 -> 主线程按ID移除实体。
+     * 工作线程不访问实体对象，交回主线程的只有待移除实体的ID数组
      */
     public CompletableFuture<CleaningResult> performCleaningOperation(ServerLevel level, CleaningRequest request) {
-        return asyncTaskManager.submitTask(() -> {
-            ArisLogger.info("Starting cleaning operation: {}", request);
-            
-            long startTime = System.currentTimeMillis();
-            CleaningResult.Builder resultBuilder = CleaningResult.builder()
-                .setTaskId(request.getTaskId())
-                .setStartTime(startTime)
-                .setLevel(level.dimension().toString());
-            
-            try {
-                // 执行物品清理
-                if (request.shouldCleanItems() && configData.itemCleaning.enabled) {
-                    CleaningResult itemResult = cleanItems(level, request);
-                    resultBuilder.addItemsRemoved(itemResult.getItemsRemoved());
-                    resultBuilder.addRemovedEntities(itemResult.getRemovedEntities());
-                }
-                
-                // 执行动物清理
-                if (request.shouldCleanAnimals() && configData.animalCleaning.enabled) {
-                    CleaningResult animalResult = cleanAnimals(level, request);
-                    resultBuilder.addAnimalsRemoved(animalResult.getAnimalsRemoved());
-                    resultBuilder.addRemovedEntities(animalResult.getRemovedEntities());
-                }
-                
+        return performCleaningOperation(level, request, null);
+    }
+    
+    /**
+     * 执行清理操作，可在区域批次边界挂起
+     * 
+     * 传入检查点时，候选区块按区域分批，每批依次完成捕获、评估和移除后把区块记入检查点；
+     * 开始下一批前收到让出或暂停请求则停下并标记 {@link TaskCheckpoint#markSuspended()}，返回已完成批次的结果。
+     * 用同一个检查点再次调用时跳过已完成的区块。分批后合并和密度策略只在同一区域内生效
+     * 
+     * @param checkpoint 检查点，为null时一次处理整个请求范围
+     */
+    public CompletableFuture<CleaningResult> performCleaningOperation(ServerLevel level, CleaningRequest request,
+                                                                      TaskCheckpoint checkpoint) {
+        ArisLogger.info("Starting cleaning operation: {}", request);
+        
+        long startTime = System.currentTimeMillis();
+        CleaningResult.Builder resultBuilder = CleaningResult.builder()
+            .setTaskId(request.getTaskId())
+            .setStartTime(startTime)
+            .setLevel(level.dimension().toString());
+        
+        boolean cleanItems = request.shouldCleanItems() && configData.itemCleaning.enabled;
+        boolean cleanAnimals = request.shouldCleanAnimals() && configData.animalCleaning.enabled;
+        MinecraftServer server = level.getServer();
+        AdaptiveIntervalController intervalController = AdaptiveIntervalController.getInstance();
+        // 评估任务在主线程回调中提交，显式沿用调用方的调度上下文
+        CleaningRun run = new CleaningRun(level, request, cleanItems, cleanAnimals, checkpoint,
+            TaskContext.current(), resultBuilder);
+        
+        return server.submit(() -> {
+                intervalController.onSweepStarted(server.getTickCount());
+                return checkpoint != null ? planBatches(level, request, cleanItems, cleanAnimals, checkpoint) : null;
+            })
+            .thenCompose(batches -> batches != null ? run.runBatches(batches, 0) : run.runPass(null))
+            .thenApply(builder -> {
                 long endTime = System.currentTimeMillis();
-                CleaningResult result = resultBuilder
+                CleaningResult result = builder
                     .setEndTime(endTime)
                     .setDuration(endTime - startTime)
                     .setSuccessful(true)
@@ -107,210 +141,334 @@ public class EntityCleaner {
                 
                 // 更新统计信息
                 updateStatistics(result);
+                intervalController.onSweepFinished(run.mainThreadNanos.get() / 1000,
+                    result.getItemsRemoved() + result.getAnimalsRemoved() + result.getItemEntitiesMerged());
                 
-                ArisLogger.info("Cleaning operation completed: {} items, {} animals removed in {}ms", 
-                    result.getItemsRemoved(), result.getAnimalsRemoved(), result.getDuration());
+                ArisLogger.info("Cleaning operation {}: {} items, {} animals removed, {} item entities merged in {}ms",
+                    checkpoint != null && checkpoint.isSuspended() ? "suspended" : "completed",
+                    result.getItemsRemoved(), result.getAnimalsRemoved(), result.getItemEntitiesMerged(),
+                    result.getDuration());
                 
                 return result;
-                
-            } catch (Exception e) {
-                ArisLogger.error("Cleaning operation failed", e);
+            })
+            .exceptionally(throwable -> {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+                ArisLogger.error("Cleaning operation failed", cause);
                 return resultBuilder
                     .setEndTime(System.currentTimeMillis())
                     .setSuccessful(false)
-                    .setErrorMessage(e.getMessage())
+                    .setErrorMessage(cause.getMessage())
                     .build();
-            }
-        });
+            });
     }
     
     /**
-     * 清理物品实体
+     * 规划阶段（主线程）：列出请求范围内含有候选实体且尚未完成的区块，按区域分批
+     * 
+     * 批次按区域内各区块的 {@link HotChunkTracker} 热度之和降序排列，实体堆积最快的区域最先清理，
+     * 清理中途让出或暂停时已处理的总是最热的部分；热度相同的区域保持坐标顺序
      */
-    private CleaningResult cleanItems(ServerLevel level, CleaningRequest request) {
-        ArisLogger.debug("Starting item cleaning for level: {}", level.dimension());
-        
-        List<ItemEntity> candidateItems = findItemEntities(level, request);
-        List<ItemEntity> itemsToRemove = itemFilter.filter(candidateItems);
+    private List<LongArrayList> planBatches(ServerLevel level, CleaningRequest request, boolean cleanItems,
+                                            boolean cleanAnimals, TaskCheckpoint checkpoint) {
+        int shift = Constants.Cleaning.CLEANING_BATCH_REGION_SHIFT;
+        Long2ObjectRBTreeMap<LongArrayList> regions = new Long2ObjectRBTreeMap<>();
+        LongOpenHashSet planned = new LongOpenHashSet();
+        LongConsumer planner = chunkKey -> {
+            if (!checkpoint.isChunkCompleted(chunkKey) && planned.add(chunkKey)) {
+                long region = ChunkPos.asLong(ChunkPos.getX(chunkKey) >> shift, ChunkPos.getZ(chunkKey) >> shift);
+                regions.computeIfAbsent(region, k -> new LongArrayList()).add(chunkKey);
+            }
+        };
         
-        // 应用清理策略
-        String strategyName = configData.itemCleaning.strategy;
-        CleaningStrategy strategy = strategies.get(strategyName);
-        if (strategy != null) {
-            itemsToRemove = strategy.applyStrategy(itemsToRemove.stream()
-                .map(entity -> (Entity) entity)
-                .collect(Collectors.toList()))
-                .stream()
-                .map(entity -> (ItemEntity) entity)
-                .collect(Collectors.toList());
+        if (request.hasSpecificChunks()) {
+            for (ChunkPos chunkPos : request.getChunks()) {
+                planner.accept(chunkPos.toLong());
+            }
+        } else if (request.hasPlayerRadius()) {
+            ServerPlayer player = level.getServer().getPlayerList().getPlayer(request.getPlayerUUID());
+            if (player != null) {
+                AABB area = player.getBoundingBox().inflate(request.getRadius());
+                for (int x = Mth.floor(area.minX) >> 4; x <= Mth.floor(area.maxX) >> 4; x++) {
+                    for (int z = Mth.floor(area.minZ) >> 4; z <= Mth.floor(area.maxZ) >> 4; z++) {
+                        long chunkKey = ChunkPos.asLong(x, z);
+                        if ((cleanItems && entityIndex.getChunkCount(level, chunkKey, EntityCategory.ITEM) > 0)
+                                || (cleanAnimals && entityIndex.getChunkCount(level, chunkKey, EntityCategory.ANIMAL) > 0)) {
+                            planner.accept(chunkKey);
+                        }
+                    }
+                }
+            }
+        } else {
+            if (cleanItems) {
+                entityIndex.forEachChunk(level, EntityCategory.ITEM, planner);
+            }
+            if (cleanAnimals) {
+                entityIndex.forEachChunk(level, EntityCategory.ANIMAL, planner);
+            }
         }
         
-        // 安全移除实体
-        List<EntityRemovalInfo> removedEntities = new ArrayList<>();
-        AtomicInteger removedCount = new AtomicInteger(0);
-        
-        itemsToRemove.forEach(item -> {
-            if (safelyRemoveEntity(item)) {
-                removedEntities.add(EntityRemovalInfo.forItem(item));
-                removedCount.incrementAndGet();
+        HotChunkTracker hotChunks = HotChunkTracker.getInstance();
+        List<LongArrayList> batches = new ArrayList<>(regions.values());
+        Reference2DoubleOpenHashMap<LongArrayList> heat = new Reference2DoubleOpenHashMap<>(batches.size());
+        for (LongArrayList batch : batches) {
+            double sum = 0.0;
+            for (int i = 0; i < batch.size(); i++) {
+                sum += hotChunks.getHeat(level, batch.getLong(i));
             }
-        });
+            heat.put(batch, sum);
+        }
+        batches.sort((a, b) -> Double.compare(heat.getDouble(b), heat.getDouble(a)));
         
-        return CleaningResult.builder()
-            .setItemsRemoved(removedCount.get())
-            .addRemovedEntities(removedEntities)
-            .setSuccessful(true)
-            .build();
+        ArisLogger.debug("Planned {} chunks in {} region batches for {}", planned.size(), regions.size(),
+            request.getTaskId());
+        return batches;
     }
     
     /**
-     * 清理动物实体
+     * 捕获阶段（主线程）：把候选实体的字段复制到快照中，不保留实体引用
      */
-    private CleaningResult cleanAnimals(ServerLevel level, CleaningRequest request) {
-        ArisLogger.debug("Starting animal cleaning for level: {}", level.dimension());
+    private EntitySnapshot captureSnapshot(ServerLevel level, CleaningRequest request, LongList chunks,
+                                           boolean cleanItems, boolean cleanAnimals) {
+        EntitySnapshot snapshot = EntitySnapshot.acquire();
+        snapshot.setGameTime(level.getGameTime());
+        level.players().forEach(snapshot::addPlayer);
         
-        List<Animal> candidateAnimals = findAnimalEntities(level, request);
-        List<Animal> animalsToRemove = animalFilter.filter(candidateAnimals);
+        if (cleanItems) {
+            collectCandidates(level, request, chunks, EntityCategory.ITEM, snapshot::add);
+        }
+        if (cleanAnimals) {
+            collectCandidates(level, request, chunks, EntityCategory.ANIMAL, snapshot::add);
+        }
+        
+        ArisLogger.debug("Captured {} entities for cleaning in {}", snapshot.size(), level.dimension());
+        return snapshot;
+    }
+    
+    /**
+     * 评估阶段（工作线程）：在快照上运行过滤器和策略，只返回待移除实体的ID
+     */
+    private Selection evaluateSnapshot(EntitySnapshot snapshot, CleaningRequest request,
+                                       boolean cleanItems, boolean cleanAnimals) {
+        try {
+            SnapshotKernels kernels = asyncTaskManager.getSnapshotKernels();
+            int[] itemIds = new int[0];
+            ItemMergeStrategy.MergePlan mergePlan = null;
+            
+            if (cleanItems) {
+                String itemStrategy = resolveStrategy(request, EntityCategory.ITEM);
+                // 合并模式下物品不被删除，而是生成合并计划
+                if (strategies.get(itemStrategy) instanceof ItemMergeStrategy merge) {
+                    int[] candidates = kernels.filterAll(snapshot,
+                        (s, i) -> s.isCategory(i, EntityCategory.ITEM) && itemFilter.test(s, i));
+                    mergePlan = merge.plan(snapshot, candidates);
+                } else {
+                    itemIds = selectFromSnapshot(snapshot, EntityCategory.ITEM, itemFilter::test,
+                                                 itemStrategy, kernels);
+                }
+            }
+            
+            int[] animalIds = cleanAnimals
+                ? selectFromSnapshot(snapshot, EntityCategory.ANIMAL, animalFilter::test,
+                                     resolveStrategy(request, EntityCategory.ANIMAL), kernels)
+                : new int[0];
+            return new Selection(itemIds, animalIds, mergePlan);
+        } finally {
+            snapshot.release();
+        }
+    }
+    
+    /**
+     * 确定分类使用的清理策略：请求指定了已知策略时优先使用，否则使用配置中该分类的策略。
+     * 合并策略只适用于物品，请求合并时动物仍按配置清理
+     */
+    private String resolveStrategy(CleaningRequest request, EntityCategory category) {
+        String requested = request.getStrategy();
+        CleaningStrategy strategy = requested != null ? strategies.get(requested) : null;
+        if (strategy != null && (category == EntityCategory.ITEM || !(strategy instanceof ItemMergeStrategy))) {
+            return requested;
+        }
+        if (requested != null && strategy == null) {
+            ArisLogger.debug("Unknown cleaning strategy '{}' requested by {}, using configured strategy",
+                requested, request.getTaskId());
+        }
+        return category == EntityCategory.ITEM ? configData.itemCleaning.strategy : configData.animalCleaning.strategy;
+    }
+    
+    /**
+     * 对快照中指定分类的条目应用过滤器和清理策略
+     */
+    private int[] selectFromSnapshot(EntitySnapshot snapshot, EntityCategory category,
+                                     EntitySnapshot.EntryPredicate filter, String strategyName,
+                                     SnapshotKernels kernels) {
+        int[] candidates = kernels.filterAll(snapshot, (s, i) -> s.isCategory(i, category) && filter.test(s, i));
         
         // 应用清理策略
-        String strategyName = configData.animalCleaning.strategy;
         CleaningStrategy strategy = strategies.get(strategyName);
         if (strategy != null) {
-            animalsToRemove = strategy.applyStrategy(animalsToRemove.stream()
-                .map(entity -> (Entity) entity)
-                .collect(Collectors.toList()))
-                .stream()
-                .map(entity -> (Animal) entity)
-                .collect(Collectors.toList());
+            candidates = strategy.applyStrategy(snapshot, candidates, kernels);
+        }
+        
+        return snapshot.toIds(candidates);
+    }
+    
+    /**
+     * 移除阶段（主线程）：按ID找回实体，确认仍然存活后交给移除批次
+     * 
+     * 撤销数据不在这里保存，而是由移除批次在真正移除实体的同一步中保存
+     */
+    private CleaningResult.Builder applySelection(ServerLevel level, CleaningRequest request, Selection selection,
+                                                  CleaningResult.Builder resultBuilder) {
+        List<Entity> accepted = new ArrayList<>(selection.itemIds.length + selection.animalIds.length);
+        
+        for (int id : selection.itemIds) {
+            acceptIfRemovable(level.getEntity(id), EntityCategory.ITEM, accepted);
+        }
+        int itemsRemoved = accepted.size();
+        
+        for (int id : selection.animalIds) {
+            acceptIfRemovable(level.getEntity(id), EntityCategory.ANIMAL, accepted);
         }
         
         // 安全移除实体
-        List<EntityRemovalInfo> removedEntities = new ArrayList<>();
-        AtomicInteger removedCount = new AtomicInteger(0);
+        scheduleRemoval(request.getTaskId(), accepted);
         
-        animalsToRemove.forEach(animal -> {
-            if (safelyRemoveEntity(animal)) {
-                removedEntities.add(EntityRemovalInfo.forAnimal(animal));
-                removedCount.incrementAndGet();
-            }
-        });
+        return resultBuilder
+            .addItemsRemoved(itemsRemoved)
+            .addAnimalsRemoved(accepted.size() - itemsRemoved);
+    }
+    
+    /**
+     * 提交合并计划并在其执行完成后记录减少的实体数
+     */
+    private CompletableFuture<CleaningResult.Builder> awaitMerge(ServerLevel level, Selection selection,
+                                                                 CleaningResult.Builder resultBuilder) {
+        if (selection.mergePlan == null || selection.mergePlan.isEmpty()) {
+            return CompletableFuture.completedFuture(resultBuilder);
+        }
+        
+        ItemMergeBatch batch = new ItemMergeBatch(level, selection.mergePlan, configData.isBatchRemovalPackets());
+        MainThreadDrain.getInstance().submit(batch);
+        return batch.getCompletion().thenApply(resultBuilder::addItemEntitiesMerged);
+    }
+    
+    /**
+     * 是否需要为本次清理保存撤销数据
+     */
+    private boolean shouldCaptureUndo() {
+        return configData.isUndoEnabled() && ArisSweepingMod.getSmartTaskManager() != null;
+    }
+    
+    /**
+     * 在IO线程上把移除批次保存的撤销数据序列化、压缩并写入撤销日志
+     */
+    private void recordForUndo(UUID taskId, List<EntityRemovalInfo> removedEntities) {
+        SmartTaskManager taskManager = ArisSweepingMod.getSmartTaskManager();
+        if (taskManager == null || removedEntities.isEmpty()) {
+            return;
+        }
         
-        return CleaningResult.builder()
-            .setAnimalsRemoved(removedCount.get())
-            .addRemovedEntities(removedEntities)
-            .setSuccessful(true)
-            .build();
+        asyncTaskManager.submitIOTask(() -> {
+            taskManager.getUndoManager().recordRemovals(taskId, "CLEANING", removedEntities);
+        });
     }
     
     /**
-     * 查找物品实体
+     * 查找指定分类的候选实体（主线程）
+     * 
+     * @param chunks 本批次的区块，为null时查找整个请求范围
      */
-    private List<ItemEntity> findItemEntities(ServerLevel level, CleaningRequest request) {
-        List<ItemEntity> items = new ArrayList<>();
+    private void collectCandidates(ServerLevel level, CleaningRequest request, LongList chunks,
+                                   EntityCategory category, Consumer<Entity> consumer) {
+        if (chunks != null) {
+            collectInChunks(level, request, chunks, category, consumer);
+            return;
+        }
         
         // 根据请求范围查找实体
         if (request.hasSpecificChunks()) {
-            // 指定区块范围
+            // 指定区块范围 - 直接读取索引中对应区块的分桶
             for (ChunkPos chunkPos : request.getChunks()) {
-                // 使用level.getEntities来获取指定区块范围内的实体
-                AABB chunkAABB = new AABB(
-                    chunkPos.getMinBlockX(), level.getMinBuildHeight(), chunkPos.getMinBlockZ(),
-                    chunkPos.getMaxBlockX() + 1, level.getMaxBuildHeight(), chunkPos.getMaxBlockZ() + 1
-                );
-                level.getEntities(null, chunkAABB)
-                    .stream()
-                    .filter(entity -> entity instanceof ItemEntity)
-                    .map(entity -> (ItemEntity) entity)
-                    .forEach(items::add);
+                entityIndex.forEachInChunk(level, chunkPos.toLong(), category, consumer);
             }
         } else if (request.hasPlayerRadius()) {
             // 玩家周围范围
             ServerPlayer player = level.getServer().getPlayerList().getPlayer(request.getPlayerUUID());
             if (player != null) {
-                double radius = request.getRadius();
-                level.getEntitiesOfClass(ItemEntity.class, 
-                    player.getBoundingBox().inflate(radius))
-                    .forEach(items::add);
+                level.getEntities((Entity) null, player.getBoundingBox().inflate(request.getRadius()),
+                        entity -> EntityCategory.of(entity) == category)
+                    .forEach(consumer);
             }
         } else {
-            // 全世界范围
-            level.getAllEntities().forEach(entity -> {
-                if (entity instanceof ItemEntity itemEntity) {
-                    items.add(itemEntity);
-                }
-            });
+            // 全世界范围 - 只遍历索引中对应分类，不再扫描全部实体
+            entityIndex.forEach(level, category, consumer);
         }
-        
-        return items;
     }
     
     /**
-     * 查找动物实体
+     * 从索引中读取批次区块内的候选实体；玩家范围请求只保留与范围相交的实体（主线程）
      */
-    private List<Animal> findAnimalEntities(ServerLevel level, CleaningRequest request) {
-        List<Animal> animals = new ArrayList<>();
-        
-        // 根据请求范围查找实体
-        if (request.hasSpecificChunks()) {
-            // 指定区块范围
-            for (ChunkPos chunkPos : request.getChunks()) {
-                // 使用level.getEntities来获取指定区块范围内的实体
-                AABB chunkAABB = new AABB(
-                    chunkPos.getMinBlockX(), level.getMinBuildHeight(), chunkPos.getMinBlockZ(),
-                    chunkPos.getMaxBlockX() + 1, level.getMaxBuildHeight(), chunkPos.getMaxBlockZ() + 1
-                );
-                level.getEntities(null, chunkAABB)
-                    .stream()
-                    .filter(entity -> entity instanceof Animal)
-                    .map(entity -> (Animal) entity)
-                    .forEach(animals::add);
-            }
-        } else if (request.hasPlayerRadius()) {
-            // 玩家周围范围
+    private void collectInChunks(ServerLevel level, CleaningRequest request, LongList chunks,
+                                 EntityCategory category, Consumer<Entity> consumer) {
+        Consumer<Entity> target = consumer;
+        if (request.hasPlayerRadius()) {
             ServerPlayer player = level.getServer().getPlayerList().getPlayer(request.getPlayerUUID());
-            if (player != null) {
-                double radius = request.getRadius();
-                level.getEntitiesOfClass(Animal.class, 
-                    player.getBoundingBox().inflate(radius))
-                    .forEach(animals::add);
+            if (player == null) {
+                return;
             }
-        } else {
-            // 全世界范围
-            level.getAllEntities().forEach(entity -> {
-                if (entity instanceof Animal animal) {
-                    animals.add(animal);
+            AABB area = player.getBoundingBox().inflate(request.getRadius());
+            target = entity -> {
+                if (entity.getBoundingBox().intersects(area)) {
+                    consumer.accept(entity);
                 }
-            });
+            };
         }
         
-        return animals;
+        for (int i = 0; i < chunks.size(); i++) {
+            entityIndex.forEachInChunk(level, chunks.getLong(i), category, target);
+        }
+    }
+    
+    /**
+     * 按ID找回的实体仍属于预期分类且可移除时加入移除列表
+     */
+    private void acceptIfRemovable(Entity entity, EntityCategory category, List<Entity> accepted) {
+        if (entity != null && EntityCategory.of(entity) == category && isRemovable(entity)) {
+            accepted.add(entity);
+        }
+    }
+    
+    /**
+     * 检查实体是否仍可移除
+     */
+    private boolean isRemovable(Entity entity) {
+        return entity.isAlive() && !entity.isRemoved();
     }
     
     /**
      * 安全移除实体
+     * 
+     * 按区块排序后交给主线程空闲时间执行器，在每tick剩余预算内分批移除，
+     * 而不是为每个实体向服务器任务队列投递一个lambda
      */
-    private boolean safelyRemoveEntity(Entity entity) {
+    private void scheduleRemoval(UUID taskId, List<Entity> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        
         try {
-            // 检查实体是否仍然有效
-            if (!entity.isAlive() || entity.isRemoved()) {
-                return false;
-            }
-            
-            // 在主线程中安全移除，检查level是否为null
-            if (entity.level() != null && entity.level().getServer() != null) {
-                entity.level().getServer().executeIfPossible(() -> {
-                    entity.discard();
-                });
+            Entity first = entities.get(0);
+            if (first.level() != null && first.level().getServer() != null) {
+                EntityRemovalBatch batch = new EntityRemovalBatch(entities, configData.isBatchRemovalPackets(),
+                    shouldCaptureUndo(), configData.isRecycleBinEnabled());
+                batch.getCompletion().thenRun(() -> recordForUndo(taskId, batch.getCaptured()));
+                MainThreadDrain.getInstance().submit(batch);
             } else {
                 // 如果无法获取服务器引用，直接移除实体
-                entity.discard();
+                entities.forEach(Entity::discard);
             }
-            
-            return true;
-            
         } catch (Exception e) {
-            ArisLogger.error("Failed to remove entity: %s", entity.toString());
-            return false;
+            ArisLogger.error("Failed to schedule removal of {} entities", entities.size(), e);
         }
     }
     
@@ -320,6 +478,7 @@ public class EntityCleaner {
     private void updateStatistics(CleaningResult result) {
         totalItemsRemoved.addAndGet(result.getItemsRemoved());
         totalAnimalsRemoved.addAndGet(result.getAnimalsRemoved());
+        totalItemEntitiesMerged.addAndGet(result.getItemEntitiesMerged());
         totalOperations.incrementAndGet();
     }
     
@@ -330,7 +489,8 @@ public class EntityCleaner {
         return new CleaningStatistics(
             totalOperations.get(),
             totalItemsRemoved.get(),
-            totalAnimalsRemoved.get()
+            totalAnimalsRemoved.get(),
+            totalItemEntitiesMerged.get()
         );
     }
     
@@ -341,6 +501,93 @@ public class EntityCleaner {
         totalOperations.set(0);
         totalItemsRemoved.set(0);
         totalAnimalsRemoved.set(0);
+        totalItemEntitiesMerged.set(0);
+    }
+    
+    /**
+     * 一次清理操作的执行状态，不可挂起时整个请求范围是一个批次
+     */
+    private class CleaningRun {
+        private final ServerLevel level;
+        private final CleaningRequest request;
+        private final boolean cleanItems;
+        private final boolean cleanAnimals;
+        private final TaskCheckpoint checkpoint;
+        private final TaskContext context;
+        private final CleaningResult.Builder resultBuilder;
+        private final AtomicLong mainThreadNanos = new AtomicLong(0);
+        
+        CleaningRun(ServerLevel level, CleaningRequest request, boolean cleanItems, boolean cleanAnimals,
+                    TaskCheckpoint checkpoint, TaskContext context, CleaningResult.Builder resultBuilder) {
+            this.level = level;
+            this.request = request;
+            this.cleanItems = cleanItems;
+            this.cleanAnimals = cleanAnimals;
+            this.checkpoint = checkpoint;
+            this.context = context;
+            this.resultBuilder = resultBuilder;
+        }
+        
+        /**
+         * 依次执行剩余批次，每批开始前检查挂起请求
+         */
+        CompletableFuture<CleaningResult.Builder> runBatches(List<LongArrayList> batches, int next) {
+            if (next >= batches.size()) {
+                return CompletableFuture.completedFuture(resultBuilder);
+            }
+            if (checkpoint.shouldSuspend()) {
+                checkpoint.markSuspended();
+                ArisLogger.info("Cleaning operation {} suspended at checkpoint after {}/{} region batches",
+                    request.getTaskId(), next, batches.size());
+                return CompletableFuture.completedFuture(resultBuilder);
+            }
+            
+            return runPass(batches.get(next)).thenCompose(builder -> runBatches(batches, next + 1));
+        }
+        
+        /**
+         * 对一个批次执行捕获、评估和移除三个阶段，移除阶段把批次区块记入检查点
+         * 
+         * @param chunks 批次区块，为null时处理整个请求范围
+         */
+        CompletableFuture<CleaningResult.Builder> runPass(LongArrayList chunks) {
+            MinecraftServer server = level.getServer();
+            return server.submit(() -> {
+                    long begin = System.nanoTime();
+                    EntitySnapshot snapshot = captureSnapshot(level, request, chunks, cleanItems, cleanAnimals);
+                    mainThreadNanos.addAndGet(System.nanoTime() - begin);
+                    return snapshot;
+                })
+                .thenCompose(snapshot -> asyncTaskManager.submitCoreTask(context,
+                    () -> evaluateSnapshot(snapshot, request, cleanItems, cleanAnimals)))
+                .thenCompose(selection -> server.submit(() -> {
+                        long begin = System.nanoTime();
+                        CleaningResult.Builder builder = applySelection(level, request, selection, resultBuilder);
+                        if (chunks != null) {
+                            for (int i = 0; i < chunks.size(); i++) {
+                                checkpoint.markChunkCompleted(chunks.getLong(i));
+                            }
+                        }
+                        mainThreadNanos.addAndGet(System.nanoTime() - begin);
+                        return builder;
+                    })
+                    .thenCompose(builder -> awaitMerge(level, selection, builder)));
+        }
+    }
+    
+    /**
+     * 评估阶段的输出：待移除实体的ID，以及合并模式下的合并计划
+     */
+    private static class Selection {
+        private final int[] itemIds;
+        private final int[] animalIds;
+        private final ItemMergeStrategy.MergePlan mergePlan;
+        
+        Selection(int[] itemIds, int[] animalIds, ItemMergeStrategy.MergePlan mergePlan) {
+            this.itemIds = itemIds;
+            this.animalIds = animalIds;
+            this.mergePlan = mergePlan;
+        }
     }
     
     /**
@@ -350,21 +597,25 @@ public class EntityCleaner {
         private final long totalOperations;
         private final long totalItemsRemoved;
         private final long totalAnimalsRemoved;
+        private final long totalItemEntitiesMerged;
         
-        public CleaningStatistics(long totalOperations, long totalItemsRemoved, long totalAnimalsRemoved) {
+        public CleaningStatistics(long totalOperations, long totalItemsRemoved, long totalAnimalsRemoved,
+                                  long totalItemEntitiesMerged) {
             this.totalOperations = totalOperations;
             this.totalItemsRemoved = totalItemsRemoved;
             this.totalAnimalsRemoved = totalAnimalsRemoved;
+            this.totalItemEntitiesMerged = totalItemEntitiesMerged;
         }
         
         public long getTotalOperations() { return totalOperations; }
         public long getTotalItemsRemoved() { return totalItemsRemoved; }
         public long getTotalAnimalsRemoved() { return totalAnimalsRemoved; }
+        public long getTotalItemEntitiesMerged() { return totalItemEntitiesMerged; }
         
         @Override
         public String toString() {
-            return String.format("CleaningStatistics{operations=%d, items=%d, animals=%d}",
-                totalOperations, totalItemsRemoved, totalAnimalsRemoved);
+            return String.format("CleaningStatistics{operations=%d, items=%d, animals=%d, merged=%d}",
+                totalOperations, totalItemsRemoved, totalAnimalsRemoved, totalItemEntitiesMerged);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.arisweeping.cleaning;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.arisweeping.async.MainThreadDrain;
+import com.arisweeping.tasks.RecycleBin;
+
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.ItemEntity;
+
+/**
+ * 实体移除批次
+ * 
+ * 按区块排序的待移除实体列表，由 {@link MainThreadDrain} 在主线程上逐个移除，
+ * 同一区块的实体连续处理，可跨多个tick完成
+ * 
+ * 需要撤销数据时，在移除的同一步里保存实体NBT：只有真正被移除的实体才会保存，
+ * 主线程只负责生成标签，序列化和压缩由撤销日志在IO线程上完成。
+ * 开启回收站时掉落物改为计入 {@link RecycleBin}，不保存实体NBT
+ */
+public class EntityRemovalBatch implements MainThreadDrain.DrainTask {
+    
+    private final List<Entity> entities;
+    private final boolean batchPackets;
+    private final boolean recycleItems;
+    private final List<EntityRemovalInfo> captured; // 不记录撤销数据时为null
+    private final CompletableFuture<Integer> completion = new CompletableFuture<>();
+    private int cursor = 0;
+    private int removedCount = 0;
+    
+    public EntityRemovalBatch(List<? extends Entity> entities) {
+        this(entities, false, false, false);
+    }
+    
+    /**
+     * @param batchPackets 是否把移除通知合并为每玩家每tick一个数据包（见 {@link RemovalPacketBatcher}）
+     * @param captureUndo 是否在移除时保存撤销数据
+     * @param recycleItems 是否把掉落物放入回收站（回收站已满时仍按撤销数据保存）
+     */
+    public EntityRemovalBatch(List<? extends Entity> entities, boolean batchPackets, boolean captureUndo,
+                              boolean recycleItems) {
+        this.batchPackets = batchPackets;
+        this.recycleItems = recycleItems;
+        this.captured = captureUndo ? new ArrayList<>(entities.size()) : null;
+        this.entities = new ArrayList<>(entities);
+        this.entities.sort(Comparator.comparingLong(entity -> entity.chunkPosition().toLong()));
+    }
+    
+    @Override
+    public boolean runStep() {
+        if (cursor >= entities.size()) {
+            completion.complete(removedCount);
+            return false;
+        }
+        
+        Entity entity = entities.get(cursor);
+        entities.set(cursor, null); // 尽早释放引用
+        cursor++;
+        
+        if (entity.isAlive() && !entity.isRemoved()) {
+            boolean recycled = recycleItems && entity instanceof ItemEntity item
+                && RecycleBin.getInstance().add(item);
+            if (!recycled && captured != null) {
+                captured.add(EntityRemovalInfo.forEntity(entity));
+            }
+            if (batchPackets && entity.level() instanceof ServerLevel level) {
+                RemovalPacketBatcher.getInstance().detach(level, entity);
+            }
+            entity.discard();
+            removedCount++;
+        }
+        
+        if (cursor >= entities.size()) {
+            completion.complete(removedCount);
+            return false;
+        }
+        return true;
+    }
+    
+    @Override
+    public void onDiscarded() {
+        completion.complete(removedCount);
+    }
+    
+    /**
+     * 批次完成时返回实际移除数量
+     */
+    public CompletableFuture<Integer> getCompletion() {
+        return completion;
+    }
+    
+    /**
+     * 已移除实体的撤销数据，应在批次完成后读取；不记录撤销数据时为空列表
+     */
+    public List<EntityRemovalInfo> getCaptured() {
+        return captured != null ? captured : List.of();
+    }
+    
+    /**
+     * 批次总实体数
+     */
+    public int size() {
+        return entities.size();
+    }
+}
@@ -2,6 +2,7 @@ package com.arisweeping.cleaning;
 
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.entity.animal.Animal;
 
@@ -12,22 +13,29 @@ import net.minecraft.world.entity.animal.Animal;
  */
 public class EntityRemovalInfo {
     private final String entityType;
+    private final String typeKey;
     private final String entityId;
     private final double x, y, z;
     private final String dimensionKey;
     private final CompoundTag entityNBT;
     private final long removalTime;
     
-    private EntityRemovalInfo(String entityType, String entityId, double x, double y, double z, 
+    private EntityRemovalInfo(String entityType, String typeKey, String entityId, double x, double y, double z, 
                              String dimensionKey, CompoundTag entityNBT) {
+        this(entityType, typeKey, entityId, x, y, z, dimensionKey, entityNBT, System.currentTimeMillis());
+    }
+    
+    private EntityRemovalInfo(String entityType, String typeKey, String entityId, double x, double y, double z, 
+                             String dimensionKey, CompoundTag entityNBT, long removalTime) {
         this.entityType = entityType;
+        this.typeKey = typeKey;
         this.entityId = entityId;
         this.x = x;
         this.y = y;
         this.z = z;
         this.dimensionKey = dimensionKey;
         this.entityNBT = entityNBT;
-        this.removalTime = System.currentTimeMillis();
+        this.removalTime = removalTime;
     }
     
     /**
@@ -39,6 +47,7 @@ public class EntityRemovalInfo {
         
         return new EntityRemovalInfo(
             "item",
+            EntityType.getKey(item.getType()).toString(),
             item.getUUID().toString(),
             item.getX(),
             item.getY(), 
@@ -57,6 +66,7 @@ public class EntityRemovalInfo {
         
         return new EntityRemovalInfo(
             "animal",
+            EntityType.getKey(animal.getType()).toString(),
             animal.getUUID().toString(),
             animal.getX(),
             animal.getY(),
@@ -73,15 +83,15 @@ public class EntityRemovalInfo {
         CompoundTag nbt = new CompoundTag();
         entity.saveWithoutId(nbt);
         
-        String type = "unknown";
-        if (entity instanceof ItemEntity) {
-            type = "item";
-        } else if (entity instanceof Animal) {
-            type = "animal";
-        }
+        String type = switch (EntityCategory.of(entity)) {
+            case ITEM -> "item";
+            case ANIMAL -> "animal";
+            default -> "unknown";
+        };
         
         return new EntityRemovalInfo(
             type,
+            EntityType.getKey(entity.getType()).toString(),
             entity.getUUID().toString(),
             entity.getX(),
             entity.getY(),
@@ -91,8 +101,43 @@ public class EntityRemovalInfo {
         );
     }
     
+    /**
+     * 序列化为NBT（撤销日志使用）
+     */
+    public CompoundTag toTag() {
+        CompoundTag tag = new CompoundTag();
+        tag.putString("Type", entityType);
+        tag.putString("EntityType", typeKey);
+        tag.putString("Id", entityId);
+        tag.putDouble("X", x);
+        tag.putDouble("Y", y);
+        tag.putDouble("Z", z);
+        tag.putString("Dimension", dimensionKey);
+        tag.put("Entity", entityNBT);
+        tag.putLong("RemovedAt", removalTime);
+        return tag;
+    }
+    
+    /**
+     * 从 {@link #toTag()} 的结果还原
+     */
+    public static EntityRemovalInfo fromTag(CompoundTag tag) {
+        return new EntityRemovalInfo(
+            tag.getString("Type"),
+            tag.getString("EntityType"),
+            tag.getString("Id"),
+            tag.getDouble("X"),
+            tag.getDouble("Y"),
+            tag.getDouble("Z"),
+            tag.getString("Dimension"),
+            tag.getCompound("Entity"),
+            tag.getLong("RemovedAt")
+        );
+    }
+    
     // Getters
     public String getEntityType() { return entityType; }
+    public String getTypeKey() { return typeKey; }
     public String getEntityId() { return entityId; }
     public double getX() { return x; }
     public double getY() { return y; }
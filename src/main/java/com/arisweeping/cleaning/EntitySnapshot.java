@@ -0,0 +1,315 @@
+package com.arisweeping.cleaning;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.AgeableMob;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.OwnableEntity;
+import net.minecraft.world.entity.animal.Animal;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * 实体快照
+ * 
+ * 在服务器主线程上把清理过滤器和策略需要的实体字段复制到按列存储的基本类型数组中，
+ * 之后的过滤和策略计算可以在工作线程上进行，而不再读取实体对象本身。
+ * 工作线程只把需要移除的实体ID交回主线程
+ * 
+ * 快照通过 {@link #acquire()} / {@link #release()} 复用，数组只增不减
+ */
+public class EntitySnapshot {
+    
+    // 标志位
+    public static final int FLAG_NAMED = 1;
+    public static final int FLAG_BABY = 1 << 1;
+    public static final int FLAG_IN_LOVE = 1 << 2;
+    public static final int FLAG_LEASHED = 1 << 3;
+    public static final int FLAG_PERSISTENT = 1 << 4;
+    public static final int FLAG_RIDING = 1 << 5;
+    public static final int FLAG_OWNED = 1 << 6;
+    
+    /** 复用池最多保留的快照数 */
+    private static final int MAX_POOLED = 4;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final Queue<EntitySnapshot> POOL = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * 按下标判断快照条目的谓词（在工作线程上执行）
+     */
+    @FunctionalInterface
+    public interface EntryPredicate {
+        boolean test(EntitySnapshot snapshot, int index);
+    }
+    
+    private int size = 0;
+    private int[] ids;
+    private int[] typeIds;
+    private byte[] categories;
+    private double[] xs;
+    private double[] ys;
+    private double[] zs;
+    private int[] ages;
+    private int[] flags;
+    
+    // 物品堆叠信息（非物品实体为0）
+    private int[] itemIds;
+    private int[] tagHashes;
+    private int[] stackCounts;
+    private int[] maxStackSizes;
+    
+    // 玩家位置（距离策略使用）
+    private int playerCount = 0;
+    private double[] playerXs = new double[8];
+    private double[] playerZs = new double[8];
+    
+    private long gameTime;
+    
+    private EntitySnapshot(int capacity) {
+        allocate(capacity);
+    }
+    
+    /**
+     * 从复用池获取一个空快照
+     */
+    public static EntitySnapshot acquire() {
+        EntitySnapshot snapshot = POOL.poll();
+        return snapshot != null ? snapshot : new EntitySnapshot(INITIAL_CAPACITY);
+    }
+    
+    /**
+     * 归还快照，之后不得再访问
+     */
+    public void release() {
+        clear();
+        if (POOL.size() < MAX_POOLED) {
+            POOL.offer(this);
+        }
+    }
+    
+    /**
+     * 清空内容，保留数组
+     */
+    public void clear() {
+        size = 0;
+        playerCount = 0;
+        gameTime = 0;
+    }
+    
+    // ==================== 捕获（仅主线程） ====================
+    
+    /**
+     * 追加一个实体，返回其下标
+     */
+    public int add(Entity entity) {
+        if (size == ids.length) {
+            allocate(ids.length * 2);
+        }
+        
+        int index = size++;
+        int typeId = BuiltInRegistries.ENTITY_TYPE.getId(entity.getType());
+        int typeEntry = EntityTypeTable.entryOf(typeId, entity);
+        EntityCategory category = EntityTypeTable.categoryOf(typeEntry);
+        
+        ids[index] = entity.getId();
+        typeIds[index] = typeId;
+        categories[index] = (byte) category.ordinal();
+        xs[index] = entity.getX();
+        ys[index] = entity.getY();
+        zs[index] = entity.getZ();
+        ages[index] = category == EntityCategory.ITEM ? ((ItemEntity) entity).getAge() : entity.tickCount;
+        flags[index] = captureFlags(entity, typeEntry);
+        
+        if (category == EntityCategory.ITEM) {
+            ItemStack stack = ((ItemEntity) entity).getItem();
+            CompoundTag tag = stack.getTag();
+            itemIds[index] = BuiltInRegistries.ITEM.getId(stack.getItem());
+            tagHashes[index] = tag != null ? tag.hashCode() : 0;
+            stackCounts[index] = stack.getCount();
+            maxStackSizes[index] = stack.getMaxStackSize();
+        } else {
+            itemIds[index] = 0;
+            tagHashes[index] = 0;
+            stackCounts[index] = 0;
+            maxStackSizes[index] = 0;
+        }
+        return index;
+    }
+    
+    /**
+     * 记录玩家位置
+     */
+    public void addPlayer(ServerPlayer player) {
+        if (playerCount == playerXs.length) {
+            int newLength = playerXs.length * 2;
+            playerXs = Arrays.copyOf(playerXs, newLength);
+            playerZs = Arrays.copyOf(playerZs, newLength);
+        }
+        playerXs[playerCount] = player.getX();
+        playerZs[playerCount] = player.getZ();
+        playerCount++;
+    }
+    
+    public void setGameTime(long gameTime) {
+        this.gameTime = gameTime;
+    }
+    
+    /**
+     * 按分类表中的类型特征读取标志，只对具有相应特征的类型做转换
+     */
+    private static int captureFlags(Entity entity, int typeEntry) {
+        int result = 0;
+        if (entity.hasCustomName()) {
+            result |= FLAG_NAMED;
+        }
+        if (entity.isPassenger() || entity.isVehicle()) {
+            result |= FLAG_RIDING;
+        }
+        if (EntityTypeTable.hasTrait(typeEntry, EntityTypeTable.TRAIT_AGEABLE) && ((AgeableMob) entity).isBaby()) {
+            result |= FLAG_BABY;
+        }
+        if (EntityTypeTable.hasTrait(typeEntry, EntityTypeTable.TRAIT_ANIMAL) && ((Animal) entity).isInLove()) {
+            result |= FLAG_IN_LOVE;
+        }
+        if (EntityTypeTable.hasTrait(typeEntry, EntityTypeTable.TRAIT_OWNABLE)
+                && ((OwnableEntity) entity).getOwnerUUID() != null) {
+            result |= FLAG_OWNED;
+        }
+        if (EntityTypeTable.hasTrait(typeEntry, EntityTypeTable.TRAIT_MOB)) {
+            Mob mob = (Mob) entity;
+            if (mob.isLeashed()) {
+                result |= FLAG_LEASHED;
+            }
+            if (mob.isPersistenceRequired()) {
+                result |= FLAG_PERSISTENT;
+            }
+        }
+        return result;
+    }
+    
+    private void allocate(int capacity) {
+        ids = ids == null ? new int[capacity] : Arrays.copyOf(ids, capacity);
+        typeIds = typeIds == null ? new int[capacity] : Arrays.copyOf(typeIds, capacity);
+        categories = categories == null ? new byte[capacity] : Arrays.copyOf(categories, capacity);
+        xs = xs == null ? new double[capacity] : Arrays.copyOf(xs, capacity);
+        ys = ys == null ? new double[capacity] : Arrays.copyOf(ys, capacity);
+        zs = zs == null ? new double[capacity] : Arrays.copyOf(zs, capacity);
+        ages = ages == null ? new int[capacity] : Arrays.copyOf(ages, capacity);
+        flags = flags == null ? new int[capacity] : Arrays.copyOf(flags, capacity);
+        itemIds = itemIds == null ? new int[capacity] : Arrays.copyOf(itemIds, capacity);
+        tagHashes = tagHashes == null ? new int[capacity] : Arrays.copyOf(tagHashes, capacity);
+        stackCounts = stackCounts == null ? new int[capacity] : Arrays.copyOf(stackCounts, capacity);
+        maxStackSizes = maxStackSizes == null ? new int[capacity] : Arrays.copyOf(maxStackSizes, capacity);
+    }
+    
+    // ==================== 读取（任意线程） ====================
+    
+    public int size() {
+        return size;
+    }
+    
+    public int getId(int index) {
+        return ids[index];
+    }
+    
+    public int getTypeId(int index) {
+        return typeIds[index];
+    }
+    
+    public EntityCategory getCategory(int index) {
+        return EntityCategory.byOrdinal(categories[index]);
+    }
+    
+    public boolean isCategory(int index, EntityCategory category) {
+        return categories[index] == category.ordinal();
+    }
+    
+    public double getX(int index) {
+        return xs[index];
+    }
+    
+    public double getY(int index) {
+        return ys[index];
+    }
+    
+    public double getZ(int index) {
+        return zs[index];
+    }
+    
+    /**
+     * 物品为物品年龄，其他实体为存在的tick数
+     */
+    public int getAge(int index) {
+        return ages[index];
+    }
+    
+    public int getFlags(int index) {
+        return flags[index];
+    }
+    
+    public boolean hasFlag(int index, int flag) {
+        return (flags[index] & flag) != 0;
+    }
+    
+    /**
+     * 物品的注册表数字ID
+     */
+    public int getItemId(int index) {
+        return itemIds[index];
+    }
+    
+    /**
+     * 物品NBT的哈希值，无NBT时为0（相同哈希不保证NBT相同，合并前需在主线程确认）
+     */
+    public int getTagHash(int index) {
+        return tagHashes[index];
+    }
+    
+    public int getStackCount(int index) {
+        return stackCounts[index];
+    }
+    
+    public int getMaxStackSize(int index) {
+        return maxStackSizes[index];
+    }
+    
+    public int getPlayerCount() {
+        return playerCount;
+    }
+    
+    /**
+     * 到最近玩家的水平距离平方；没有玩家时返回 Double.MAX_VALUE
+     */
+    public double nearestPlayerDistanceSqr(int index) {
+        double x = xs[index];
+        double z = zs[index];
+        double best = Double.MAX_VALUE;
+        for (int p = 0; p < playerCount; p++) {
+            double dx = playerXs[p] - x;
+            double dz = playerZs[p] - z;
+            best = Math.min(best, dx * dx + dz * dz);
+        }
+        return best;
+    }
+    
+    public long getGameTime() {
+        return gameTime;
+    }
+    
+    /**
+     * 把快照下标转换为实体ID
+     */
+    public int[] toIds(int[] indices) {
+        int[] result = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            result[i] = ids[indices[i]];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.arisweeping.cleaning;
+
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.entity.AgeableMob;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.OwnableEntity;
+import net.minecraft.world.entity.animal.Animal;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraftforge.event.server.ServerStartingEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 实体类型分类表
+ * 
+ * 按 {@link EntityType} 注册ID索引的数组，每项记录清理分类和类型特征（是否可成长、可被驯服等），
+ * 扫描路径上每个实体只需一次数组读取，而不是重复的 instanceof 链。
+ * 
+ * 实体类型本身不携带实体类信息，因此每种类型在第一次遇到实例时用 instanceof 分类一次，
+ * 模组中的子类也能被正确识别。服务器启动时按注册表大小分配数组
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class EntityTypeTable {
+    
+    // 类型特征
+    public static final int TRAIT_MOB = 1;
+    public static final int TRAIT_AGEABLE = 1 << 1;
+    public static final int TRAIT_ANIMAL = 1 << 2;
+    public static final int TRAIT_OWNABLE = 1 << 3;
+    
+    /** 低8位保存 分类序号+1（0 表示尚未分类），其余位保存类型特征 */
+    private static final int CATEGORY_MASK = 0xFF;
+    private static final int TRAIT_SHIFT = 8;
+    
+    private static volatile int[] table = new int[0];
+    
+    private EntityTypeTable() {
+    }
+    
+    /**
+     * 服务器启动时按实体类型注册表大小分配分类表
+     */
+    @SubscribeEvent
+    public static void onServerStarting(ServerStartingEvent event) {
+        table = new int[BuiltInRegistries.ENTITY_TYPE.size()];
+        ArisLogger.debug("Entity type table allocated for {} types", table.length);
+    }
+    
+    /**
+     * 获取实体的清理分类
+     */
+    public static EntityCategory categoryOf(Entity entity) {
+        return categoryOf(entryOf(BuiltInRegistries.ENTITY_TYPE.getId(entity.getType()), entity));
+    }
+    
+    /**
+     * 获取分类表项（调用方已知类型注册ID时使用，避免重复查询注册表）
+     */
+    public static int entryOf(int typeId, Entity entity) {
+        int[] current = table;
+        if (typeId >= 0 && typeId < current.length) {
+            int entry = current[typeId];
+            if (entry != 0) {
+                return entry;
+            }
+            entry = classify(entity);
+            current[typeId] = entry;
+            return entry;
+        }
+        return classify(entity); // 注册表尚未就绪或类型在启动后注册
+    }
+    
+    /**
+     * 从表项中取出清理分类
+     */
+    public static EntityCategory categoryOf(int entry) {
+        return EntityCategory.byOrdinal((entry & CATEGORY_MASK) - 1);
+    }
+    
+    /**
+     * 判断表项是否具有指定的类型特征
+     */
+    public static boolean hasTrait(int entry, int trait) {
+        return ((entry >>> TRAIT_SHIFT) & trait) != 0;
+    }
+    
+    /**
+     * 按实例对实体类型分类（每种类型只执行一次）
+     */
+    private static int classify(Entity entity) {
+        EntityCategory category;
+        if (entity instanceof ItemEntity) {
+            category = EntityCategory.ITEM;
+        } else if (entity instanceof Animal) {
+            category = EntityCategory.ANIMAL;
+        } else {
+            category = EntityCategory.OTHER;
+        }
+        
+        int traits = 0;
+        if (entity instanceof Mob) {
+            traits |= TRAIT_MOB;
+        }
+        if (entity instanceof AgeableMob) {
+            traits |= TRAIT_AGEABLE;
+        }
+        if (entity instanceof Animal) {
+            traits |= TRAIT_ANIMAL;
+        }
+        if (entity instanceof OwnableEntity) {
+            traits |= TRAIT_OWNABLE;
+        }
+        return (traits << TRAIT_SHIFT) | (category.ordinal() + 1);
+    }
+}
@@ -0,0 +1,332 @@
+package com.arisweeping.cleaning;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.arisweeping.collections.Long2ObjectTable;
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.core.Constants;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraftforge.event.entity.EntityJoinLevelEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 热点区块追踪器
+ * 
+ * 为每个区块维护掉落物和动物生成数量的指数衰减累计值（半衰期见 {@link Constants.HotChunks}），
+ * 反映各区块最近的实体堆积速度。清理时优先处理已知热点，并提供低开销的"前N个卡顿区块"查询
+ * 
+ * 每个维度的数据作为 {@link SavedData} 以紧凑的数组形式保存在维度存档中，重启后热点信息不会丢失
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class HotChunkTracker {
+    
+    private static final String DATA_NAME = "arisweeping_hot_chunks";
+    private static final double LN2 = Math.log(2.0);
+    
+    private static final HotChunkTracker INSTANCE = new HotChunkTracker();
+    
+    private final Map<ResourceKey<Level>, HeatData> levels = new ConcurrentHashMap<>();
+    
+    private HotChunkTracker() {
+    }
+    
+    /**
+     * 获取追踪器实例
+     */
+    public static HotChunkTracker getInstance() {
+        return INSTANCE;
+    }
+    
+    // ==================== 事件处理 ====================
+    
+    /**
+     * 新生成的掉落物和动物计入所在区块的热度（从存档加载的实体不计入）
+     */
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onEntityJoinLevel(EntityJoinLevelEvent event) {
+        if (event.loadedFromDisk() || !(event.getLevel() instanceof ServerLevel level)) {
+            return;
+        }
+        
+        Entity entity = event.getEntity();
+        EntityCategory category = EntityCategory.of(entity);
+        if (category != EntityCategory.OTHER) {
+            INSTANCE.record(level, entity.chunkPosition().toLong(), category);
+        }
+    }
+    
+    /**
+     * 维度加载时读入已保存的热度，使重启后的第一次清理就能按热点排序
+     */
+    @SubscribeEvent
+    public static void onLevelLoad(LevelEvent.Load event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            INSTANCE.getData(level);
+        }
+    }
+    
+    /**
+     * 维度卸载时释放内存中的引用（数据本身由维度存档保存）
+     */
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            INSTANCE.levels.remove(level.dimension());
+        }
+    }
+    
+    // ==================== 写入 ====================
+    
+    /**
+     * 记录一次实体生成（主线程）
+     */
+    public void record(ServerLevel level, long chunkKey, EntityCategory category) {
+        getData(level).record(chunkKey, category, level.getGameTime());
+    }
+    
+    private HeatData getData(ServerLevel level) {
+        return levels.computeIfAbsent(level.dimension(), key ->
+            level.getDataStorage().computeIfAbsent(HeatData::load, HeatData::new, DATA_NAME));
+    }
+    
+    // ==================== 查询 ====================
+    
+    /**
+     * 获取区块当前的热度（掉落物与动物衰减累计值之和）
+     */
+    public double getHeat(ServerLevel level, long chunkKey) {
+        HeatData data = levels.get(level.dimension());
+        return data != null ? data.getHeat(chunkKey, level.getGameTime()) : 0.0;
+    }
+    
+    /**
+     * 获取热度最高的前N个区块（降序）
+     */
+    public List<HotChunk> getTopChunks(ServerLevel level, int limit) {
+        HeatData data = levels.get(level.dimension());
+        if (data == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        return data.top(limit, level.getGameTime());
+    }
+    
+    /**
+     * 获取维度内追踪的区块数
+     */
+    public int getTrackedChunkCount(ServerLevel level) {
+        HeatData data = levels.get(level.dimension());
+        return data != null ? data.size() : 0;
+    }
+    
+    /**
+     * 把衰减累计值换算为每分钟生成速率
+     * 
+     * 稳态下累计值 = 速率 × 半衰期 / ln2
+     */
+    public static double toRatePerMinute(double heat) {
+        return heat * LN2 / Constants.HotChunks.HALF_LIFE_TICKS * 1200.0;
+    }
+    
+    /**
+     * 单个热点区块的查询结果
+     */
+    public static class HotChunk {
+        private final ChunkPos pos;
+        private final double itemHeat;
+        private final double animalHeat;
+        
+        public HotChunk(ChunkPos pos, double itemHeat, double animalHeat) {
+            this.pos = pos;
+            this.itemHeat = itemHeat;
+            this.animalHeat = animalHeat;
+        }
+        
+        public ChunkPos getPos() { return pos; }
+        public double getItemHeat() { return itemHeat; }
+        public double getAnimalHeat() { return animalHeat; }
+        public double getHeat() { return itemHeat + animalHeat; }
+        
+        @Override
+        public String toString() {
+            return String.format("HotChunk{%s, items=%.1f/min, animals=%.1f/min}",
+                pos, toRatePerMinute(itemHeat), toRatePerMinute(animalHeat));
+        }
+    }
+    
+    /**
+     * 单个维度的热度数据
+     * 
+     * 每个区块保存 (物品热度, 动物热度, 上次更新的游戏时间)，读取时按经过的时间惰性衰减
+     */
+    static class HeatData extends SavedData {
+        private final Long2ObjectTable<Heat> chunks = new Long2ObjectTable<>();
+        
+        HeatData() {
+        }
+        
+        synchronized void record(long chunkKey, EntityCategory category, long gameTime) {
+            Heat heat = chunks.get(chunkKey);
+            if (heat == null) {
+                if (chunks.size() >= Constants.HotChunks.MAX_TRACKED_CHUNKS) {
+                    prune(gameTime);
+                    if (chunks.size() >= Constants.HotChunks.MAX_TRACKED_CHUNKS) {
+                        return; // 已追踪的区块都仍然活跃，暂不接纳新区块
+                    }
+                }
+                heat = new Heat(gameTime);
+                chunks.put(chunkKey, heat);
+            }
+            
+            heat.decayTo(gameTime);
+            if (category == EntityCategory.ITEM) {
+                heat.items += 1.0f;
+            } else {
+                heat.animals += 1.0f;
+            }
+            setDirty();
+        }
+        
+        synchronized double getHeat(long chunkKey, long gameTime) {
+            Heat heat = chunks.get(chunkKey);
+            if (heat == null) {
+                return 0.0;
+            }
+            double factor = decayFactor(gameTime - heat.lastUpdate);
+            return (heat.items + heat.animals) * factor;
+        }
+        
+        synchronized List<HotChunk> top(int limit, long gameTime) {
+            // 小顶堆只保留前N个，复杂度 O(m log N)
+            PriorityQueue<HotChunk> heap = new PriorityQueue<>(limit + 1,
+                (a, b) -> Double.compare(a.getHeat(), b.getHeat()));
+            
+            for (int slot = chunks.nextSlot(-1); slot >= 0; slot = chunks.nextSlot(slot)) {
+                Heat heat = chunks.valueAt(slot);
+                double factor = decayFactor(gameTime - heat.lastUpdate);
+                double total = (heat.items + heat.animals) * factor;
+                if (heap.size() < limit || total > heap.peek().getHeat()) {
+                    heap.offer(new HotChunk(new ChunkPos(chunks.keyAt(slot)),
+                        heat.items * factor, heat.animals * factor));
+                    if (heap.size() > limit) {
+                        heap.poll();
+                    }
+                }
+            }
+            
+            List<HotChunk> result = new ArrayList<>(heap);
+            result.sort((a, b) -> Double.compare(b.getHeat(), a.getHeat()));
+            return result;
+        }
+        
+        synchronized int size() {
+            return chunks.size();
+        }
+        
+        /**
+         * 移除已衰减到可忽略的区块
+         */
+        private void prune(long gameTime) {
+            int removed = chunks.removeIf(heat -> {
+                double factor = decayFactor(gameTime - heat.lastUpdate);
+                return (heat.items + heat.animals) * factor < Constants.HotChunks.MIN_HEAT;
+            });
+            ArisLogger.debug("Pruned {} cold chunks from hot chunk tracker", removed);
+        }
+        
+        private static double decayFactor(long elapsedTicks) {
+            if (elapsedTicks <= 0) {
+                return 1.0;
+            }
+            return Math.pow(0.5, (double) elapsedTicks / Constants.HotChunks.HALF_LIFE_TICKS);
+        }
+        
+        /**
+         * 保存为紧凑数组：区块键 long[]，两种热度的 float 位模式 int[]，统一衰减到保存时刻
+         */
+        @Override
+        public synchronized CompoundTag save(CompoundTag tag) {
+            long savedAt = 0;
+            for (int slot = chunks.nextSlot(-1); slot >= 0; slot = chunks.nextSlot(slot)) {
+                savedAt = Math.max(savedAt, chunks.valueAt(slot).lastUpdate);
+            }
+            prune(savedAt);
+            
+            int size = chunks.size();
+            long[] keys = new long[size];
+            int[] items = new int[size];
+            int[] animals = new int[size];
+            int i = 0;
+            for (int slot = chunks.nextSlot(-1); slot >= 0; slot = chunks.nextSlot(slot)) {
+                Heat heat = chunks.valueAt(slot);
+                heat.decayTo(savedAt);
+                keys[i] = chunks.keyAt(slot);
+                items[i] = Float.floatToIntBits(heat.items);
+                animals[i] = Float.floatToIntBits(heat.animals);
+                i++;
+            }
+            
+            tag.putLong("SavedAt", savedAt);
+            tag.putLongArray("Chunks", keys);
+            tag.putIntArray("Items", items);
+            tag.putIntArray("Animals", animals);
+            return tag;
+        }
+        
+        static HeatData load(CompoundTag tag) {
+            HeatData data = new HeatData();
+            long savedAt = tag.getLong("SavedAt");
+            long[] keys = tag.getLongArray("Chunks");
+            int[] items = tag.getIntArray("Items");
+            int[] animals = tag.getIntArray("Animals");
+            
+            int size = Math.min(keys.length, Math.min(items.length, animals.length));
+            for (int i = 0; i < size; i++) {
+                Heat heat = new Heat(savedAt);
+                heat.items = Float.intBitsToFloat(items[i]);
+                heat.animals = Float.intBitsToFloat(animals[i]);
+                data.chunks.put(keys[i], heat);
+            }
+            
+            ArisLogger.debug("Loaded {} hot chunk entries", size);
+            return data;
+        }
+    }
+    
+    /**
+     * 单个区块的热度
+     */
+    private static class Heat {
+        private float items;
+        private float animals;
+        private long lastUpdate;
+        
+        Heat(long gameTime) {
+            this.lastUpdate = gameTime;
+        }
+        
+        void decayTo(long gameTime) {
+            if (gameTime > lastUpdate) {
+                float factor = (float) HeatData.decayFactor(gameTime - lastUpdate);
+                items *= factor;
+                animals *= factor;
+                lastUpdate = gameTime;
+            }
+        }
+    }
+}
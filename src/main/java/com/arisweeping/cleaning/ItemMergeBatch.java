@@ -0,0 +1,95 @@
+package com.arisweeping.cleaning;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.arisweeping.async.MainThreadDrain;
+import com.arisweeping.cleaning.strategies.ItemMergeStrategy;
+
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * 物品合并批次
+ * 
+ * 由 {@link MainThreadDrain} 在主线程上逐条执行合并计划。每一步在同一时刻增加目标堆并减少或移除来源堆，
+ * 不会出现物品同时存在于两个实体中的窗口。执行前重新确认两个实体存活且物品和NBT完全相同
+ */
+public class ItemMergeBatch implements MainThreadDrain.DrainTask {
+    
+    private final ServerLevel level;
+    private final ItemMergeStrategy.MergePlan plan;
+    private final boolean batchPackets;
+    private final CompletableFuture<Integer> completion = new CompletableFuture<>();
+    private int cursor = 0;
+    private int foldedCount = 0;
+    
+    public ItemMergeBatch(ServerLevel level, ItemMergeStrategy.MergePlan plan, boolean batchPackets) {
+        this.level = level;
+        this.plan = plan;
+        this.batchPackets = batchPackets;
+    }
+    
+    @Override
+    public boolean runStep() {
+        if (cursor < plan.size()) {
+            applyMove(cursor++);
+        }
+        
+        if (cursor >= plan.size()) {
+            completion.complete(foldedCount);
+            return false;
+        }
+        return true;
+    }
+    
+    private void applyMove(int i) {
+        if (!(level.getEntity(plan.getTargetId(i)) instanceof ItemEntity target) || !isMergeable(target)) {
+            return;
+        }
+        if (!(level.getEntity(plan.getSourceId(i)) instanceof ItemEntity source) || !isMergeable(source)) {
+            return;
+        }
+        
+        ItemStack targetStack = target.getItem();
+        ItemStack sourceStack = source.getItem();
+        if (!ItemStack.isSameItemSameTags(targetStack, sourceStack)) {
+            return; // NBT哈希碰撞或捕获后物品已变化
+        }
+        
+        int space = targetStack.getMaxStackSize() - targetStack.getCount();
+        int moved = Math.min(plan.getAmount(i), Math.min(space, sourceStack.getCount()));
+        if (moved <= 0) {
+            return;
+        }
+        
+        target.setItem(targetStack.copyWithCount(targetStack.getCount() + moved));
+        int remaining = sourceStack.getCount() - moved;
+        if (remaining > 0) {
+            source.setItem(sourceStack.copyWithCount(remaining));
+        } else {
+            if (batchPackets) {
+                RemovalPacketBatcher.getInstance().detach(level, source);
+            }
+            source.discard();
+            foldedCount++;
+        }
+    }
+    
+    private static boolean isMergeable(Entity entity) {
+        return entity.isAlive() && !entity.isRemoved();
+    }
+    
+    @Override
+    public void onDiscarded() {
+        completion.complete(foldedCount);
+    }
+    
+    /**
+     * 批次完成时返回实际减少的实体数
+     */
+    public CompletableFuture<Integer> getCompletion() {
+        return completion;
+    }
+}
@@ -0,0 +1,221 @@
+package com.arisweeping.cleaning;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.arisweeping.async.MainThreadDrain;
+import com.arisweeping.async.ThreadSafeCounter;
+import com.arisweeping.core.ArisLogger;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.network.protocol.game.ClientboundRemoveEntitiesPacket;
+import net.minecraft.server.level.ChunkMap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.network.ServerPlayerConnection;
+import net.minecraft.world.entity.Entity;
+import net.minecraftforge.event.ForgeEventFactory;
+
+/**
+ * 实体移除数据包合并器
+ * 
+ * 原版在每个实体被移除时都会给所有追踪它的玩家单独发送一个移除数据包。
+ * 批量清理时，本类在实体discard之前先把它从区块追踪表中摘除并记录追踪它的玩家，
+ * 在tick结束时为每个玩家只发送一个包含本tick全部实体ID的 {@link ClientboundRemoveEntitiesPacket}
+ * 
+ * 只能在服务器主线程上使用。追踪表通过反射按字段类型定位，定位失败时自动退回原版逐实体发送
+ */
+public class RemovalPacketBatcher {
+    
+    /** 单个数据包最多携带的实体ID数量 */
+    private static final int MAX_IDS_PER_PACKET = 8192;
+    
+    private static final RemovalPacketBatcher INSTANCE = new RemovalPacketBatcher();
+    
+    // 反射句柄（主线程惰性初始化）
+    private Field entityMapField;
+    private Field seenByField;
+    private boolean reflectionUnavailable = false;
+    
+    // 本tick内每个玩家待通知的实体ID（只在主线程访问）
+    private final Map<ServerPlayer, IntArrayList> pendingIds = new HashMap<>();
+    
+    // 统计信息
+    private final AtomicLong batchedIds = new AtomicLong(0);
+    private final AtomicLong packetsSent = new AtomicLong(0);
+    private final AtomicLong packetsSaved = new AtomicLong(0);
+    
+    private RemovalPacketBatcher() {
+        MainThreadDrain.getInstance().addTickEndHook(this::flush);
+    }
+    
+    /**
+     * 获取合并器实例
+     */
+    public static RemovalPacketBatcher getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * 在实体discard之前调用：摘除实体的追踪器，并记录需要通知的玩家
+     * 
+     * @return 是否已接管该实体的移除通知；返回false时调用方照常discard即可，原版会逐个发送
+     */
+    public boolean detach(ServerLevel level, Entity entity) {
+        if (!ensureReflection()) {
+            return false;
+        }
+        
+        try {
+            Int2ObjectMap<Object> entityMap = cast(entityMapField.get(level.getChunkSource().chunkMap));
+            Object tracked = entityMap.remove(entity.getId());
+            if (tracked == null) {
+                // 没有任何玩家在追踪该实体
+                return true;
+            }
+            
+            if (seenByField == null) {
+                seenByField = findFieldByType(tracked.getClass(), Set.class);
+                if (seenByField == null) {
+                    // 无法读取追踪玩家列表，放回追踪器交给原版处理
+                    entityMap.put(entity.getId(), tracked);
+                    disableReflection("TrackedEntity.seenBy not found");
+                    return false;
+                }
+            }
+            
+            @SuppressWarnings("unchecked")
+            Set<ServerPlayerConnection> seenBy = (Set<ServerPlayerConnection>) seenByField.get(tracked);
+            int id = entity.getId();
+            for (ServerPlayerConnection connection : seenBy) {
+                ServerPlayer player = connection.getPlayer();
+                pendingIds.computeIfAbsent(player, p -> new IntArrayList()).add(id);
+                
+                // 保持与原版 removePairing 相同的回调
+                entity.stopSeenByPlayer(player);
+                ForgeEventFactory.onStopEntityTracking(entity, player);
+            }
+            seenBy.clear();
+            return true;
+            
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            disableReflection(e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 为每个玩家发送合并后的移除数据包（tick结束时调用）
+     */
+    public void flush() {
+        if (pendingIds.isEmpty()) {
+            return;
+        }
+        
+        long ids = 0;
+        long packets = 0;
+        
+        for (Map.Entry<ServerPlayer, IntArrayList> entry : pendingIds.entrySet()) {
+            ServerPlayer player = entry.getKey();
+            IntArrayList playerIds = entry.getValue();
+            if (player.hasDisconnected()) {
+                continue;
+            }
+            
+            for (int from = 0; from < playerIds.size(); from += MAX_IDS_PER_PACKET) {
+                int to = Math.min(playerIds.size(), from + MAX_IDS_PER_PACKET);
+                player.connection.send(new ClientboundRemoveEntitiesPacket(new IntArrayList(playerIds.subList(from, to))));
+                packets++;
+            }
+            ids += playerIds.size();
+        }
+        pendingIds.clear();
+        
+        batchedIds.addAndGet(ids);
+        packetsSent.addAndGet(packets);
+        packetsSaved.addAndGet(ids - packets);
+        ThreadSafeCounter.add(ThreadSafeCounter.REMOVE_PACKETS_SAVED, ids - packets);
+    }
+    
+    private boolean ensureReflection() {
+        if (reflectionUnavailable) {
+            return false;
+        }
+        if (entityMapField == null) {
+            entityMapField = findFieldByType(ChunkMap.class, Int2ObjectMap.class);
+            if (entityMapField == null) {
+                disableReflection("ChunkMap.entityMap not found");
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 按字段类型查找（ChunkMap 中只有追踪表是 Int2ObjectMap，TrackedEntity 中只有 seenBy 是 Set），
+     * 不依赖开发/生产环境不同的字段名
+     */
+    private static Field findFieldByType(Class<?> owner, Class<?> type) {
+        for (Field field : owner.getDeclaredFields()) {
+            if (type.isAssignableFrom(field.getType())) {
+                try {
+                    field.setAccessible(true);
+                    return field;
+                } catch (RuntimeException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private void disableReflection(String reason) {
+        reflectionUnavailable = true;
+        ArisLogger.warn("Removal packet batching disabled, falling back to per-entity packets: {}", reason);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+    
+    /**
+     * 是否可用（反射定位未失败）
+     */
+    public boolean isAvailable() {
+        return !reflectionUnavailable;
+    }
+    
+    /**
+     * 经过合并发送的实体ID总数
+     */
+    public long getBatchedIds() {
+        return batchedIds.get();
+    }
+    
+    /**
+     * 实际发送的合并数据包数
+     */
+    public long getPacketsSent() {
+        return packetsSent.get();
+    }
+    
+    /**
+     * 相比逐实体发送节省的数据包数
+     */
+    public long getPacketsSaved() {
+        return packetsSaved.get();
+    }
+    
+    /**
+     * 获取状态信息
+     */
+    public String getStatus() {
+        return String.format("RemovalPacketBatcher[available=%s, ids=%d, packets=%d, saved=%d]",
+                isAvailable(), batchedIds.get(), packetsSent.get(), packetsSaved.get());
+    }
+}
@@ -0,0 +1,120 @@
+package com.arisweeping.cleaning;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.data.ConfigData;
+import com.arisweeping.tasks.SmartTaskManager;
+import com.arisweeping.tasks.enums.TaskPriority;
+import com.arisweeping.tasks.models.TaskResult;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+/**
+ * 定期清理触发器
+ * 
+ * 每个服务器tick结束时询问 {@link AdaptiveIntervalController} 是否到了下一次清理的时间，
+ * 到期时通过 {@link SmartTaskManager} 提交一个全维度的低优先级清理任务。
+ * 上一次清理任务结束前不再提交；距上次提交不足一个清理间隔时也不提交，避免清理失败时每tick重试
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class SweepScheduler {
+    
+    public static final String TASK_TYPE = "SCHEDULED_CLEANING";
+    
+    private static final SweepScheduler INSTANCE = new SweepScheduler();
+    
+    // 只在主线程访问
+    private CompletableFuture<TaskResult> pendingSweep;
+    private long lastSubmitTick = -1;
+    private volatile int submittedSweeps;
+    
+    private SweepScheduler() {
+    }
+    
+    /**
+     * 获取触发器实例
+     */
+    public static SweepScheduler getInstance() {
+        return INSTANCE;
+    }
+    
+    // ==================== 事件处理 ====================
+    
+    /**
+     * 检查是否需要提交定期清理
+     */
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) {
+            return;
+        }
+        
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null) {
+            INSTANCE.tick(server.getTickCount());
+        }
+    }
+    
+    /**
+     * 服务器停止时重置状态
+     */
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        INSTANCE.pendingSweep = null;
+        INSTANCE.lastSubmitTick = -1;
+    }
+    
+    // ==================== 调度 ====================
+    
+    private void tick(long serverTick) {
+        if (pendingSweep != null && !pendingSweep.isDone()) {
+            return;
+        }
+        
+        AdaptiveIntervalController controller = AdaptiveIntervalController.getInstance();
+        if (!controller.isSweepDue(serverTick)
+                || (lastSubmitTick >= 0 && serverTick - lastSubmitTick < controller.getCurrentIntervalTicks())) {
+            return;
+        }
+        
+        SmartTaskManager taskManager = ArisSweepingMod.getSmartTaskManager();
+        ConfigData config = ArisSweepingMod.getConfigData();
+        if (!ArisSweepingMod.isEnabled() || taskManager == null || !taskManager.isRunning() || config == null) {
+            return;
+        }
+        
+        boolean cleanItems = config.itemCleaning.enabled;
+        boolean cleanAnimals = config.animalCleaning.enabled;
+        if (!cleanItems && !cleanAnimals) {
+            return;
+        }
+        
+        CleaningRequest request = CleaningRequest.builder()
+            .setTaskId(UUID.randomUUID())
+            .setCleanItems(cleanItems)
+            .setCleanAnimals(cleanAnimals)
+            .build();
+        lastSubmitTick = serverTick;
+        pendingSweep = taskManager.submitCleaningTask(TASK_TYPE, TaskPriority.LOW, request);
+        submittedSweeps++;
+        ArisLogger.debug("Scheduled sweep {} submitted at tick {} (interval {} ticks)",
+            request.getTaskId(), serverTick, controller.getCurrentIntervalTicks());
+    }
+    
+    // ==================== 查询 ====================
+    
+    /**
+     * 获取本进程内已提交的定期清理次数
+     */
+    public int getSubmittedSweepCount() {
+        return submittedSweeps;
+    }
+}
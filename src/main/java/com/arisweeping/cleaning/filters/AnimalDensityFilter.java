@@ -1,5 +1,6 @@
 package com.arisweeping.cleaning.filters;
 
+import com.arisweeping.cleaning.EntitySnapshot;
 import com.arisweeping.data.ConfigData;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -10,6 +11,9 @@ import java.util.stream.Collectors;
  * 根据动物密度配置过滤需要清理的动物实体
  */
 public class AnimalDensityFilter {
+    private static final int ALWAYS_PROTECTED_FLAGS = EntitySnapshot.FLAG_NAMED | EntitySnapshot.FLAG_LEASHED
+            | EntitySnapshot.FLAG_RIDING | EntitySnapshot.FLAG_PERSISTENT | EntitySnapshot.FLAG_OWNED;
+    
     private final ConfigData configData;
     
     public AnimalDensityFilter(ConfigData configData) {
@@ -85,6 +89,25 @@ public class AnimalDensityFilter {
         return false;
     }
     
+    /**
+     * 快照版本：判断快照中的动物是否为清理候选（在工作线程调用）
+     * 
+     * 被命名、拴绳、骑乘或要求持久化的动物始终保留；幼体和繁殖中的动物按配置保留
+     */
+    public boolean test(EntitySnapshot snapshot, int index) {
+        int flags = snapshot.getFlags(index);
+        if ((flags & ALWAYS_PROTECTED_FLAGS) != 0) {
+            return false;
+        }
+        if (configData.animalCleaning.isProtectBabies() && (flags & EntitySnapshot.FLAG_BABY) != 0) {
+            return false;
+        }
+        if (configData.isProtectBreedingAnimals() && (flags & EntitySnapshot.FLAG_IN_LOVE) != 0) {
+            return false;
+        }
+        return true;
+    }
+    
     /**
      * 计算指定区域内的动物密度
      */
@@ -1,23 +1,38 @@
 package com.arisweeping.cleaning.filters;
 
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.Constants;
 import com.arisweeping.data.ConfigData;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
 
 /**
  * 自定义过滤器
  * 
- * 支持用户定义的复杂过滤规则
+ * 支持用户定义的复杂过滤规则。规则集在首次使用时编译为流水线：
+ * <ul>
+ *   <li>由 {@link #createTypeBasedRule} 创建的实体类型规则合并为一个按注册ID索引的位图，最先检查</li>
+ *   <li>其余规则按 开销 / 拒绝率 升序执行，开销低、拒绝率高的规则优先。开销和通过率可以在添加时声明，
+ *       运行中按实测值修正，并每隔固定次数重新排序</li>
+ * </ul>
+ * 每条规则的命中统计通过 {@link #getRuleStats()} 暴露，便于调整大型规则集
  */
 public class CustomFilter {
     private final ConfigData configData;
-    private final Map<String, Predicate<Object>> customRules;
+    private final Map<String, Rule> customRules;
+    private volatile Pipeline pipeline; // null 表示规则已变化，需要重新编译
     private boolean enabled = true;
     
     public CustomFilter(ConfigData configData) {
         this.configData = configData;
-        this.customRules = new HashMap<>();
+        this.customRules = new LinkedHashMap<>();
         initializeDefaultRules();
     }
     
@@ -43,69 +58,121 @@ public class CustomFilter {
     }
     
     /**
-     * 添加自定义过滤规则
+     * 添加自定义过滤规则（开销和通过率在运行中学习）
      */
     public void addRule(String ruleName, Predicate<Object> rule) {
-        customRules.put(ruleName, rule);
+        addRule(ruleName, rule, Constants.Filters.DEFAULT_RULE_COST_NANOS, Constants.Filters.DEFAULT_RULE_PASS_RATE);
+    }
+    
+    /**
+     * 添加自定义过滤规则并声明预期开销和通过率，在积累足够样本前用于排序
+     * 
+     * @param expectedCostNanos 单次执行的预期开销（纳秒）
+     * @param expectedPassRate 预期通过率（0-1）
+     */
+    public synchronized void addRule(String ruleName, Predicate<Object> rule,
+                                     double expectedCostNanos, double expectedPassRate) {
+        customRules.put(ruleName, new Rule(ruleName, rule, Math.max(1.0, expectedCostNanos),
+            Math.max(0.0, Math.min(1.0, expectedPassRate))));
+        pipeline = null;
     }
     
     /**
      * 移除过滤规则
      */
-    public void removeRule(String ruleName) {
-        customRules.remove(ruleName);
+    public synchronized void removeRule(String ruleName) {
+        if (customRules.remove(ruleName) != null) {
+            pipeline = null;
+        }
     }
     
     /**
      * 应用所有过滤规则
      */
-    @SuppressWarnings("unchecked")
     public <T> List<T> filter(List<T> candidates) {
         if (!enabled || candidates == null || candidates.isEmpty()) {
             return candidates;
         }
         
-        return candidates.stream()
-            .filter(this::passesAllRules)
-            .collect(Collectors.toList());
+        Pipeline current = getPipeline();
+        List<T> result = new ArrayList<>(candidates.size());
+        for (T candidate : candidates) {
+            if (current.test(candidate)) {
+                result.add(candidate);
+            }
+        }
+        return result;
     }
     
     /**
-     * 检查实体是否通过所有规则
+     * 检查单个实体是否通过所有规则
      */
-    private <T> boolean passesAllRules(T entity) {
-        for (Predicate<Object> rule : customRules.values()) {
-            try {
-                if (!rule.test(entity)) {
-                    return false;
+    public boolean test(Object entity) {
+        return !enabled || getPipeline().test(entity);
+    }
+    
+    private Pipeline getPipeline() {
+        Pipeline current = pipeline;
+        if (current == null) {
+            synchronized (this) {
+                current = pipeline;
+                if (current == null) {
+                    current = compile();
+                    pipeline = current;
                 }
-            } catch (Exception e) {
-                // 如果规则执行出错，默认不通过
-                return false;
             }
         }
-        return true;
+        return current;
+    }
+    
+    /**
+     * 编译规则集：类型规则合并为位图，其余规则按当前估计的代价排序
+     */
+    private Pipeline compile() {
+        BitSet typeMask = null;
+        List<Rule> predicates = new ArrayList<>();
+        for (Rule rule : customRules.values()) {
+            if (rule.predicate instanceof TypeRule typeRule) {
+                BitSet allowed = (BitSet) typeRule.resolve().clone();
+                if (typeMask == null) {
+                    typeMask = allowed;
+                } else {
+                    typeMask.and(allowed);
+                }
+                rule.hoisted = true;
+            } else {
+                predicates.add(rule);
+            }
+        }
+        
+        Rule[] ordered = predicates.toArray(new Rule[0]);
+        Arrays.sort(ordered, Comparator.comparingDouble(Rule::rank));
+        
+        ArisLogger.debug("Compiled custom filter: {} rules, type mask {}",
+            ordered.length, typeMask != null ? typeMask.cardinality() + " types" : "none");
+        return new Pipeline(typeMask, ordered);
     }
     
     /**
      * 获取所有规则名称
      */
-    public Set<String> getRuleNames() {
+    public synchronized Set<String> getRuleNames() {
         return new HashSet<>(customRules.keySet());
     }
     
     /**
      * 获取规则数量
      */
-    public int getRuleCount() {
+    public synchronized int getRuleCount() {
         return customRules.size();
     }
     
     /**
      * 清空所有规则
      */
-    public void clearAllRules() {
+    public synchronized void clearAllRules() {
         customRules.clear();
+        pipeline = null;
     }
     
     /**
@@ -122,26 +189,54 @@ public class CustomFilter {
         return enabled;
     }
     
+    /**
+     * 获取各规则的统计信息（按当前执行顺序，类型规则排在最前）
+     */
+    public List<RuleStats> getRuleStats() {
+        Pipeline current = getPipeline();
+        List<RuleStats> stats = new ArrayList<>();
+        synchronized (this) {
+            for (Rule rule : customRules.values()) {
+                if (rule.hoisted) {
+                    stats.add(rule.toStats(-1));
+                }
+            }
+        }
+        Rule[] ordered = current.rules;
+        for (int i = 0; i < ordered.length; i++) {
+            stats.add(ordered[i].toStats(i));
+        }
+        return stats;
+    }
+    
+    /**
+     * 获取被类型位图直接拒绝的实体数
+     */
+    public long getTypeMaskRejects() {
+        return getPipeline().typeRejects.sum();
+    }
+    
     /**
      * 获取过滤器状态
      */
     public FilterStatus getStatus() {
+        Pipeline current = getPipeline();
         return new FilterStatus(
-            "CustomFilter", 
+            "CustomFilter",
             enabled,
-            String.format("Custom filter with %d active rules", customRules.size())
+            String.format("Custom filter with %d active rules (%d ordered, type mask %s)", getRuleCount(),
+                current.rules.length, current.typeMask != null ? current.typeMask.cardinality() + " types" : "off")
         );
     }
     
     /**
      * 创建基于实体类型的规则
+     * 
+     * 支持 "minecraft:cow" 形式的类型ID和 "modid:*" 形式的命名空间通配符。
+     * 通过 {@link #addRule} 添加时会被提升为类型位图，不作为普通谓词执行
      */
     public static Predicate<Object> createTypeBasedRule(Set<String> allowedTypes) {
-        return entity -> {
-            // TODO: 实现基于实体类型的过滤
-            // 需要获取实体的类型信息
-            return true; // 暂时允许所有类型
-        };
+        return new TypeRule(allowedTypes);
     }
     
     /**
@@ -166,6 +261,220 @@ public class CustomFilter {
         };
     }
     
+    private static int typeIdOf(Object entity) {
+        return entity instanceof Entity e ? BuiltInRegistries.ENTITY_TYPE.getId(e.getType()) : -1;
+    }
+    
+    /**
+     * 编译后的规则流水线
+     */
+    private static class Pipeline {
+        private final BitSet typeMask; // null 表示不限制类型
+        private volatile Rule[] rules;
+        private final AtomicLong evaluations = new AtomicLong();
+        private final LongAdder typeRejects = new LongAdder();
+        
+        Pipeline(BitSet typeMask, Rule[] rules) {
+            this.typeMask = typeMask;
+            this.rules = rules;
+        }
+        
+        boolean test(Object entity) {
+            if (typeMask != null) {
+                int typeId = typeIdOf(entity);
+                if (typeId < 0 || !typeMask.get(typeId)) {
+                    typeRejects.increment();
+                    return false;
+                }
+            }
+            
+            long sequence = evaluations.incrementAndGet();
+            if (sequence % Constants.Filters.REORDER_INTERVAL == 0) {
+                reorder();
+            }
+            
+            // 只对部分执行计时，降低System.nanoTime开销
+            boolean timed = (sequence & Constants.Filters.TIMING_SAMPLE_MASK) == 0;
+            for (Rule rule : rules) {
+                if (!rule.evaluate(entity, timed)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * 按最新的统计重新排序，排序结果整体替换，不影响正在执行的线程
+         */
+        private void reorder() {
+            Rule[] reordered = rules.clone();
+            Arrays.sort(reordered, Comparator.comparingDouble(Rule::rank));
+            rules = reordered;
+        }
+    }
+    
+    /**
+     * 单条规则及其统计
+     */
+    private static class Rule {
+        private final String name;
+        private final Predicate<Object> predicate;
+        private final double declaredCostNanos;
+        private final double declaredPassRate;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder passes = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timedSamples = new LongAdder();
+        private final LongAdder timedNanos = new LongAdder();
+        private volatile boolean hoisted = false;
+        
+        Rule(String name, Predicate<Object> predicate, double declaredCostNanos, double declaredPassRate) {
+            this.name = name;
+            this.predicate = predicate;
+            this.declaredCostNanos = declaredCostNanos;
+            this.declaredPassRate = declaredPassRate;
+        }
+        
+        boolean evaluate(Object entity, boolean timed) {
+            evaluations.increment();
+            boolean passed;
+            try {
+                if (timed) {
+                    long start = System.nanoTime();
+                    passed = predicate.test(entity);
+                    timedNanos.add(System.nanoTime() - start);
+                    timedSamples.increment();
+                } else {
+                    passed = predicate.test(entity);
+                }
+            } catch (Exception e) {
+                // 如果规则执行出错，默认不通过
+                errors.increment();
+                passed = false;
+            }
+            if (passed) {
+                passes.increment();
+            }
+            return passed;
+        }
+        
+        double getCostNanos() {
+            long samples = timedSamples.sum();
+            return samples >= Constants.Filters.MIN_LEARNING_SAMPLES
+                ? (double) timedNanos.sum() / samples : declaredCostNanos;
+        }
+        
+        double getPassRate() {
+            long total = evaluations.sum();
+            return total >= Constants.Filters.MIN_LEARNING_SAMPLES
+                ? (double) passes.sum() / total : declaredPassRate;
+        }
+        
+        /**
+         * 排序代价：开销 / 拒绝率，越小越应该先执行
+         */
+        double rank() {
+            return getCostNanos() / Math.max(1e-6, 1.0 - getPassRate());
+        }
+        
+        RuleStats toStats(int position) {
+            return new RuleStats(name, position, hoisted, evaluations.sum(), passes.sum(), errors.sum(),
+                getPassRate(), getCostNanos());
+        }
+    }
+    
+    /**
+     * 实体类型规则：编译时提升为按注册ID索引的位图
+     */
+    private static class TypeRule implements Predicate<Object> {
+        private final Set<String> allowedTypes;
+        private volatile BitSet resolved;
+        
+        TypeRule(Set<String> allowedTypes) {
+            this.allowedTypes = Set.copyOf(allowedTypes);
+        }
+        
+        BitSet resolve() {
+            BitSet bits = resolved;
+            if (bits == null) {
+                bits = new BitSet();
+                for (String name : allowedTypes) {
+                    if (name.endsWith(":*")) {
+                        String namespace = name.substring(0, name.length() - 2);
+                        for (EntityType<?> type : BuiltInRegistries.ENTITY_TYPE) {
+                            if (EntityType.getKey(type).getNamespace().equals(namespace)) {
+                                bits.set(BuiltInRegistries.ENTITY_TYPE.getId(type));
+                            }
+                        }
+                    } else {
+                        ResourceLocation id = ResourceLocation.tryParse(name);
+                        if (id != null && BuiltInRegistries.ENTITY_TYPE.containsKey(id)) {
+                            bits.set(BuiltInRegistries.ENTITY_TYPE.getId(BuiltInRegistries.ENTITY_TYPE.get(id)));
+                        } else {
+                            ArisLogger.warn("Unknown entity type in custom filter rule: {}", name);
+                        }
+                    }
+                }
+                resolved = bits;
+            }
+            return bits;
+        }
+        
+        @Override
+        public boolean test(Object entity) {
+            int typeId = typeIdOf(entity);
+            return typeId >= 0 && resolve().get(typeId);
+        }
+    }
+    
+    /**
+     * 规则统计信息
+     */
+    public static class RuleStats {
+        private final String name;
+        private final int position;
+        private final boolean hoisted;
+        private final long evaluations;
+        private final long passes;
+        private final long errors;
+        private final double passRate;
+        private final double costNanos;
+        
+        public RuleStats(String name, int position, boolean hoisted, long evaluations, long passes,
+                         long errors, double passRate, double costNanos) {
+            this.name = name;
+            this.position = position;
+            this.hoisted = hoisted;
+            this.evaluations = evaluations;
+            this.passes = passes;
+            this.errors = errors;
+            this.passRate = passRate;
+            this.costNanos = costNanos;
+        }
+        
+        public String getName() { return name; }
+        /** 在流水线中的执行位置，类型位图规则为-1 */
+        public int getPosition() { return position; }
+        /** 是否已提升为类型位图 */
+        public boolean isHoisted() { return hoisted; }
+        public long getEvaluations() { return evaluations; }
+        public long getPasses() { return passes; }
+        public long getRejects() { return evaluations - passes; }
+        public long getErrors() { return errors; }
+        /** 通过率（样本不足时为声明值） */
+        public double getPassRate() { return passRate; }
+        /** 单次开销（纳秒，样本不足时为声明值） */
+        public double getCostNanos() { return costNanos; }
+        
+        @Override
+        public String toString() {
+            return hoisted
+                ? String.format("RuleStats{name='%s', typeMask}", name)
+                : String.format("RuleStats{name='%s', pos=%d, evals=%d, pass=%.1f%%, cost=%.0fns, errors=%d}",
+                    name, position, evaluations, passRate * 100, costNanos, errors);
+        }
+    }
+    
     /**
      * 过滤器状态信息
      */
@@ -186,8 +495,8 @@ public class CustomFilter {
         
         @Override
         public String toString() {
-            return String.format("FilterStatus{name='%s', enabled=%s, description='%s'}", 
+            return String.format("FilterStatus{name='%s', enabled=%s, description='%s'}",
                 name, enabled, description);
         }
     }
-}
\ No newline at end of file
+}
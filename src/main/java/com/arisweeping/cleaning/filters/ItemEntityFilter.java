@@ -1,9 +1,14 @@
 package com.arisweeping.cleaning.filters;
 
+import com.arisweeping.cleaning.EntitySnapshot;
+import com.arisweeping.core.ArisLogger;
 import com.arisweeping.data.ConfigData;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+
 /**
  * 物品实体过滤器
  * 
@@ -11,6 +16,7 @@ import java.util.stream.Collectors;
  */
 public class ItemEntityFilter {
     private final ConfigData configData;
+    private volatile ProtectedItems protectedItems;
     
     public ItemEntityFilter(ConfigData configData) {
         this.configData = configData;
@@ -49,12 +55,72 @@ public class ItemEntityFilter {
         return Math.random() > 0.5;
     }
     
+    /**
+     * 快照版本：判断快照中的物品是否为清理候选（在工作线程调用）
+     * 
+     * 被命名的物品和受保护的物品始终保留
+     */
+    public boolean test(EntitySnapshot snapshot, int index) {
+        return !snapshot.hasFlag(index, EntitySnapshot.FLAG_NAMED)
+            && !getProtectedItems().contains(snapshot.getItemId(index));
+    }
+    
+    /**
+     * 按物品注册ID判断物品是否应该被清理（热路径，一次位测试）
+     */
+    public boolean isItemCleanable(int itemId) {
+        return !getProtectedItems().contains(itemId);
+    }
+    
     /**
      * 检查物品类型是否应该被清理
      */
     public boolean isItemTypeCleanable(String itemType) {
-        // TODO: 实现基于配置的物品类型检查
-        return true;
+        ResourceLocation id = ResourceLocation.tryParse(itemType);
+        if (id == null || !BuiltInRegistries.ITEM.containsKey(id)) {
+            return true;
+        }
+        return isItemCleanable(BuiltInRegistries.ITEM.getId(BuiltInRegistries.ITEM.get(id)));
+    }
+    
+    /**
+     * 获取受保护物品的位图
+     * 
+     * 启用白名单时为 白名单 - 黑名单（黑名单可以从通配符或标签中排除个别物品），否则为空。
+     * 配置修改或标签重载后重新解析，其余情况只比较版本号
+     */
+    private ItemRegistryMask getProtectedItems() {
+        ConfigData.ItemCleaningConfig config = configData.getItemCleaningConfig();
+        int revision = config.getListRevision();
+        boolean respectWhitelist = configData.isRespectItemWhitelist();
+        
+        ProtectedItems current = protectedItems;
+        if (current == null || current.revision != revision
+                || current.respectWhitelist != respectWhitelist || current.mask.isStale()) {
+            ItemRegistryMask mask = respectWhitelist
+                ? ItemRegistryMask.resolve(config.getItemWhitelist())
+                    .without(ItemRegistryMask.resolve(config.getItemBlacklist()))
+                : ItemRegistryMask.empty();
+            current = new ProtectedItems(mask, revision, respectWhitelist);
+            protectedItems = current;
+            ArisLogger.debug("Resolved item protection list: {} protected items", mask.cardinality());
+        }
+        return current.mask;
+    }
+    
+    /**
+     * 解析后的受保护物品及其对应的配置版本
+     */
+    private static class ProtectedItems {
+        private final ItemRegistryMask mask;
+        private final int revision;
+        private final boolean respectWhitelist;
+        
+        ProtectedItems(ItemRegistryMask mask, int revision, boolean respectWhitelist) {
+            this.mask = mask;
+            this.revision = revision;
+            this.respectWhitelist = respectWhitelist;
+        }
     }
     
     /**
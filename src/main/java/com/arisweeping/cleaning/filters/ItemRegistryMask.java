@@ -0,0 +1,141 @@
+package com.arisweeping.cleaning.filters;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 物品注册ID位图
+ * 
+ * 把配置中的物品列表解析为按 {@link BuiltInRegistries#ITEM} 数字ID索引的 {@link BitSet}，
+ * 热路径上判断物品只需要一次位测试。支持的条目格式：
+ * <ul>
+ *   <li>"minecraft:diamond" - 单个物品</li>
+ *   <li>"#forge:ores" - 物品标签</li>
+ *   <li>"modid:*" - 整个命名空间</li>
+ * </ul>
+ * 标签内容在数据包重载后会变化，因此维护一个全局的标签代数，解析结果随之失效
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class ItemRegistryMask {
+    
+    private static final AtomicInteger TAG_GENERATION = new AtomicInteger(0);
+    
+    private final BitSet bits;
+    private final int tagGeneration;
+    
+    private ItemRegistryMask(BitSet bits, int tagGeneration) {
+        this.bits = bits;
+        this.tagGeneration = tagGeneration;
+    }
+    
+    /**
+     * 标签重新绑定后使已解析的位图失效
+     */
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        TAG_GENERATION.incrementAndGet();
+    }
+    
+    /**
+     * 解析物品列表
+     */
+    public static ItemRegistryMask resolve(Collection<String> entries) {
+        int generation = TAG_GENERATION.get();
+        BitSet bits = new BitSet(BuiltInRegistries.ITEM.size());
+        for (String raw : entries) {
+            String entry = raw.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            
+            if (entry.startsWith("#")) {
+                addTag(bits, entry);
+            } else if (entry.endsWith(":*")) {
+                addNamespace(bits, entry.substring(0, entry.length() - 2));
+            } else {
+                addItem(bits, entry);
+            }
+        }
+        return new ItemRegistryMask(bits, generation);
+    }
+    
+    /**
+     * 空位图
+     */
+    public static ItemRegistryMask empty() {
+        return new ItemRegistryMask(new BitSet(), TAG_GENERATION.get());
+    }
+    
+    private static void addTag(BitSet bits, String entry) {
+        ResourceLocation id = ResourceLocation.tryParse(entry.substring(1));
+        if (id == null) {
+            ArisLogger.warn("Invalid item tag in item list: {}", entry);
+            return;
+        }
+        TagKey<Item> tag = TagKey.create(Registries.ITEM, id);
+        for (Holder<Item> holder : BuiltInRegistries.ITEM.getTagOrEmpty(tag)) {
+            bits.set(BuiltInRegistries.ITEM.getId(holder.value()));
+        }
+    }
+    
+    private static void addNamespace(BitSet bits, String namespace) {
+        for (Item item : BuiltInRegistries.ITEM) {
+            if (BuiltInRegistries.ITEM.getKey(item).getNamespace().equals(namespace)) {
+                bits.set(BuiltInRegistries.ITEM.getId(item));
+            }
+        }
+    }
+    
+    private static void addItem(BitSet bits, String entry) {
+        ResourceLocation id = ResourceLocation.tryParse(entry);
+        if (id == null || !BuiltInRegistries.ITEM.containsKey(id)) {
+            ArisLogger.warn("Unknown item in item list: {}", entry);
+            return;
+        }
+        bits.set(BuiltInRegistries.ITEM.getId(BuiltInRegistries.ITEM.get(id)));
+    }
+    
+    /**
+     * 判断物品注册ID是否在位图中
+     */
+    public boolean contains(int itemId) {
+        return bits.get(itemId);
+    }
+    
+    /**
+     * 返回去掉另一个位图中条目后的新位图
+     */
+    public ItemRegistryMask without(ItemRegistryMask other) {
+        BitSet result = (BitSet) bits.clone();
+        result.andNot(other.bits);
+        return new ItemRegistryMask(result, Math.min(tagGeneration, other.tagGeneration));
+    }
+    
+    /**
+     * 标签重载后解析结果是否已过期
+     */
+    public boolean isStale() {
+        return tagGeneration != TAG_GENERATION.get();
+    }
+    
+    /**
+     * 位图中的物品数量
+     */
+    public int cardinality() {
+        return bits.cardinality();
+    }
+}
@@ -2,6 +2,9 @@ package com.arisweeping.cleaning.strategies;
 
 import java.util.List;
 
+import com.arisweeping.async.SnapshotKernels;
+import com.arisweeping.cleaning.EntitySnapshot;
+
 /**
  * 清理策略接口
  * 
@@ -17,6 +20,18 @@ public interface CleaningStrategy {
      */
     <T> List<T> applyStrategy(List<T> candidates);
     
+    /**
+     * 在实体快照上应用清理策略（在工作线程调用，不访问实体对象）
+     * 
+     * @param snapshot 主线程捕获的实体快照
+     * @param candidates 通过过滤器的快照下标
+     * @param kernels 并行计算内核
+     * @return 应被清理的快照下标
+     */
+    default int[] applyStrategy(EntitySnapshot snapshot, int[] candidates, SnapshotKernels kernels) {
+        return candidates;
+    }
+    
     /**
      * 获取策略名称
      */
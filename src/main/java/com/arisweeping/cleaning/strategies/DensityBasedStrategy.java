@@ -3,8 +3,14 @@ import com.arisweeping.core.ArisLogger;
 
 import com.arisweeping.data.ConfigData;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.arisweeping.async.SnapshotKernels;
+import com.arisweeping.cleaning.EntitySnapshot;
+
+import net.minecraft.world.entity.Entity;
 
 /**
  * 基于密度的清理策略
@@ -26,7 +32,6 @@ public class DensityBasedStrategy implements CleaningStrategy {
     }
     
     @Override
-    @SuppressWarnings("unchecked")
     public <T> List<T> applyStrategy(List<T> candidates) {
         if (!enabled || candidates.isEmpty()) {
             return candidates;
@@ -35,22 +40,24 @@ public class DensityBasedStrategy implements CleaningStrategy {
         ArisLogger.debug("Applying density-based strategy to {} candidates with radius {} and threshold {}", 
                     candidates.size(), checkRadius, densityThreshold);
         
-        // 按位置分组，计算密度
-        Map<String, List<T>> locationGroups = groupEntitiesByLocation(candidates);
-        
-        // 找出高密度区域的实体
+        // 按检查半径建立空间网格，依次决定每个实体的去留：
+        // 半径内已保留的实体达到阈值时移除该实体，否则保留并加入网格
+        // 每次查询在达到阈值后立即停止，总代价与实体数近似线性
+        SpatialHashGrid kept = new SpatialHashGrid(checkRadius, candidates.size());
         List<T> entitiesToRemove = new ArrayList<>();
         
-        for (Map.Entry<String, List<T>> entry : locationGroups.entrySet()) {
-            List<T> entitiesInArea = entry.getValue();
+        for (T candidate : candidates) {
+            if (!(candidate instanceof Entity entity)) {
+                continue;
+            }
             
-            if (entitiesInArea.size() > densityThreshold) {
-                // 高密度区域，选择部分实体进行清理
-                int entitiesToKeep = densityThreshold;
-                int entitiesToRemoveCount = entitiesInArea.size() - entitiesToKeep;
-                
-                List<T> selectedForRemoval = selectEntitiesForRemoval(entitiesInArea, entitiesToRemoveCount);
-                entitiesToRemove.addAll(selectedForRemoval);
+            double x = entity.getX();
+            double y = entity.getY();
+            double z = entity.getZ();
+            if (kept.countWithin(x, y, z, checkRadius, densityThreshold) >= densityThreshold) {
+                entitiesToRemove.add(candidate);
+            } else {
+                kept.insert(x, y, z);
             }
         }
         
@@ -59,58 +66,60 @@ public class DensityBasedStrategy implements CleaningStrategy {
     }
     
     /**
-     * 按位置对实体分组
+     * 快照版本：与列表版本相同的贪心选择，直接读取快照中的坐标数组
+     * 
+     * 选择过程依赖保留顺序，因此在调用线程上顺序执行
      */
-    private <T> Map<String, List<T>> groupEntitiesByLocation(List<T> entities) {
-        Map<String, List<T>> groups = new HashMap<>();
+    @Override
+    public int[] applyStrategy(EntitySnapshot snapshot, int[] candidates, SnapshotKernels kernels) {
+        if (!enabled || candidates.length == 0) {
+            return candidates;
+        }
         
-        for (T entity : entities) {
-            // TODO: 实现实际的位置获取和分组逻辑
-            // 需要：
-            // 1. 获取实体的坐标
-            // 2. 根据检查半径将坐标离散化为网格
-            // 3. 将实体分组到对应的网格中
-            
-            // 暂时的占位符实现：随机分组
-            String locationKey = "location_" + (Math.abs(entity.hashCode()) % 10);
-            groups.computeIfAbsent(locationKey, k -> new ArrayList<>()).add(entity);
+        SpatialHashGrid kept = new SpatialHashGrid(checkRadius, candidates.length);
+        int[] toRemove = new int[candidates.length];
+        int removeCount = 0;
+        
+        for (int index : candidates) {
+            double x = snapshot.getX(index);
+            double y = snapshot.getY(index);
+            double z = snapshot.getZ(index);
+            if (kept.countWithin(x, y, z, checkRadius, densityThreshold) >= densityThreshold) {
+                toRemove[removeCount++] = index;
+            } else {
+                kept.insert(x, y, z);
+            }
         }
         
-        return groups;
+        return Arrays.copyOf(toRemove, removeCount);
     }
     
     /**
-     * 从高密度区域选择要移除的实体
+     * 把实体坐标放入空间网格（非实体对象忽略）
      */
-    private <T> List<T> selectEntitiesForRemoval(List<T> entities, int count) {
-        if (count <= 0 || entities.isEmpty()) {
-            return Collections.emptyList();
+    private SpatialHashGrid buildGrid(List<?> entities) {
+        SpatialHashGrid grid = new SpatialHashGrid(checkRadius, entities.size());
+        for (Object candidate : entities) {
+            if (candidate instanceof Entity entity) {
+                grid.insert(entity.getX(), entity.getY(), entity.getZ());
+            }
         }
-        
-        // TODO: 实现智能选择逻辑
-        // 可以考虑：
-        // 1. 优先选择年龄较大的实体
-        // 2. 优先选择非繁殖状态的实体
-        // 3. 保留稀有或特殊的实体
-        
-        // 暂时的简单实现：随机选择
-        List<T> shuffled = new ArrayList<>(entities);
-        Collections.shuffle(shuffled);
-        
-        return shuffled.stream()
-            .limit(Math.min(count, shuffled.size()))
-            .collect(Collectors.toList());
+        return grid;
     }
     
     /**
-     * 计算指定位置的实体密度
+     * 计算指定位置的实体密度（检查半径内的实体数量）
      */
     public int calculateDensityAtLocation(List<?> entities, double x, double y, double z) {
-        // TODO: 实现基于坐标的密度计算
-        // 需要检查在 (x,y,z) 周围 checkRadius 范围内的实体数量
+        double radiusSq = checkRadius * checkRadius;
+        int density = 0;
         
-        // 暂时返回简单的估算
-        return entities.size();
+        for (Object candidate : entities) {
+            if (candidate instanceof Entity entity && entity.distanceToSqr(x, y, z) <= radiusSq) {
+                density++;
+            }
+        }
+        return density;
     }
     
     /**
@@ -178,24 +187,30 @@ public class DensityBasedStrategy implements CleaningStrategy {
     
     /**
      * 获取策略统计信息
+     * 
+     * 分组为网格单元；包含任一半径内实体数超过阈值的实体的单元计为高密度区域
      */
-    @SuppressWarnings("unchecked")
     public DensityStrategyStatistics getStatistics(List<?> entities) {
-        Map<String, List<Object>> locationGroups = groupEntitiesByLocation((List<Object>) entities);
+        SpatialHashGrid grid = buildGrid(entities);
         
-        int totalGroups = locationGroups.size();
+        boolean[] highDensityCells = new boolean[grid.getCellCount()];
         int highDensityGroups = 0;
         int totalEntitiesInHighDensityAreas = 0;
         
-        for (List<?> group : locationGroups.values()) {
-            if (isHighDensityArea(group)) {
-                highDensityGroups++;
-                totalEntitiesInHighDensityAreas += group.size();
+        for (int i = 0; i < grid.size(); i++) {
+            // 计数包含自身，超过阈值即可停止
+            if (grid.countAround(i, checkRadius, densityThreshold + 1) > densityThreshold) {
+                totalEntitiesInHighDensityAreas++;
+                int cell = grid.getCellOf(i);
+                if (!highDensityCells[cell]) {
+                    highDensityCells[cell] = true;
+                    highDensityGroups++;
+                }
             }
         }
         
         return new DensityStrategyStatistics(
-            totalGroups,
+            grid.getCellCount(),
             highDensityGroups,
             totalEntitiesInHighDensityAreas,
             densityThreshold,
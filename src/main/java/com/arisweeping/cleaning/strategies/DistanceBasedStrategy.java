@@ -6,6 +6,9 @@ import com.arisweeping.data.ConfigData;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.arisweeping.async.SnapshotKernels;
+import com.arisweeping.cleaning.EntitySnapshot;
+
 /**
  * 基于距离的清理策略
  * 
@@ -55,6 +58,19 @@ public class DistanceBasedStrategy implements CleaningStrategy {
         return Math.random() > 0.3; // 70%的实体被认为足够远
     }
     
+    /**
+     * 快照版本：与最近玩家的水平距离超过最大距离的实体被清理
+     */
+    @Override
+    public int[] applyStrategy(EntitySnapshot snapshot, int[] candidates, SnapshotKernels kernels) {
+        if (!enabled || candidates.length == 0) {
+            return candidates;
+        }
+        
+        double maxDistanceSq = maxDistance * maxDistance;
+        return kernels.filter(snapshot, candidates, (s, i) -> s.nearestPlayerDistanceSqr(i) > maxDistanceSq);
+    }
+    
     /**
      * 设置最大距离阈值
      */
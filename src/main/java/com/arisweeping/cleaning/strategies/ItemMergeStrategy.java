@@ -0,0 +1,207 @@
+package com.arisweeping.cleaning.strategies;
+import com.arisweeping.core.ArisLogger;
+
+import com.arisweeping.async.SnapshotKernels;
+import com.arisweeping.cleaning.EntitySnapshot;
+import com.arisweeping.data.ConfigData;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+/**
+ * 物品堆叠合并策略
+ * 
+ * 不删除物品，而是把半径内相同物品（物品ID和NBT哈希相同）的掉落物合并到尽量少的实体中，
+ * 每个实体不超过最大堆叠数。适用于农场出口大量可堆叠掉落物的场景
+ * 
+ * 合并计划在工作线程上基于快照计算，只包含实体ID和转移数量，由主线程确认物品一致后执行
+ */
+public class ItemMergeStrategy implements CleaningStrategy {
+    
+    private static final double SQRT_3 = Math.sqrt(3.0);
+    
+    private final ConfigData configData;
+    private boolean enabled = true;
+    
+    public ItemMergeStrategy(ConfigData configData) {
+        this.configData = configData;
+    }
+    
+    /**
+     * 合并无法表示为删除列表，列表版本不选择任何实体
+     */
+    @Override
+    public <T> List<T> applyStrategy(List<T> candidates) {
+        return Collections.emptyList();
+    }
+    
+    /**
+     * 快照版本同样不删除实体，合并由 {@link #plan} 计算
+     */
+    @Override
+    public int[] applyStrategy(EntitySnapshot snapshot, int[] candidates, SnapshotKernels kernels) {
+        return new int[0];
+    }
+    
+    /**
+     * 计算合并计划（工作线程）
+     * 
+     * 候选按 (物品ID, NBT哈希, 网格单元) 排序后线性分组；单元边长为合并半径/√3，
+     * 保证同组物品两两距离不超过合并半径。组内保留数量最多的若干堆作为目标，其余堆依次填入
+     */
+    public MergePlan plan(EntitySnapshot snapshot, int[] candidates) {
+        MergePlan plan = new MergePlan();
+        if (!enabled || candidates.length < 2) {
+            return plan;
+        }
+        
+        double cellSize = configData.getItemMergeRadius() / SQRT_3;
+        int count = candidates.length;
+        long[] cellKeys = new long[snapshot.size()];
+        for (int index : candidates) {
+            cellKeys[index] = cellKey(snapshot, index, cellSize);
+        }
+        
+        int[] order = Arrays.copyOf(candidates, count);
+        IntArrays.quickSort(order, (a, b) -> {
+            int result = Integer.compare(snapshot.getItemId(a), snapshot.getItemId(b));
+            if (result == 0) {
+                result = Integer.compare(snapshot.getTagHash(a), snapshot.getTagHash(b));
+            }
+            if (result == 0) {
+                result = Long.compare(cellKeys[a], cellKeys[b]);
+            }
+            if (result == 0) {
+                // 组内按数量降序，数量多的堆优先作为目标
+                result = Integer.compare(snapshot.getStackCount(b), snapshot.getStackCount(a));
+            }
+            return result;
+        });
+        
+        int groupStart = 0;
+        for (int i = 1; i <= count; i++) {
+            if (i == count || !sameGroup(snapshot, cellKeys, order[groupStart], order[i])) {
+                if (i - groupStart > 1) {
+                    planGroup(snapshot, order, groupStart, i, plan);
+                }
+                groupStart = i;
+            }
+        }
+        
+        ArisLogger.debug("Item merge plan: {} moves, {} entities folded", plan.size(), plan.getEntitiesFolded());
+        return plan;
+    }
+    
+    /**
+     * 组内合并：按数量降序，把后面的堆填入前面仍有空间的堆
+     */
+    private void planGroup(EntitySnapshot snapshot, int[] order, int from, int to, MergePlan plan) {
+        int maxStack = snapshot.getMaxStackSize(order[from]);
+        if (maxStack <= 1) {
+            return; // 不可堆叠
+        }
+        
+        int[] remaining = new int[to - from];
+        for (int i = from; i < to; i++) {
+            remaining[i - from] = snapshot.getStackCount(order[i]);
+        }
+        
+        int target = 0;
+        int source = to - from - 1;
+        while (target < source) {
+            int space = maxStack - remaining[target];
+            if (space <= 0) {
+                target++;
+                continue;
+            }
+            
+            int moved = Math.min(space, remaining[source]);
+            remaining[target] += moved;
+            remaining[source] -= moved;
+            plan.add(snapshot.getId(order[from + target]), snapshot.getId(order[from + source]),
+                     moved, remaining[source] == 0);
+            
+            if (remaining[source] == 0) {
+                source--;
+            }
+        }
+    }
+    
+    private static boolean sameGroup(EntitySnapshot snapshot, long[] cellKeys, int a, int b) {
+        return snapshot.getItemId(a) == snapshot.getItemId(b)
+                && snapshot.getTagHash(a) == snapshot.getTagHash(b)
+                && cellKeys[a] == cellKeys[b];
+    }
+    
+    private static long cellKey(EntitySnapshot snapshot, int index, double cellSize) {
+        long cx = (long) Math.floor(snapshot.getX(index) / cellSize);
+        long cy = (long) Math.floor(snapshot.getY(index) / cellSize);
+        long cz = (long) Math.floor(snapshot.getZ(index) / cellSize);
+        return ((cx & 0x3FFFFFFL) << 38) | ((cz & 0x3FFFFFFL) << 12) | (cy & 0xFFFL);
+    }
+    
+    @Override
+    public String getStrategyName() {
+        return "merge";
+    }
+    
+    @Override
+    public String getDescription() {
+        return String.format("Merges identical item stacks within %.1f blocks instead of deleting them",
+                           configData.getItemMergeRadius());
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        ArisLogger.info("ItemMergeStrategy enabled: {}", enabled);
+    }
+    
+    /**
+     * 合并计划：一组 (目标实体ID, 来源实体ID, 转移数量) 操作，按执行顺序排列
+     */
+    public static class MergePlan {
+        private int[] targetIds = new int[16];
+        private int[] sourceIds = new int[16];
+        private int[] amounts = new int[16];
+        private boolean[] sourceConsumed = new boolean[16];
+        private int size = 0;
+        private int entitiesFolded = 0;
+        
+        void add(int targetId, int sourceId, int amount, boolean consumed) {
+            if (size == targetIds.length) {
+                int newLength = size * 2;
+                targetIds = Arrays.copyOf(targetIds, newLength);
+                sourceIds = Arrays.copyOf(sourceIds, newLength);
+                amounts = Arrays.copyOf(amounts, newLength);
+                sourceConsumed = Arrays.copyOf(sourceConsumed, newLength);
+            }
+            targetIds[size] = targetId;
+            sourceIds[size] = sourceId;
+            amounts[size] = amount;
+            sourceConsumed[size] = consumed;
+            size++;
+            if (consumed) {
+                entitiesFolded++;
+            }
+        }
+        
+        public int size() { return size; }
+        public int getTargetId(int i) { return targetIds[i]; }
+        public int getSourceId(int i) { return sourceIds[i]; }
+        public int getAmount(int i) { return amounts[i]; }
+        /** 计划中此次转移后来源实体是否被取空 */
+        public boolean isSourceConsumed(int i) { return sourceConsumed[i]; }
+        /** 计划预计减少的实体数 */
+        public int getEntitiesFolded() { return entitiesFolded; }
+        public boolean isEmpty() { return size == 0; }
+    }
+}
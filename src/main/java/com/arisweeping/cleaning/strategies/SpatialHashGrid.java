@@ -0,0 +1,201 @@
+package com.arisweeping.cleaning.strategies;
+
+import java.util.Arrays;
+
+import com.arisweeping.collections.Long2IntTable;
+
+/**
+ * 均匀空间哈希网格
+ * 
+ * 以检查半径为单元边长，把点按 (cx, cy, cz) 打包成 long 键分桶，
+ * 半径查询只需检查相邻的 3x3x3 个单元。单元表使用 {@link Long2IntTable}，点链表使用 int 数组，
+ * 插入和查询过程中不产生装箱对象；{@link #clear()} 后数组可复用
+ * 
+ * 非线程安全，每次评估使用独立实例
+ */
+public class SpatialHashGrid {
+    
+    private final double cellSize;
+    private final double inverseCellSize;
+    
+    // 点数据（按插入序号存储）
+    private double[] xs;
+    private double[] ys;
+    private double[] zs;
+    private int[] next;       // 同一单元内上一个插入的点，-1 表示链尾
+    private int[] pointCell;  // 点所在单元的序号
+    private int size = 0;
+    
+    // 单元表：键 -> 单元序号，单元序号 -> 链头
+    private final Long2IntTable cells;
+    private int[] cellHeads;
+    private int[] cellSizes;
+    private int cellCount = 0;
+    
+    public SpatialHashGrid(double cellSize, int expectedSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0 / cellSize;
+        
+        int capacity = Math.max(16, expectedSize);
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.zs = new double[capacity];
+        this.next = new int[capacity];
+        this.pointCell = new int[capacity];
+        
+        this.cells = new Long2IntTable(capacity);
+        this.cells.defaultReturnValue(-1);
+        this.cellHeads = new int[capacity];
+        this.cellSizes = new int[capacity];
+    }
+    
+    /**
+     * 插入一个点
+     * 
+     * @return 点的序号（按插入顺序从0开始）
+     */
+    public int insert(double x, double y, double z) {
+        if (size == xs.length) {
+            growPoints();
+        }
+        
+        int index = size++;
+        xs[index] = x;
+        ys[index] = y;
+        zs[index] = z;
+        
+        int cell = findOrCreateCell(cellKey(cellCoord(x), cellCoord(y), cellCoord(z)));
+        next[index] = cellHeads[cell];
+        cellHeads[cell] = index;
+        cellSizes[cell]++;
+        pointCell[index] = cell;
+        return index;
+    }
+    
+    /**
+     * 统计以 (x, y, z) 为球心、radius 为半径的球内的点数，达到 limit 后立即返回
+     * 
+     * @param limit 计数上限，传入 Integer.MAX_VALUE 表示精确计数
+     */
+    public int countWithin(double x, double y, double z, double radius, int limit) {
+        if (limit <= 0 || size == 0) {
+            return 0;
+        }
+        
+        double radiusSq = radius * radius;
+        int span = Math.max(1, (int) Math.ceil(radius * inverseCellSize));
+        int cx = cellCoord(x);
+        int cy = cellCoord(y);
+        int cz = cellCoord(z);
+        int count = 0;
+        
+        for (int dx = -span; dx <= span; dx++) {
+            for (int dz = -span; dz <= span; dz++) {
+                for (int dy = -span; dy <= span; dy++) {
+                    int cell = cells.get(cellKey(cx + dx, cy + dy, cz + dz));
+                    if (cell < 0) {
+                        continue;
+                    }
+                    
+                    for (int i = cellHeads[cell]; i >= 0; i = next[i]) {
+                        double ox = xs[i] - x;
+                        double oy = ys[i] - y;
+                        double oz = zs[i] - z;
+                        if (ox * ox + oy * oy + oz * oz <= radiusSq && ++count >= limit) {
+                            return count;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 统计已插入的第 index 个点周围半径内的点数（包含自身）
+     */
+    public int countAround(int index, double radius, int limit) {
+        return countWithin(xs[index], ys[index], zs[index], radius, limit);
+    }
+    
+    /**
+     * 清空网格，保留已分配的数组供下次复用
+     */
+    public void clear() {
+        cells.clear();
+        size = 0;
+        cellCount = 0;
+    }
+    
+    /**
+     * 已插入的点数
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 非空单元数
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+    
+    /**
+     * 第 index 个点所在单元的序号（0 到 getCellCount()-1）
+     */
+    public int getCellOf(int index) {
+        return pointCell[index];
+    }
+    
+    /**
+     * 指定单元内的点数
+     */
+    public int getCellSize(int cell) {
+        return cellSizes[cell];
+    }
+    
+    public double getCellSize() {
+        return cellSize;
+    }
+    
+    private int cellCoord(double value) {
+        return (int) Math.floor(value * inverseCellSize);
+    }
+    
+    /**
+     * 打包单元坐标：x、z 各26位，y 12位
+     */
+    private static long cellKey(int cx, int cy, int cz) {
+        return ((long) (cx & 0x3FFFFFF) << 38) | ((long) (cz & 0x3FFFFFF) << 12) | (cy & 0xFFF);
+    }
+    
+    private int findOrCreateCell(long key) {
+        int existing = cells.putIfAbsent(key, cellCount);
+        if (existing >= 0) {
+            return existing;
+        }
+        
+        int cell = cellCount++;
+        if (cell == cellHeads.length) {
+            int newLength = cellHeads.length * 2;
+            cellHeads = Arrays.copyOf(cellHeads, newLength);
+            cellSizes = Arrays.copyOf(cellSizes, newLength);
+        }
+        cellHeads[cell] = -1;
+        cellSizes[cell] = 0;
+        return cell;
+    }
+    
+    private void growPoints() {
+        int newLength = xs.length * 2;
+        xs = Arrays.copyOf(xs, newLength);
+        ys = Arrays.copyOf(ys, newLength);
+        zs = Arrays.copyOf(zs, newLength);
+        next = Arrays.copyOf(next, newLength);
+        pointCell = Arrays.copyOf(pointCell, newLength);
+    }
+}
@@ -6,6 +6,9 @@ import com.arisweeping.data.ConfigData;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.arisweeping.async.SnapshotKernels;
+import com.arisweeping.cleaning.EntitySnapshot;
+
 /**
  * 基于时间的清理策略
  * 
@@ -38,6 +41,19 @@ public class TimeBasedStrategy implements CleaningStrategy {
             .collect(Collectors.toList());
     }
     
+    /**
+     * 快照版本：存在时间达到物品年龄阈值的实体被清理
+     */
+    @Override
+    public int[] applyStrategy(EntitySnapshot snapshot, int[] candidates, SnapshotKernels kernels) {
+        if (!enabled || candidates.length == 0) {
+            return candidates;
+        }
+        
+        int ageThreshold = configData.getItemAgeThreshold();
+        return kernels.filter(snapshot, candidates, (s, i) -> s.getAge(i) >= ageThreshold);
+    }
+    
     @Override
     public String getStrategyName() {
         return "time";
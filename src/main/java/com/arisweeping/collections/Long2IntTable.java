@@ -0,0 +1,127 @@
+package com.arisweeping.collections;
+
+/**
+ * long 键 -> int 值的开放寻址哈希表
+ * 
+ * 键不存在时读取返回 {@link #defaultReturnValue()}（默认0），可直接用作计数器
+ */
+public class Long2IntTable extends LongHashTable {
+    
+    private int[] values;
+    private int[] oldValues;
+    private int defaultReturnValue = 0;
+    
+    public Long2IntTable() {
+        this(16);
+    }
+    
+    public Long2IntTable(int expectedSize) {
+        super(expectedSize);
+        this.values = new int[capacity()];
+    }
+    
+    /**
+     * 设置键不存在时的返回值
+     */
+    public void defaultReturnValue(int value) {
+        this.defaultReturnValue = value;
+    }
+    
+    public int defaultReturnValue() {
+        return defaultReturnValue;
+    }
+    
+    public int get(long key) {
+        int slot = indexOf(key);
+        return slot >= 0 ? values[slot] : defaultReturnValue;
+    }
+    
+    /**
+     * 写入值
+     * 
+     * @return 原值，键不存在时返回默认值
+     */
+    public int put(long key, int value) {
+        int slot = insert(key);
+        if (slot < 0) {
+            values[~slot] = value;
+            return defaultReturnValue;
+        }
+        int previous = values[slot];
+        values[slot] = value;
+        return previous;
+    }
+    
+    /**
+     * 键不存在时写入值
+     * 
+     * @return 已有的值，新写入时返回默认值
+     */
+    public int putIfAbsent(long key, int value) {
+        int slot = insert(key);
+        if (slot < 0) {
+            values[~slot] = value;
+            return defaultReturnValue;
+        }
+        return values[slot];
+    }
+    
+    /**
+     * 在原值（不存在时为默认值）上累加
+     * 
+     * @return 累加前的值
+     */
+    public int addTo(long key, int delta) {
+        int slot = insert(key);
+        if (slot < 0) {
+            values[~slot] = defaultReturnValue + delta;
+            return defaultReturnValue;
+        }
+        int previous = values[slot];
+        values[slot] = previous + delta;
+        return previous;
+    }
+    
+    /**
+     * 删除键
+     * 
+     * @return 原值，键不存在时返回默认值
+     */
+    public int remove(long key) {
+        int slot = indexOf(key);
+        if (slot < 0) {
+            return defaultReturnValue;
+        }
+        int previous = values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+    
+    /**
+     * 已占用槽位上的值
+     */
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+    
+    @Override
+    protected void beginRehash(int newCapacity) {
+        oldValues = values;
+        values = new int[newCapacity];
+    }
+    
+    @Override
+    protected void rehashValue(int oldSlot, int newSlot) {
+        values[newSlot] = oldValues[oldSlot];
+    }
+    
+    @Override
+    protected void finishRehash() {
+        oldValues = null;
+    }
+    
+    @Override
+    protected void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+}
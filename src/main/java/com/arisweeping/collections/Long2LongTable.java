@@ -0,0 +1,127 @@
+package com.arisweeping.collections;
+
+/**
+ * long 键 -> long 值的开放寻址哈希表
+ * 
+ * 键不存在时读取返回 {@link #defaultReturnValue()}（默认0），可直接用作计数器
+ */
+public class Long2LongTable extends LongHashTable {
+    
+    private long[] values;
+    private long[] oldValues;
+    private long defaultReturnValue = 0;
+    
+    public Long2LongTable() {
+        this(16);
+    }
+    
+    public Long2LongTable(int expectedSize) {
+        super(expectedSize);
+        this.values = new long[capacity()];
+    }
+    
+    /**
+     * 设置键不存在时的返回值
+     */
+    public void defaultReturnValue(long value) {
+        this.defaultReturnValue = value;
+    }
+    
+    public long defaultReturnValue() {
+        return defaultReturnValue;
+    }
+    
+    public long get(long key) {
+        int slot = indexOf(key);
+        return slot >= 0 ? values[slot] : defaultReturnValue;
+    }
+    
+    /**
+     * 写入值
+     * 
+     * @return 原值，键不存在时返回默认值
+     */
+    public long put(long key, long value) {
+        int slot = insert(key);
+        if (slot < 0) {
+            values[~slot] = value;
+            return defaultReturnValue;
+        }
+        long previous = values[slot];
+        values[slot] = value;
+        return previous;
+    }
+    
+    /**
+     * 键不存在时写入值
+     * 
+     * @return 已有的值，新写入时返回默认值
+     */
+    public long putIfAbsent(long key, long value) {
+        int slot = insert(key);
+        if (slot < 0) {
+            values[~slot] = value;
+            return defaultReturnValue;
+        }
+        return values[slot];
+    }
+    
+    /**
+     * 在原值（不存在时为默认值）上累加
+     * 
+     * @return 累加前的值
+     */
+    public long addTo(long key, long delta) {
+        int slot = insert(key);
+        if (slot < 0) {
+            values[~slot] = defaultReturnValue + delta;
+            return defaultReturnValue;
+        }
+        long previous = values[slot];
+        values[slot] = previous + delta;
+        return previous;
+    }
+    
+    /**
+     * 删除键
+     * 
+     * @return 原值，键不存在时返回默认值
+     */
+    public long remove(long key) {
+        int slot = indexOf(key);
+        if (slot < 0) {
+            return defaultReturnValue;
+        }
+        long previous = values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+    
+    /**
+     * 已占用槽位上的值
+     */
+    public long valueAt(int slot) {
+        return values[slot];
+    }
+    
+    @Override
+    protected void beginRehash(int newCapacity) {
+        oldValues = values;
+        values = new long[newCapacity];
+    }
+    
+    @Override
+    protected void rehashValue(int oldSlot, int newSlot) {
+        values[newSlot] = oldValues[oldSlot];
+    }
+    
+    @Override
+    protected void finishRehash() {
+        oldValues = null;
+    }
+    
+    @Override
+    protected void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+}
@@ -0,0 +1,154 @@
+package com.arisweeping.collections;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * long 键 -> 对象值的开放寻址哈希表
+ * 
+ * 与基本类型值的表不同，{@link #clear()} 会把值数组置空以释放对象引用，但数组本身仍然保留复用
+ */
+public class Long2ObjectTable<V> extends LongHashTable {
+    
+    private Object[] values;
+    private Object[] oldValues;
+    
+    public Long2ObjectTable() {
+        this(16);
+    }
+    
+    public Long2ObjectTable(int expectedSize) {
+        super(expectedSize);
+        this.values = new Object[capacity()];
+    }
+    
+    /**
+     * 获取值，键不存在时返回null
+     */
+    public V get(long key) {
+        int slot = indexOf(key);
+        return slot >= 0 ? valueAt(slot) : null;
+    }
+    
+    /**
+     * 写入值
+     * 
+     * @return 原值，键不存在时返回null
+     */
+    public V put(long key, V value) {
+        int slot = insert(key);
+        if (slot < 0) {
+            values[~slot] = value;
+            return null;
+        }
+        V previous = valueAt(slot);
+        values[slot] = value;
+        return previous;
+    }
+    
+    /**
+     * 获取值，键不存在时用 factory 创建并写入
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> factory) {
+        int slot = indexOf(key);
+        if (slot >= 0) {
+            return valueAt(slot);
+        }
+        V value = factory.apply(key);
+        values[~insert(key)] = value;
+        return value;
+    }
+    
+    /**
+     * 删除键
+     * 
+     * @return 原值，键不存在时返回null
+     */
+    public V remove(long key) {
+        int slot = indexOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = valueAt(slot);
+        removeSlot(slot);
+        return previous;
+    }
+    
+    /**
+     * 仅当键当前映射到指定对象时删除
+     */
+    public boolean remove(long key, V value) {
+        int slot = indexOf(key);
+        if (slot < 0 || values[slot] != value) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+    
+    /**
+     * 删除所有满足条件的值
+     * 
+     * 删除补位可能把已检查过的条目移到当前位置，因此同一个值可能被检查不止一次，条件应当是幂等的
+     * 
+     * @return 删除的条目数
+     */
+    public int removeIf(Predicate<? super V> predicate) {
+        int removed = 0;
+        int slot = nextSlot(-1);
+        while (slot >= 0) {
+            if (predicate.test(valueAt(slot))) {
+                removeSlot(slot);
+                removed++;
+                if (isOccupied(slot)) {
+                    continue; // 后面的条目补到了当前槽位
+                }
+            }
+            slot = nextSlot(slot);
+        }
+        return removed;
+    }
+    
+    /**
+     * 已占用槽位上的值
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+    
+    @Override
+    public void clear() {
+        if (!isEmpty()) {
+            Arrays.fill(values, null);
+        }
+        super.clear();
+    }
+    
+    @Override
+    protected void beginRehash(int newCapacity) {
+        oldValues = values;
+        values = new Object[newCapacity];
+    }
+    
+    @Override
+    protected void rehashValue(int oldSlot, int newSlot) {
+        values[newSlot] = oldValues[oldSlot];
+    }
+    
+    @Override
+    protected void finishRehash() {
+        oldValues = null;
+    }
+    
+    @Override
+    protected void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+    
+    @Override
+    protected void releaseValue(int slot) {
+        values[slot] = null;
+    }
+}
@@ -0,0 +1,228 @@
+package com.arisweeping.collections;
+
+import java.util.Arrays;
+
+/**
+ * long 键开放寻址哈希表的公共部分
+ * 
+ * 线性探测，负载因子0.5。槽位是否占用由代数标记判断：{@link #clear()} 只递增代数，
+ * 不释放也不填充数组，反复清空复用时既不产生垃圾也没有 O(容量) 的开销。
+ * 删除采用后移补位，不留墓碑，因此任意 long 值（包括0和负数）都可以作为键
+ * 
+ * 遍历使用槽位游标，不分配迭代器对象：
+ * <pre>
+ * for (int slot = table.nextSlot(-1); slot >= 0; slot = table.nextSlot(slot)) {
+ *     long key = table.keyAt(slot);
+ * }
+ * </pre>
+ * 
+ * 非线程安全
+ */
+public abstract class LongHashTable {
+    
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MIN_CAPACITY = 16;
+    
+    private long[] keys;
+    private int[] stamps;
+    private int stamp = 1;
+    private int mask;
+    private int size;
+    
+    protected LongHashTable(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        this.keys = new long[capacity];
+        this.stamps = new int[capacity];
+        this.mask = capacity - 1;
+    }
+    
+    /**
+     * 条目数
+     */
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * 当前槽位数组的长度
+     */
+    public int capacity() {
+        return keys.length;
+    }
+    
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+    
+    /**
+     * 清空所有条目，保留已分配的数组供复用
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        size = 0;
+        if (++stamp == 0) {
+            // 代数回绕：只有这时才需要真正清零标记数组
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+    
+    // ==================== 槽位游标 ====================
+    
+    /**
+     * 返回 slot 之后的下一个已占用槽位，没有时返回-1；从头开始遍历时传入-1
+     */
+    public int nextSlot(int slot) {
+        for (int i = slot + 1; i < stamps.length; i++) {
+            if (stamps[i] == stamp) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 槽位是否已占用
+     */
+    public boolean isOccupied(int slot) {
+        return stamps[slot] == stamp;
+    }
+    
+    /**
+     * 已占用槽位上的键
+     */
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+    
+    // ==================== 子类使用的槽位操作 ====================
+    
+    /**
+     * 查找键所在的槽位，不存在时返回-1
+     */
+    protected final int indexOf(long key) {
+        int slot = mix(key) & mask;
+        while (stamps[slot] == stamp) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+    
+    /**
+     * 查找或占用键的槽位
+     * 
+     * @return 键已存在时返回其槽位；新占用时返回 ~槽位（负数），调用方负责写入初始值
+     */
+    protected final int insert(long key) {
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            grow();
+        }
+        
+        int slot = mix(key) & mask;
+        while (stamps[slot] == stamp) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        stamps[slot] = stamp;
+        size++;
+        return ~slot;
+    }
+    
+    /**
+     * 删除槽位上的条目，并把后续探测链上的条目前移补位
+     * 
+     * 删除后 slot 可能被后面的条目占用，边遍历边删除时应重新检查同一槽位
+     */
+    protected final void removeSlot(int slot) {
+        size--;
+        int gap = slot;
+        int current = (slot + 1) & mask;
+        while (stamps[current] == stamp) {
+            int home = mix(keys[current]) & mask;
+            // 只有当空位落在该条目的 [home, current) 探测区间内时才能前移
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                keys[gap] = keys[current];
+                moveValue(current, gap);
+                gap = current;
+            }
+            current = (current + 1) & mask;
+        }
+        stamps[gap] = 0;
+        releaseValue(gap);
+    }
+    
+    /**
+     * 值数组扩容：分配新容量的值数组，旧数组保留到 {@link #finishRehash()}
+     */
+    protected abstract void beginRehash(int newCapacity);
+    
+    /**
+     * 把旧值数组中的值复制到新值数组
+     */
+    protected abstract void rehashValue(int oldSlot, int newSlot);
+    
+    /**
+     * 扩容结束，丢弃旧值数组
+     */
+    protected abstract void finishRehash();
+    
+    /**
+     * 在当前值数组内移动值（删除补位时使用）
+     */
+    protected abstract void moveValue(int from, int to);
+    
+    /**
+     * 槽位被释放，对象值应在这里清除引用
+     */
+    protected void releaseValue(int slot) {
+    }
+    
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldStamps = stamps;
+        int oldStamp = stamp;
+        int capacity = oldKeys.length * 2;
+        
+        keys = new long[capacity];
+        stamps = new int[capacity];
+        stamp = 1;
+        mask = capacity - 1;
+        beginRehash(capacity);
+        
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] != oldStamp) {
+                continue;
+            }
+            int slot = mix(oldKeys[i]) & mask;
+            while (stamps[slot] == stamp) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            stamps[slot] = stamp;
+            rehashValue(i, slot);
+        }
+        finishRehash();
+    }
+    
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    private static int tableSizeFor(int expected) {
+        int needed = (int) Math.ceil(Math.max(1, expected) / LOAD_FACTOR);
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+}
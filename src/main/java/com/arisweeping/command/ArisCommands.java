@@ -0,0 +1,141 @@
+package com.arisweeping.command;
+
+import java.util.List;
+
+import com.arisweeping.cleaning.HotChunkTracker;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.core.Constants;
+import com.arisweeping.monitoring.EntityTickProfiler;
+import com.arisweeping.tasks.RecycleBin;
+import com.arisweeping.tasks.RecycleBinMenu;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * 服务端命令
+ * 
+ * /arisweeping profile start [秒数] - 开始实体tick耗时分析
+ * /arisweeping profile stop - 提前结束分析并输出报告
+ * /arisweeping profile report - 输出最近一次分析报告
+ * /arisweeping recyclebin - 打开回收站
+ * /arisweeping recyclebin clear - 清空回收站
+ * /arisweeping hotchunks [数量] - 列出当前维度实体堆积最快的区块
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class ArisCommands {
+    
+    @SubscribeEvent
+    public static void onRegisterCommands(RegisterCommandsEvent event) {
+        register(event.getDispatcher());
+    }
+    
+    private static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal(ArisSweepingMod.MODID)
+            .requires(source -> source.hasPermission(2))
+            .then(Commands.literal("profile")
+                .then(Commands.literal("start")
+                    .executes(context -> startProfiling(context, Constants.Monitoring.DEFAULT_PROFILE_WINDOW_SECONDS))
+                    .then(Commands.argument("seconds", IntegerArgumentType.integer(1, Constants.Monitoring.MAX_PROFILE_WINDOW_SECONDS))
+                        .executes(context -> startProfiling(context, IntegerArgumentType.getInteger(context, "seconds")))))
+                .then(Commands.literal("stop")
+                    .executes(ArisCommands::stopProfiling))
+                .then(Commands.literal("report")
+                    .executes(ArisCommands::showReport)))
+            .then(Commands.literal("recyclebin")
+                .executes(ArisCommands::openRecycleBin)
+                .then(Commands.literal("clear")
+                    .executes(ArisCommands::clearRecycleBin)))
+            .then(Commands.literal("hotchunks")
+                .executes(context -> showHotChunks(context, Constants.HotChunks.DEFAULT_REPORT_CHUNKS))
+                .then(Commands.argument("count", IntegerArgumentType.integer(1, Constants.HotChunks.MAX_REPORT_CHUNKS))
+                    .executes(context -> showHotChunks(context, IntegerArgumentType.getInteger(context, "count"))))));
+    }
+    
+    private static int startProfiling(CommandContext<CommandSourceStack> context, int seconds) {
+        if (!EntityTickProfiler.getInstance().start(seconds)) {
+            context.getSource().sendFailure(Component.translatable("commands.arisweeping.profile.already_running"));
+            return 0;
+        }
+        context.getSource().sendSuccess(() -> Component.translatable("commands.arisweeping.profile.started", seconds), true);
+        return 1;
+    }
+    
+    private static int stopProfiling(CommandContext<CommandSourceStack> context) {
+        EntityTickProfiler.ProfileReport report = EntityTickProfiler.getInstance().stop();
+        if (report == null) {
+            context.getSource().sendFailure(Component.translatable("commands.arisweeping.profile.not_running"));
+            return 0;
+        }
+        sendReport(context.getSource(), report);
+        return 1;
+    }
+    
+    private static int showReport(CommandContext<CommandSourceStack> context) {
+        EntityTickProfiler profiler = EntityTickProfiler.getInstance();
+        EntityTickProfiler.ProfileReport report = profiler.getLastReport();
+        if (report == null) {
+            context.getSource().sendFailure(Component.translatable(profiler.isRunning()
+                ? "commands.arisweeping.profile.in_progress" : "commands.arisweeping.profile.no_report"));
+            return 0;
+        }
+        sendReport(context.getSource(), report);
+        return 1;
+    }
+    
+    private static int openRecycleBin(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        RecycleBinMenu.open(context.getSource().getPlayerOrException());
+        return 1;
+    }
+    
+    private static int clearRecycleBin(CommandContext<CommandSourceStack> context) {
+        RecycleBin bin = RecycleBin.getInstance();
+        long cleared = bin.getTotalItems();
+        bin.clear();
+        context.getSource().sendSuccess(() -> Component.translatable("commands.arisweeping.recycle_bin.cleared", cleared), true);
+        return 1;
+    }
+    
+    private static int showHotChunks(CommandContext<CommandSourceStack> context, int count) {
+        CommandSourceStack source = context.getSource();
+        ServerLevel level = source.getLevel();
+        HotChunkTracker tracker = HotChunkTracker.getInstance();
+        List<HotChunkTracker.HotChunk> chunks = tracker.getTopChunks(level, count);
+        if (chunks.isEmpty()) {
+            source.sendFailure(Component.translatable("commands.arisweeping.hot_chunks.none",
+                level.dimension().location().toString()));
+            return 0;
+        }
+        
+        source.sendSuccess(() -> Component.translatable("commands.arisweeping.hot_chunks.header",
+            level.dimension().location().toString(), tracker.getTrackedChunkCount(level)), false);
+        for (HotChunkTracker.HotChunk chunk : chunks) {
+            source.sendSuccess(() -> Component.literal(chunk.toString()), false);
+        }
+        return chunks.size();
+    }
+    
+    private static void sendReport(CommandSourceStack source, EntityTickProfiler.ProfileReport report) {
+        source.sendSuccess(() -> Component.translatable("commands.arisweeping.profile.report_header",
+            String.format("%.1f", report.getWindowNanos() / 1_000_000_000.0)), false);
+        
+        source.sendSuccess(() -> Component.translatable("commands.arisweeping.profile.top_types"), false);
+        for (EntityTickProfiler.TypeCost cost : report.getTopTypes()) {
+            source.sendSuccess(() -> Component.literal(cost.toString()), false);
+        }
+        
+        source.sendSuccess(() -> Component.translatable("commands.arisweeping.profile.top_chunks"), false);
+        for (EntityTickProfiler.ChunkCost cost : report.getTopChunks()) {
+            source.sendSuccess(() -> Component.literal(cost.toString()), false);
+        }
+    }
+}
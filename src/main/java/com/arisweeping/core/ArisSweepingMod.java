@@ -4,6 +4,7 @@ import com.arisweeping.config.Configs;
 
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.server.ServerStartingEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
@@ -41,7 +42,7 @@ public class ArisSweepingMod {
         // 注册模组事件总线
         FMLJavaModLoadingContext.get().getModEventBus().addListener(this::commonSetup);
         
-        // 注册Forge事件总线
+        // 注册Forge事件总线 - 按实例注册，只有实例方法上的 @SubscribeEvent 会被调用
         MinecraftForge.EVENT_BUS.register(this);
         
         ArisLogger.info("ArisSweeping 模组初始化完成");
@@ -79,7 +80,7 @@ public class ArisSweepingMod {
      * 服务器启动事件 - 初始化服务端组件
      */
     @SubscribeEvent
-    public static void onServerStarting(ServerStartingEvent event) {
+    public void onServerStarting(ServerStartingEvent event) {
         long startTime = System.currentTimeMillis();
         ArisLogger.logStartupPhase("SERVER", "服务器启动，初始化服务端组件...");
         
@@ -106,14 +107,25 @@ public class ArisSweepingMod {
         }
     }
     
+    /**
+     * 服务器停止事件 - 停止任务管理器（同时关闭撤销日志）
+     */
+    @SubscribeEvent
+    public void onServerStopping(ServerStoppingEvent event) {
+        if (smartTaskManager != null) {
+            smartTaskManager.stop();
+        }
+    }
+    
     /**
      * 启动清理任务调度器
+     * 
+     * 定期清理由 {@link com.arisweeping.cleaning.SweepScheduler} 在服务器tick中按自适应间隔提交
      */
     private static void scheduleCleaningTasks() {
         if (taskManager != null && smartTaskManager != null) {
             ArisLogger.debug("正在启动清理任务调度器...");
-            // 这里将在后续实现具体的调度逻辑
-            // smartTaskManager.startPeriodicCleaning();
+            smartTaskManager.start();
         }
     }
     
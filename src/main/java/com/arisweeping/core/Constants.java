@@ -20,9 +20,39 @@ public final class Constants {
         /** 撤销操作超时时间（分钟） */
         public static final long UNDO_TIMEOUT_MINUTES = 5;
         
+        /** 撤销日志分段文件大小（字节） */
+        public static final int UNDO_SEGMENT_BYTES = 16 * 1024 * 1024;
+        
+        /** 撤销恢复时提前加载的区块数量 */
+        public static final int UNDO_CHUNK_LOOKAHEAD = 8;
+        
+        /** 撤销恢复临时区块票据的存活时间（tick），恢复完成后会提前移除 */
+        public static final int UNDO_TICKET_LIFESPAN_TICKS = 600;
+        
+        /** 撤销恢复等待单个区块加载的最长时间（tick），超时后跳过该区块 */
+        public static final int UNDO_CHUNK_WAIT_TICKS = 200;
+        
+        /** 回收站区域大小的位移（方块），每个区域 2^n x 2^n 方块，与区域文件相同 */
+        public static final int RECYCLE_BIN_REGION_SHIFT = 9;
+        
+        /** 回收站最多保存的不同物品条目数（按 维度+区域+物品+标签 区分） */
+        public static final int RECYCLE_BIN_MAX_ENTRIES = 4096;
+        
         /** 任务队列最大容量 */
         public static final int MAX_TASK_QUEUE_SIZE = 1000;
         
+        /** 未指定截止时间的任务的默认期限（毫秒），从入队时起算，用于同一优先级内的排序 */
+        public static final long DEFAULT_TASK_DEADLINE_MILLIS = 10_000;
+        
+        /** 排队任务的老化间隔（毫秒）：每等待这么久，有效优先级提高一级 */
+        public static final long TASK_AGING_INTERVAL_MILLIS = 5_000;
+        
+        /** 同一优先级内按截止时间分桶的宽度（毫秒），桶内按提交顺序 */
+        public static final long DEADLINE_BUCKET_MILLIS = 100;
+        
+        /** 每个优先级保留的排队耗时样本数，用于计算百分位 */
+        public static final int QUEUE_WAIT_SAMPLE_CAPACITY = 512;
+        
         /** 任务历史最大保存数量 */
         public static final int MAX_TASK_HISTORY_SIZE = 100;
         
@@ -46,6 +76,75 @@ public final class Constants {
         
         /** 默认动物密度阈值 */
         public static final int DEFAULT_ANIMAL_DENSITY_THRESHOLD = 10;
+        
+        /** 默认物品堆叠合并半径（方块） */
+        public static final double DEFAULT_ITEM_MERGE_RADIUS = 4.0;
+        
+        /** 可挂起的清理按 2^n x 2^n 区块的区域分批，n 为此值 */
+        public static final int CLEANING_BATCH_REGION_SHIFT = 3; // 8x8区块
+    }
+    
+    // 自适应清理间隔相关常量
+    public static final class AdaptiveInterval {
+        /** 默认最小清理间隔（tick） */
+        public static final int DEFAULT_MIN_INTERVAL_TICKS = 100; // 5秒
+        
+        /** 默认最大清理间隔（tick） */
+        public static final int DEFAULT_MAX_INTERVAL_TICKS = 6000; // 5分钟
+        
+        /** 目标MSPT（毫秒），低于此值时拉长间隔 */
+        public static final double TARGET_MSPT = 40.0;
+        
+        /** 两次清理之间允许积压的掉落物和动物数量 */
+        public static final double TARGET_BACKLOG = 500.0;
+        
+        /** 清理占用主线程时间的最大比例 */
+        public static final double MAX_SWEEP_DUTY_CYCLE = 0.02;
+        
+        /** 采样间隔（tick） */
+        public static final int SAMPLE_INTERVAL_TICKS = 20;
+        
+        /** 测量值的指数平滑系数 */
+        public static final double SMOOTHING = 0.2;
+        
+        /** 每次调整向目标间隔靠近的比例 */
+        public static final double DAMPING = 0.5;
+    }
+    
+    // 热点区块追踪相关常量
+    public static final class HotChunks {
+        /** 热度半衰期（tick） */
+        public static final long HALF_LIFE_TICKS = 20 * 60 * 10; // 10分钟
+        
+        /** 最多追踪的区块数，超出时清理已冷却的区块 */
+        public static final int MAX_TRACKED_CHUNKS = 16384;
+        
+        /** 低于此热度的区块视为已冷却 */
+        public static final double MIN_HEAT = 0.05;
+        
+        /** 热点区块命令默认列出的区块数 */
+        public static final int DEFAULT_REPORT_CHUNKS = 10;
+        
+        /** 热点区块命令最多列出的区块数 */
+        public static final int MAX_REPORT_CHUNKS = 100;
+    }
+    
+    // 自定义过滤规则相关常量
+    public static final class Filters {
+        /** 未声明时规则的预期开销（纳秒） */
+        public static final double DEFAULT_RULE_COST_NANOS = 100.0;
+        
+        /** 未声明时规则的预期通过率 */
+        public static final double DEFAULT_RULE_PASS_RATE = 0.5;
+        
+        /** 实测样本达到此数量后替换声明值 */
+        public static final long MIN_LEARNING_SAMPLES = 256;
+        
+        /** 每执行多少次重新排序规则 */
+        public static final long REORDER_INTERVAL = 4096;
+        
+        /** 计时采样掩码（每64次执行计时一次） */
+        public static final long TIMING_SAMPLE_MASK = 63;
     }
     
     // 异步处理相关常量
@@ -67,6 +166,57 @@ public final class Constants {
         
         /** 队列容量 */
         public static final int TASK_QUEUE_CAPACITY = 1000;
+        
+        /** 核心和IO线程池是否按任务优先级出队（否则按提交顺序） */
+        public static final boolean PRIORITY_SCHEDULING_ENABLED = true;
+        
+        /** 优先级老化间隔（毫秒）：每高一级优先级相当于多等待了这么久，应远大于一次清理的正常耗时 */
+        public static final long PRIORITY_AGING_MILLIS = 10_000;
+    }
+    
+    // 主线程调度相关常量
+    public static final class MainThread {
+        /** 单个服务器tick的时长（纳秒） */
+        public static final long TICK_NANOS = 50_000_000L;
+        
+        /** 默认每tick主线程工作预算硬上限（微秒） */
+        public static final int DEFAULT_TICK_BUDGET_MAX_MICROS = 10_000;
+        
+        /** 默认每tick最低保证预算（微秒），防止服务器过载时工作完全停滞 */
+        public static final int DEFAULT_TICK_BUDGET_MIN_MICROS = 500;
+        
+        /** 每执行多少步检查一次剩余时间 */
+        public static final int BUDGET_CHECK_INTERVAL = 16;
+    }
+    
+    // 性能监控相关常量
+    public static final class Monitoring {
+        /** 每分钟的tick数 */
+        public static final int TICKS_PER_MINUTE = 20 * 60;
+        
+        /** tick耗时环形缓冲区容量（约1小时） */
+        public static final int TICK_SAMPLE_CAPACITY = TICKS_PER_MINUTE * 60;
+        
+        /** 默认卡顿阈值（毫秒） */
+        public static final int DEFAULT_TICK_SPIKE_THRESHOLD_MS = 100;
+        
+        /** 看门狗检查正在执行的tick的间隔（毫秒） */
+        public static final long WATCHDOG_POLL_MILLIS = 10;
+        
+        /** 两份卡顿报告之间的最短间隔（毫秒） */
+        public static final long SPIKE_REPORT_COOLDOWN_MILLIS = 30_000;
+        
+        /** 卡顿报告中每个维度列出的实体类型数 */
+        public static final int SPIKE_REPORT_TOP_TYPES = 10;
+        
+        /** 默认实体tick分析窗口（秒） */
+        public static final int DEFAULT_PROFILE_WINDOW_SECONDS = 30;
+        
+        /** 最长实体tick分析窗口（秒） */
+        public static final int MAX_PROFILE_WINDOW_SECONDS = 600;
+        
+        /** 实体tick分析报告列出的类型和区块数 */
+        public static final int PROFILE_REPORT_TOP_N = 10;
     }
     
     // 配置文件相关常量
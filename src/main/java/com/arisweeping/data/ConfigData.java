@@ -16,11 +16,16 @@ public class ConfigData {
     private boolean itemCleaningEnabled = true;
     private boolean animalCleaningEnabled = false;
     private int cleaningIntervalTicks = Constants.Cleaning.DEFAULT_CLEANING_INTERVAL_TICKS;
+    private boolean adaptiveCleaningInterval = true;
+    private int minCleaningIntervalTicks = Constants.AdaptiveInterval.DEFAULT_MIN_INTERVAL_TICKS;
+    private int maxCleaningIntervalTicks = Constants.AdaptiveInterval.DEFAULT_MAX_INTERVAL_TICKS;
     
     // 物品清理配置
     private int itemAgeThreshold = Constants.Cleaning.DEFAULT_ITEM_AGE_THRESHOLD;
     private double itemCleaningRadius = 64.0;
     private boolean respectItemWhitelist = false;
+    private boolean batchRemovalPackets = true;
+    private double itemMergeRadius = Constants.Cleaning.DEFAULT_ITEM_MERGE_RADIUS;
     
     // 动物清理配置
     private double animalDensityRadius = Constants.Cleaning.DEFAULT_ANIMAL_DENSITY_RADIUS;
@@ -28,6 +33,8 @@ public class ConfigData {
     private boolean protectBreedingAnimals = true;
     
     // 任务管理配置
+    private boolean undoEnabled = true;
+    private boolean recycleBinEnabled = false;
     private int maxUndoOperations = Constants.TaskManagement.MAX_UNDO_OPERATIONS;
     private long undoTimeoutMinutes = Constants.TaskManagement.UNDO_TIMEOUT_MINUTES;
     private boolean enableTaskHistory = true;
@@ -36,6 +43,10 @@ public class ConfigData {
     private int threadPoolSize = Constants.AsyncProcessing.CORE_THREAD_POOL_SIZE;
     private boolean enablePerformanceMonitoring = true;
     private int memoryThresholdMB = 512;
+    private int tickBudgetMaxMicros = Constants.MainThread.DEFAULT_TICK_BUDGET_MAX_MICROS;
+    private int tickBudgetMinMicros = Constants.MainThread.DEFAULT_TICK_BUDGET_MIN_MICROS;
+    private boolean captureSpikeReports = true;
+    private int tickSpikeThresholdMs = Constants.Monitoring.DEFAULT_TICK_SPIKE_THRESHOLD_MS;
     
     // GUI配置
     private boolean showHUD = true;
@@ -78,6 +89,30 @@ public class ConfigData {
         this.cleaningIntervalTicks = Math.max(20, cleaningIntervalTicks); // 最小1秒
     }
     
+    public boolean isAdaptiveCleaningInterval() {
+        return adaptiveCleaningInterval;
+    }
+    
+    public void setAdaptiveCleaningInterval(boolean adaptiveCleaningInterval) {
+        this.adaptiveCleaningInterval = adaptiveCleaningInterval;
+    }
+    
+    public int getMinCleaningIntervalTicks() {
+        return minCleaningIntervalTicks;
+    }
+    
+    public void setMinCleaningIntervalTicks(int minCleaningIntervalTicks) {
+        this.minCleaningIntervalTicks = Math.max(20, Math.min(maxCleaningIntervalTicks, minCleaningIntervalTicks));
+    }
+    
+    public int getMaxCleaningIntervalTicks() {
+        return maxCleaningIntervalTicks;
+    }
+    
+    public void setMaxCleaningIntervalTicks(int maxCleaningIntervalTicks) {
+        this.maxCleaningIntervalTicks = Math.max(minCleaningIntervalTicks, Math.min(72_000, maxCleaningIntervalTicks)); // 最长1小时
+    }
+    
     public int getItemAgeThreshold() {
         return itemAgeThreshold;
     }
@@ -102,6 +137,22 @@ public class ConfigData {
         this.respectItemWhitelist = respectItemWhitelist;
     }
     
+    public boolean isBatchRemovalPackets() {
+        return batchRemovalPackets;
+    }
+    
+    public void setBatchRemovalPackets(boolean batchRemovalPackets) {
+        this.batchRemovalPackets = batchRemovalPackets;
+    }
+    
+    public double getItemMergeRadius() {
+        return itemMergeRadius;
+    }
+    
+    public void setItemMergeRadius(double itemMergeRadius) {
+        this.itemMergeRadius = Math.max(0.5, Math.min(16.0, itemMergeRadius));
+    }
+    
     public double getAnimalDensityRadius() {
         return animalDensityRadius;
     }
@@ -126,6 +177,28 @@ public class ConfigData {
         this.protectBreedingAnimals = protectBreedingAnimals;
     }
     
+    /**
+     * 是否为清理记录撤销数据；关闭时移除实体不保存NBT
+     */
+    public boolean isUndoEnabled() {
+        return undoEnabled;
+    }
+    
+    public void setUndoEnabled(boolean undoEnabled) {
+        this.undoEnabled = undoEnabled;
+    }
+    
+    /**
+     * 是否把清理掉的物品放入回收站；开启时掉落物不再写入撤销日志，而是按物品合并计数
+     */
+    public boolean isRecycleBinEnabled() {
+        return recycleBinEnabled;
+    }
+    
+    public void setRecycleBinEnabled(boolean recycleBinEnabled) {
+        this.recycleBinEnabled = recycleBinEnabled;
+    }
+    
     public int getMaxUndoOperations() {
         return maxUndoOperations;
     }
@@ -174,6 +247,38 @@ public class ConfigData {
         this.memoryThresholdMB = Math.max(128, memoryThresholdMB);
     }
     
+    public int getTickBudgetMaxMicros() {
+        return tickBudgetMaxMicros;
+    }
+    
+    public void setTickBudgetMaxMicros(int tickBudgetMaxMicros) {
+        this.tickBudgetMaxMicros = Math.max(100, Math.min(45_000, tickBudgetMaxMicros));
+    }
+    
+    public int getTickBudgetMinMicros() {
+        return tickBudgetMinMicros;
+    }
+    
+    public void setTickBudgetMinMicros(int tickBudgetMinMicros) {
+        this.tickBudgetMinMicros = Math.max(0, Math.min(tickBudgetMaxMicros, tickBudgetMinMicros));
+    }
+    
+    public boolean isCaptureSpikeReports() {
+        return captureSpikeReports;
+    }
+    
+    public void setCaptureSpikeReports(boolean captureSpikeReports) {
+        this.captureSpikeReports = captureSpikeReports;
+    }
+    
+    public int getTickSpikeThresholdMs() {
+        return tickSpikeThresholdMs;
+    }
+    
+    public void setTickSpikeThresholdMs(int tickSpikeThresholdMs) {
+        this.tickSpikeThresholdMs = Math.max(50, Math.min(10_000, tickSpikeThresholdMs));
+    }
+    
     public boolean isShowHUD() {
         return showHUD;
     }
@@ -205,14 +310,20 @@ public class ConfigData {
         try {
             // 验证关键配置项
             if (cleaningIntervalTicks < 20) return false;
+            if (minCleaningIntervalTicks < 20 || minCleaningIntervalTicks > maxCleaningIntervalTicks) return false;
+            if (maxCleaningIntervalTicks > 72_000) return false;
             if (itemAgeThreshold < 100) return false;
             if (itemCleaningRadius <= 0 || itemCleaningRadius > Constants.Cleaning.MAX_CLEANING_RADIUS) return false;
+            if (itemMergeRadius < 0.5 || itemMergeRadius > 16.0) return false;
             if (animalDensityRadius <= 0) return false;
             if (animalDensityThreshold <= 0) return false;
             if (maxUndoOperations <= 0 || maxUndoOperations > 50) return false;
             if (undoTimeoutMinutes <= 0) return false;
             if (threadPoolSize <= 0 || threadPoolSize > Constants.AsyncProcessing.MAX_THREAD_POOL_SIZE) return false;
             if (memoryThresholdMB < 128) return false;
+            if (tickBudgetMaxMicros < 100 || tickBudgetMaxMicros > 45_000) return false;
+            if (tickBudgetMinMicros < 0 || tickBudgetMinMicros > tickBudgetMaxMicros) return false;
+            if (tickSpikeThresholdMs < 50 || tickSpikeThresholdMs > 10_000) return false;
             if (guiScale < 1 || guiScale > 4) return false;
             
             return true;
@@ -228,18 +339,29 @@ public class ConfigData {
         this.itemCleaningEnabled = true;
         this.animalCleaningEnabled = false;
         this.cleaningIntervalTicks = Constants.Cleaning.DEFAULT_CLEANING_INTERVAL_TICKS;
+        this.adaptiveCleaningInterval = true;
+        this.minCleaningIntervalTicks = Constants.AdaptiveInterval.DEFAULT_MIN_INTERVAL_TICKS;
+        this.maxCleaningIntervalTicks = Constants.AdaptiveInterval.DEFAULT_MAX_INTERVAL_TICKS;
         this.itemAgeThreshold = Constants.Cleaning.DEFAULT_ITEM_AGE_THRESHOLD;
         this.itemCleaningRadius = 64.0;
         this.respectItemWhitelist = false;
+        this.batchRemovalPackets = true;
+        this.itemMergeRadius = Constants.Cleaning.DEFAULT_ITEM_MERGE_RADIUS;
         this.animalDensityRadius = Constants.Cleaning.DEFAULT_ANIMAL_DENSITY_RADIUS;
         this.animalDensityThreshold = Constants.Cleaning.DEFAULT_ANIMAL_DENSITY_THRESHOLD;
         this.protectBreedingAnimals = true;
+        this.undoEnabled = true;
+        this.recycleBinEnabled = false;
         this.maxUndoOperations = Constants.TaskManagement.MAX_UNDO_OPERATIONS;
         this.undoTimeoutMinutes = Constants.TaskManagement.UNDO_TIMEOUT_MINUTES;
         this.enableTaskHistory = true;
         this.threadPoolSize = Constants.AsyncProcessing.CORE_THREAD_POOL_SIZE;
         this.enablePerformanceMonitoring = true;
         this.memoryThresholdMB = 512;
+        this.tickBudgetMaxMicros = Constants.MainThread.DEFAULT_TICK_BUDGET_MAX_MICROS;
+        this.tickBudgetMinMicros = Constants.MainThread.DEFAULT_TICK_BUDGET_MIN_MICROS;
+        this.captureSpikeReports = true;
+        this.tickSpikeThresholdMs = Constants.Monitoring.DEFAULT_TICK_SPIKE_THRESHOLD_MS;
         this.showHUD = true;
         this.showStatistics = true;
         this.guiScale = 1;
@@ -291,6 +413,7 @@ public class ConfigData {
         private int itemLifetimeSeconds = 300; // 5分钟
         private int chunkRange = 3;
         private int minItemCount = 10;
+        private transient volatile int listRevision = 0; // 白名单/黑名单每次修改时递增，不写入配置文件
         
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -299,10 +422,13 @@ public class ConfigData {
         public void setStrategy(String strategy) { this.strategy = strategy; }
         
         public List<String> getItemWhitelist() { return new ArrayList<>(itemWhitelist); }
-        public void setItemWhitelist(List<String> itemWhitelist) { this.itemWhitelist = new ArrayList<>(itemWhitelist); }
+        public void setItemWhitelist(List<String> itemWhitelist) { this.itemWhitelist = new ArrayList<>(itemWhitelist); listRevision++; }
         
         public List<String> getItemBlacklist() { return new ArrayList<>(itemBlacklist); }
-        public void setItemBlacklist(List<String> itemBlacklist) { this.itemBlacklist = new ArrayList<>(itemBlacklist); }
+        public void setItemBlacklist(List<String> itemBlacklist) { this.itemBlacklist = new ArrayList<>(itemBlacklist); listRevision++; }
+        
+        /** 物品列表的修改版本号，用于判断解析结果是否需要重建 */
+        public int getListRevision() { return listRevision; }
         
         public int getItemLifetimeSeconds() { return itemLifetimeSeconds; }
         public void setItemLifetimeSeconds(int itemLifetimeSeconds) { this.itemLifetimeSeconds = itemLifetimeSeconds; }
@@ -0,0 +1,60 @@
+package com.arisweeping.gametest;
+
+import com.arisweeping.cleaning.SweepScheduler;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.data.ConfigData;
+import com.arisweeping.tasks.SmartTaskManager;
+
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+
+/**
+ * 定期清理的游戏内测试
+ * 
+ * 通过 gameTestServer 运行：检查服务器启动后任务管理器已创建并运行，
+ * 并且 {@link SweepScheduler} 会在清理间隔到期后提交清理任务
+ */
+@GameTestHolder(ArisSweepingMod.MODID)
+@PrefixGameTestTemplate(false)
+public class SweepSchedulerGameTest {
+    
+    private static final int TEST_INTERVAL_TICKS = 20;
+    
+    /**
+     * 服务器启动事件应已创建并启动智能任务管理器
+     */
+    @GameTest(template = "empty")
+    public static void serverStartCreatesTaskManager(GameTestHelper helper) {
+        SmartTaskManager taskManager = ArisSweepingMod.getSmartTaskManager();
+        helper.assertTrue(taskManager != null, "SmartTaskManager was not created on server start");
+        helper.assertTrue(taskManager.isRunning(), "SmartTaskManager is not running");
+        helper.succeed();
+    }
+    
+    /**
+     * 关闭自适应间隔并使用最短间隔，清理触发器应在超时前提交至少一次清理
+     */
+    @GameTest(template = "empty", timeoutTicks = 200)
+    public static void schedulerSubmitsSweep(GameTestHelper helper) {
+        ConfigData config = ArisSweepingMod.getConfigData();
+        helper.assertTrue(config != null, "ConfigData was not created on server start");
+        
+        boolean adaptive = config.isAdaptiveCleaningInterval();
+        int interval = config.getCleaningIntervalTicks();
+        boolean cleanItems = config.itemCleaning.enabled;
+        config.setAdaptiveCleaningInterval(false);
+        config.setCleaningIntervalTicks(TEST_INTERVAL_TICKS);
+        config.itemCleaning.enabled = true;
+        
+        SweepScheduler scheduler = SweepScheduler.getInstance();
+        int before = scheduler.getSubmittedSweepCount();
+        helper.succeedWhen(() -> {
+            helper.assertTrue(scheduler.getSubmittedSweepCount() > before, "No scheduled sweep was submitted");
+            config.setAdaptiveCleaningInterval(adaptive);
+            config.setCleaningIntervalTicks(interval);
+            config.itemCleaning.enabled = cleanItems;
+        });
+    }
+}
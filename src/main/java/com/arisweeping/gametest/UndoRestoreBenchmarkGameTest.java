@@ -0,0 +1,136 @@
+package com.arisweeping.gametest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.arisweeping.cleaning.EntityRemovalInfo;
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.tasks.SmartTaskManager;
+import com.arisweeping.tasks.UndoManager;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.phys.AABB;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+
+/**
+ * 大批量撤销恢复的测量
+ * 
+ * 把 20000 条物品移除记录写入撤销日志（分布在测试原点起 64x64 格的区域，约 4x4 个区块），
+ * 然后撤销并逐tick记录服务器tick耗时，恢复完成后输出耗时的tick数、最长tick和超过50ms的tick数。
+ * 主线程每tick的切片时间和驻留记录峰值由 {@link com.arisweeping.tasks.UndoRestoreBatch} 在结束时输出
+ * 
+ * 属于 benchmark 批次且不是必需测试，失败不影响其他游戏内测试的结果
+ */
+@GameTestHolder(ArisSweepingMod.MODID)
+@PrefixGameTestTemplate(false)
+public class UndoRestoreBenchmarkGameTest {
+    
+    private static final int ENTITY_COUNT = 20_000;
+    private static final int AREA_SIZE = 64;
+    private static final long TICK_NANOS = 50_000_000L;
+    
+    @GameTest(template = "empty", batch = "benchmark", required = false, timeoutTicks = 2400)
+    public static void restoreTwentyThousandItems(GameTestHelper helper) {
+        SmartTaskManager taskManager = ArisSweepingMod.getSmartTaskManager();
+        helper.assertTrue(taskManager != null && ArisSweepingMod.getTaskManager() != null,
+            "Task managers were not created on server start");
+        
+        ServerLevel level = helper.getLevel();
+        MinecraftServer server = level.getServer();
+        BlockPos origin = helper.absolutePos(BlockPos.ZERO.above());
+        UUID taskId = UUID.randomUUID();
+        List<EntityRemovalInfo> removals = createRemovals(level, origin);
+        
+        UndoManager undoManager = taskManager.getUndoManager();
+        Measurement measurement = new Measurement();
+        CompletableFuture<UndoManager.UndoResult> undo = ArisSweepingMod.getTaskManager()
+            .submitIOTask(() -> undoManager.recordRemovals(taskId, "RESTORE_BENCHMARK", removals))
+            .thenCompose(recorded -> {
+                if (!recorded) {
+                    return CompletableFuture.completedFuture(
+                        UndoManager.UndoResult.failure(taskId, "Failed to journal benchmark removals"));
+                }
+                measurement.startTick = server.getTickCount();
+                return undoManager.performUndo(taskId);
+            });
+        
+        helper.succeedWhen(() -> {
+            if (measurement.startTick >= 0) {
+                measurement.sample(server);
+            }
+            helper.assertTrue(undo.isDone(), "Restore still running");
+            
+            UndoManager.UndoResult result = undo.join();
+            if (!measurement.reported) {
+                measurement.reported = true;
+                ArisLogger.info("Restore benchmark: {} of {} entities restored over {} ticks, "
+                        + "longest server tick {} ms, {} ticks over 50 ms",
+                    result.getRestoredCount(), ENTITY_COUNT, server.getTickCount() - measurement.startTick,
+                    measurement.maxTickNanos / 1_000_000, measurement.overloadedTicks);
+                discardRestored(level, origin);
+            }
+            helper.assertTrue(result.isSuccessful(), "Restore failed: " + result.getErrorMessage());
+            helper.assertTrue(result.getRestoredCount() == ENTITY_COUNT,
+                "Restored " + result.getRestoredCount() + " of " + ENTITY_COUNT + " entities");
+        });
+    }
+    
+    /**
+     * 用一个未加入世界的物品实体生成移除记录，每条记录使用新的UUID和位置
+     */
+    private static List<EntityRemovalInfo> createRemovals(ServerLevel level, BlockPos origin) {
+        ItemEntity template = new ItemEntity(level, origin.getX(), origin.getY(), origin.getZ(),
+            new ItemStack(Items.COBBLESTONE));
+        List<EntityRemovalInfo> removals = new ArrayList<>(ENTITY_COUNT);
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            template.setUUID(UUID.randomUUID());
+            template.setPos(origin.getX() + (i % AREA_SIZE) + 0.5, origin.getY(),
+                origin.getZ() + (i / AREA_SIZE % AREA_SIZE) + 0.5);
+            removals.add(EntityRemovalInfo.forItem(template));
+        }
+        return removals;
+    }
+    
+    private static void discardRestored(ServerLevel level, BlockPos origin) {
+        AABB area = new AABB(origin.getX(), origin.getY() - 2, origin.getZ(),
+            origin.getX() + AREA_SIZE, origin.getY() + 3, origin.getZ() + AREA_SIZE);
+        for (ItemEntity item : level.getEntitiesOfClass(ItemEntity.class, area)) {
+            item.discard();
+        }
+    }
+    
+    /**
+     * 恢复期间的服务器tick耗时（主线程访问）
+     */
+    private static class Measurement {
+        private volatile int startTick = -1;
+        private int lastSampledTick = -1;
+        private long maxTickNanos;
+        private int overloadedTicks;
+        private boolean reported;
+        
+        void sample(MinecraftServer server) {
+            int tick = server.getTickCount() - 1;
+            if (tick <= lastSampledTick || tick < startTick) {
+                return;
+            }
+            lastSampledTick = tick;
+            long nanos = server.tickTimes[tick % server.tickTimes.length];
+            maxTickNanos = Math.max(maxTickNanos, nanos);
+            if (nanos > TICK_NANOS) {
+                overloadedTicks++;
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.arisweeping.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.arisweeping.collections.Long2IntTable;
+import com.arisweeping.collections.Long2LongTable;
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.Constants;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.living.LivingEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+/**
+ * 实体tick耗时分析器
+ * 
+ * 在采样窗口内按实体类型和区块统计实体tick耗时，聚合到以注册ID/区块键为键的原始类型表中，
+ * 窗口结束后生成耗时最多的类型和区块报告。与只计数的 {@link com.arisweeping.async.ThreadSafeCounter} 互补
+ * 
+ * Forge 没有实体tick结束事件，因此以相邻两次 {@link LivingEvent.LivingTickEvent} 的时间差作为前一个实体的耗时
+ * （包含其乘客以及两者之间非生物实体的tick）。每个维度tick中第一个实体之前和最后一个实体之后的时间不计入，
+ * 避免把区块和方块实体的耗时算到实体上
+ * 
+ * 关闭时事件监听器从事件总线注销，不产生任何开销。所有方法都应在主线程调用
+ */
+public class EntityTickProfiler {
+    
+    private static final EntityTickProfiler INSTANCE = new EntityTickProfiler();
+    
+    private final Listener listener = new Listener();
+    private volatile boolean running = false;
+    private volatile ProfileReport lastReport;
+    
+    // 采样窗口（主线程访问）
+    private long windowStartNanos;
+    private long windowEndNanos;
+    private final Int2LongOpenHashMap typeNanos = new Int2LongOpenHashMap();
+    private final Int2IntOpenHashMap typeTicks = new Int2IntOpenHashMap();
+    private final Reference2ObjectOpenHashMap<ResourceKey<Level>, ChunkTable> chunkTables = new Reference2ObjectOpenHashMap<>();
+    
+    // 当前计时中的实体
+    private ServerLevel pendingLevel;
+    private int pendingTypeId = -1;
+    private long pendingChunkKey;
+    private long pendingStart;
+    
+    private EntityTickProfiler() {
+    }
+    
+    /**
+     * 获取分析器实例
+     */
+    public static EntityTickProfiler getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * 开始一个采样窗口
+     * 
+     * @return 已经在运行时返回false
+     */
+    public synchronized boolean start(int windowSeconds) {
+        if (running) {
+            return false;
+        }
+        
+        int seconds = Math.max(1, Math.min(Constants.Monitoring.MAX_PROFILE_WINDOW_SECONDS, windowSeconds));
+        typeNanos.clear();
+        typeTicks.clear();
+        clearChunkTables();
+        pendingTypeId = -1;
+        windowStartNanos = System.nanoTime();
+        windowEndNanos = windowStartNanos + seconds * 1_000_000_000L;
+        
+        running = true;
+        MinecraftForge.EVENT_BUS.register(listener);
+        ArisLogger.info("Entity tick profiler started for {}s", seconds);
+        return true;
+    }
+    
+    /**
+     * 提前结束采样窗口并生成报告
+     * 
+     * @return 未在运行时返回null
+     */
+    public synchronized ProfileReport stop() {
+        if (!running) {
+            return null;
+        }
+        
+        MinecraftForge.EVENT_BUS.unregister(listener);
+        running = false;
+        pendingTypeId = -1;
+        pendingLevel = null;
+        
+        ProfileReport report = buildReport(System.nanoTime() - windowStartNanos);
+        lastReport = report;
+        typeNanos.clear();
+        typeTicks.clear();
+        clearChunkTables();
+        ArisLogger.info("Entity tick profiler finished: {}", report.getSummary());
+        return report;
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * 获取最近一次完成的报告（可能为null）
+     */
+    public ProfileReport getLastReport() {
+        return lastReport;
+    }
+    
+    // ==================== 计时 ====================
+    
+    private void onEntityTick(Entity entity, long now) {
+        if (pendingTypeId >= 0 && pendingLevel == entity.level()) {
+            record(now - pendingStart);
+        }
+        
+        pendingLevel = (ServerLevel) entity.level();
+        pendingTypeId = BuiltInRegistries.ENTITY_TYPE.getId(entity.getType());
+        pendingChunkKey = ChunkPos.asLong(entity.getBlockX() >> 4, entity.getBlockZ() >> 4);
+        pendingStart = now;
+    }
+    
+    private void record(long nanos) {
+        typeNanos.addTo(pendingTypeId, nanos);
+        typeTicks.addTo(pendingTypeId, 1);
+        
+        ChunkTable table = chunkTables.get(pendingLevel.dimension());
+        if (table == null) {
+            table = new ChunkTable();
+            chunkTables.put(pendingLevel.dimension(), table);
+        }
+        table.nanos.addTo(pendingChunkKey, nanos);
+        table.ticks.addTo(pendingChunkKey, 1);
+    }
+    
+    /**
+     * 清空各维度的区块耗时表，保留表本身供下一个窗口复用
+     */
+    private void clearChunkTables() {
+        for (ChunkTable table : chunkTables.values()) {
+            table.nanos.clear();
+            table.ticks.clear();
+        }
+    }
+    
+    private ProfileReport buildReport(long windowNanos) {
+        int limit = Constants.Monitoring.PROFILE_REPORT_TOP_N;
+        
+        List<TypeCost> types = new ArrayList<>(typeNanos.size());
+        for (Int2LongMap.Entry entry : typeNanos.int2LongEntrySet()) {
+            EntityType<?> type = BuiltInRegistries.ENTITY_TYPE.byId(entry.getIntKey());
+            types.add(new TypeCost(EntityType.getKey(type).toString(), entry.getLongValue(),
+                typeTicks.get(entry.getIntKey())));
+        }
+        types.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        
+        List<ChunkCost> chunks = new ArrayList<>();
+        for (Reference2ObjectMap.Entry<ResourceKey<Level>, ChunkTable> levelEntry : chunkTables.reference2ObjectEntrySet()) {
+            ChunkTable table = levelEntry.getValue();
+            for (int slot = table.nanos.nextSlot(-1); slot >= 0; slot = table.nanos.nextSlot(slot)) {
+                long chunkKey = table.nanos.keyAt(slot);
+                chunks.add(new ChunkCost(levelEntry.getKey().location().toString(), new ChunkPos(chunkKey),
+                    table.nanos.valueAt(slot), table.ticks.get(chunkKey)));
+            }
+        }
+        chunks.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        
+        return new ProfileReport(windowNanos,
+            Collections.unmodifiableList(new ArrayList<>(types.subList(0, Math.min(limit, types.size())))),
+            Collections.unmodifiableList(new ArrayList<>(chunks.subList(0, Math.min(limit, chunks.size())))));
+    }
+    
+    /**
+     * 事件监听器，只在分析期间注册到事件总线
+     */
+    public class Listener {
+        @SubscribeEvent
+        public void onLevelTick(TickEvent.LevelTickEvent event) {
+            if (event.level.isClientSide) {
+                return;
+            }
+            // 维度tick的边界：丢弃尚未结束的计时
+            pendingTypeId = -1;
+            if (event.phase == TickEvent.Phase.END && System.nanoTime() >= windowEndNanos) {
+                stop();
+            }
+        }
+        
+        @SubscribeEvent
+        public void onLivingTick(LivingEvent.LivingTickEvent event) {
+            Entity entity = event.getEntity();
+            if (!entity.level().isClientSide) {
+                onEntityTick(entity, System.nanoTime());
+            }
+        }
+    }
+    
+    /**
+     * 单个维度的区块耗时表
+     */
+    private static class ChunkTable {
+        private final Long2LongTable nanos = new Long2LongTable();
+        private final Long2IntTable ticks = new Long2IntTable();
+    }
+    
+    /**
+     * 实体类型耗时
+     */
+    public static class TypeCost {
+        private final String type;
+        private final long nanos;
+        private final int ticks;
+        
+        public TypeCost(String type, long nanos, int ticks) {
+            this.type = type;
+            this.nanos = nanos;
+            this.ticks = ticks;
+        }
+        
+        public String getType() { return type; }
+        public long getNanos() { return nanos; }
+        public int getTicks() { return ticks; }
+        public double getAverageMicros() { return ticks > 0 ? nanos / 1000.0 / ticks : 0.0; }
+        
+        @Override
+        public String toString() {
+            return String.format("%s: %.2fms (%d ticks, %.1fus/tick)", type, nanos / 1_000_000.0, ticks, getAverageMicros());
+        }
+    }
+    
+    /**
+     * 区块耗时
+     */
+    public static class ChunkCost {
+        private final String dimension;
+        private final ChunkPos pos;
+        private final long nanos;
+        private final int ticks;
+        
+        public ChunkCost(String dimension, ChunkPos pos, long nanos, int ticks) {
+            this.dimension = dimension;
+            this.pos = pos;
+            this.nanos = nanos;
+            this.ticks = ticks;
+        }
+        
+        public String getDimension() { return dimension; }
+        public ChunkPos getPos() { return pos; }
+        public long getNanos() { return nanos; }
+        public int getTicks() { return ticks; }
+        
+        @Override
+        public String toString() {
+            return String.format("%s %s: %.2fms (%d entity ticks)", dimension, pos, nanos / 1_000_000.0, ticks);
+        }
+    }
+    
+    /**
+     * 采样窗口报告
+     */
+    public static class ProfileReport {
+        private final long windowNanos;
+        private final List<TypeCost> topTypes;
+        private final List<ChunkCost> topChunks;
+        private final long timestamp;
+        
+        public ProfileReport(long windowNanos, List<TypeCost> topTypes, List<ChunkCost> topChunks) {
+            this.windowNanos = windowNanos;
+            this.topTypes = topTypes;
+            this.topChunks = topChunks;
+            this.timestamp = System.currentTimeMillis();
+        }
+        
+        public long getWindowNanos() { return windowNanos; }
+        public List<TypeCost> getTopTypes() { return topTypes; }
+        public List<ChunkCost> getTopChunks() { return topChunks; }
+        public long getTimestamp() { return timestamp; }
+        
+        /**
+         * 单行摘要：耗时最多的类型和区块
+         */
+        public String getSummary() {
+            return String.format("window=%.1fs, topType=%s, topChunk=%s", windowNanos / 1_000_000_000.0,
+                topTypes.isEmpty() ? "-" : topTypes.get(0), topChunks.isEmpty() ? "-" : topChunks.get(0));
+        }
+    }
+}
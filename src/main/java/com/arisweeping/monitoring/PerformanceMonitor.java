@@ -16,8 +16,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.arisweeping.async.AsyncTaskManager;
+import com.arisweeping.async.MainThreadDrain;
 import com.arisweeping.async.ThreadSafeCounter;
+import com.arisweeping.cleaning.AdaptiveIntervalController;
 import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.Constants;
 
 /**
  * 性能监控器
@@ -248,7 +251,7 @@ public class PerformanceMonitor {
             int threadCount = threadBean.getThreadCount();
             double systemLoadAverage = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
             
-            // 估算CPU使用率（简化版）
+            // 服务器线程占用率（由tick采样器计算）
             double cpuUsage = calculateCpuUsage();
             
             // 收集模组特定指标
@@ -278,11 +281,16 @@ public class PerformanceMonitor {
     }
     
     /**
-     * 计算CPU使用率（简化估算）
+     * 计算服务器线程占用率
+     * 
+     * 使用最近1分钟实测的平均tick耗时占50ms tick周期的比例；尚无tick样本时退回系统负载估算
      */
     private double calculateCpuUsage() {
-        // 这是一个简化的CPU使用率估算
-        // 实际应用中可能需要更复杂的计算
+        TickTimeSampler.TickStats tickStats = TickTimeSampler.getInstance().getStats(Constants.Monitoring.TICKS_PER_MINUTE);
+        if (tickStats != null) {
+            return Math.min(100.0, tickStats.getMeanMspt() / 50.0 * 100.0);
+        }
+        
         double systemLoad = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
         int availableProcessors = Runtime.getRuntime().availableProcessors();
         
@@ -354,10 +362,17 @@ public class PerformanceMonitor {
         }
         
         try {
-            // 检查CPU使用率
+            // 检查服务器线程占用率
             if (current.getCpuUsage() > cpuThreshold) {
                 addAlert(PerformanceAlert.AlertLevel.WARNING,
-                        String.format("高CPU使用率: %.1f%%", current.getCpuUsage()));
+                        String.format("服务器线程占用率过高: %.1f%%", current.getCpuUsage()));
+            }
+            
+            // 检查tick耗时
+            TickTimeSampler.TickStats tickStats = getTickStats(Constants.Monitoring.TICKS_PER_MINUTE);
+            if (tickStats != null && tickStats.getP95Mspt() > 50.0) {
+                addAlert(PerformanceAlert.AlertLevel.WARNING,
+                        String.format("tick耗时过高: p95 %.1fms, TPS %.1f", tickStats.getP95Mspt(), tickStats.getMeanTps()));
             }
             
             // 检查内存使用率
@@ -492,6 +507,27 @@ public class PerformanceMonitor {
         return new ArrayList<>(recentAlerts);
     }
     
+    /**
+     * 获取最近若干tick的MSPT/TPS统计（尚无样本时返回null）
+     */
+    public TickTimeSampler.TickStats getTickStats(int windowTicks) {
+        return TickTimeSampler.getInstance().getStats(windowTicks);
+    }
+    
+    /**
+     * 获取最近一次实体tick分析报告（尚未分析过时返回null）
+     */
+    public EntityTickProfiler.ProfileReport getEntityTickProfile() {
+        return EntityTickProfiler.getInstance().getLastReport();
+    }
+    
+    /**
+     * 获取自适应清理间隔控制器（当前间隔、MSPT、实体增长速度和上次清理开销）
+     */
+    public AdaptiveIntervalController getIntervalController() {
+        return AdaptiveIntervalController.getInstance();
+    }
+    
     /**
      * 获取性能摘要报告
      */
@@ -505,7 +541,14 @@ public class PerformanceMonitor {
         summary.append("=== ArisSweeping 性能监控报告 ===\n");
         
         // 系统资源
-        summary.append(String.format("CPU使用率: %.1f%%\n", current.getCpuUsage()));
+        summary.append(String.format("服务器线程占用率: %.1f%%\n", current.getCpuUsage()));
+        
+        TickTimeSampler.TickStats minuteStats = getTickStats(Constants.Monitoring.TICKS_PER_MINUTE);
+        TickTimeSampler.TickStats hourStats = getTickStats(Constants.Monitoring.TICK_SAMPLE_CAPACITY);
+        if (minuteStats != null) {
+            summary.append(String.format("最近1分钟: %s\n", minuteStats));
+            summary.append(String.format("最近1小时: %s\n", hourStats));
+        }
         
         MemoryUsage heap = current.getHeapMemory();
         long heapUsedMB = heap.getUsed() / 1024 / 1024;
@@ -526,6 +569,26 @@ public class PerformanceMonitor {
         summary.append(String.format("总处理实体: %d\n", current.getTotalEntitiesProcessed()));
         summary.append(String.format("清理效率: %.2f entities/s\n", current.getCleaningEfficiency()));
         
+        MainThreadDrain drain = MainThreadDrain.getInstance();
+        summary.append(String.format("主线程工作: 上个tick %dus, 平均 %.1fus/tick, 待处理 %d\n",
+                drain.getLastTickMicros(), drain.getAverageTickMicros(), drain.getPendingCount()));
+        summary.append(String.format("合并移除数据包节省: %d\n",
+                ThreadSafeCounter.get(ThreadSafeCounter.REMOVE_PACKETS_SAVED)));
+        
+        AdaptiveIntervalController interval = AdaptiveIntervalController.getInstance();
+        summary.append(String.format("清理间隔: %d ticks (MSPT %.1fms, 增长 %.2f/s, 上次清理主线程 %dus)\n",
+                interval.getCurrentIntervalTicks(), interval.getSmoothedMspt(),
+                interval.getGrowthPerSecond(), interval.getLastSweepCostMicros()));
+        
+        EntityTickProfiler.ProfileReport profile = getEntityTickProfile();
+        if (profile != null) {
+            summary.append("\n--- 实体tick分析 ---\n");
+            profile.getTopTypes().stream().limit(3)
+                    .forEach(cost -> summary.append(cost).append('\n'));
+            profile.getTopChunks().stream().limit(3)
+                    .forEach(cost -> summary.append(cost).append('\n'));
+        }
+        
         // 最近警报
         List<PerformanceAlert> alerts = getRecentAlerts();
         if (!alerts.isEmpty()) {
@@ -0,0 +1,378 @@
+package com.arisweeping.monitoring;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.arisweeping.async.AsyncTaskManager;
+import com.arisweeping.cleaning.EntityCategory;
+import com.arisweeping.cleaning.EntityChunkIndex;
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.core.Constants;
+import com.arisweeping.data.ConfigData;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+/**
+ * 服务器tick耗时采样器
+ * 
+ * 在 {@link TickEvent.ServerTickEvent} 的开始和结束之间测量每个tick的耗时，写入预分配的环形缓冲区（约一小时），
+ * 用于计算滚动的MSPT/TPS百分位数。采样本身只有两次 System.nanoTime 和两次数组写入
+ * 
+ * tick耗时超过阈值时生成卡顿报告：看门狗线程在tick仍在执行时抓取服务器线程的调用栈，
+ * tick结束后主线程统计实体分布，报告由IO线程写入文件
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class TickTimeSampler {
+    
+    private static final int CAPACITY = Constants.Monitoring.TICK_SAMPLE_CAPACITY;
+    private static final TickTimeSampler INSTANCE = new TickTimeSampler();
+    
+    // 环形缓冲区（只由主线程写入）
+    private final long[] durations = new long[CAPACITY];
+    private final long[] intervals = new long[CAPACITY];
+    private volatile long recordedTicks = 0;
+    
+    // 统计时使用的排序缓冲区
+    private final long[] scratch = new long[CAPACITY];
+    
+    // 当前tick状态
+    private volatile long currentTickStart = 0; // 0 表示不在tick中
+    private volatile long tickSequence = 0;
+    private long lastTickStart = 0;
+    
+    // 卡顿捕获
+    private volatile Thread serverThread;
+    private volatile StackTraceElement[] spikeStack;
+    private volatile long spikeStackSequence = -1;
+    private ScheduledExecutorService watchdog;
+    private long lastReportMillis = 0;
+    
+    private TickTimeSampler() {
+    }
+    
+    /**
+     * 获取采样器实例
+     */
+    public static TickTimeSampler getInstance() {
+        return INSTANCE;
+    }
+    
+    // ==================== 事件处理 ====================
+    
+    @SubscribeEvent(priority = EventPriority.HIGHEST)
+    public static void onServerTickStart(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            INSTANCE.onTickStart();
+        }
+    }
+    
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onServerTickEnd(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            INSTANCE.onTickEnd();
+        }
+    }
+    
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        INSTANCE.stopWatchdog();
+    }
+    
+    private void onTickStart() {
+        long now = System.nanoTime();
+        if (serverThread == null) {
+            serverThread = Thread.currentThread();
+            startWatchdog();
+        }
+        
+        tickSequence++;
+        currentTickStart = now;
+    }
+    
+    private void onTickEnd() {
+        long start = currentTickStart;
+        if (start == 0) {
+            return;
+        }
+        
+        long now = System.nanoTime();
+        long duration = now - start;
+        int slot = (int) (recordedTicks % CAPACITY);
+        durations[slot] = duration;
+        intervals[slot] = lastTickStart > 0 ? start - lastTickStart : 0;
+        lastTickStart = start;
+        currentTickStart = 0;
+        recordedTicks++; // volatile写入，发布本次样本
+        
+        ConfigData config = ArisSweepingMod.getConfigData();
+        if (config != null && config.isCaptureSpikeReports()
+                && duration > config.getTickSpikeThresholdMs() * 1_000_000L) {
+            onSpike(duration);
+        }
+    }
+    
+    // ==================== 卡顿捕获 ====================
+    
+    private synchronized void startWatchdog() {
+        if (watchdog != null) {
+            return;
+        }
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ArisSweeping-TickWatchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleAtFixedRate(this::checkRunningTick,
+            Constants.Monitoring.WATCHDOG_POLL_MILLIS, Constants.Monitoring.WATCHDOG_POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    private synchronized void stopWatchdog() {
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            watchdog = null;
+        }
+        serverThread = null;
+        currentTickStart = 0;
+        lastTickStart = 0;
+    }
+    
+    /**
+     * 看门狗：tick执行时间超过阈值时抓取一次服务器线程调用栈
+     */
+    private void checkRunningTick() {
+        long start = currentTickStart;
+        long sequence = tickSequence;
+        Thread thread = serverThread;
+        ConfigData config = ArisSweepingMod.getConfigData();
+        if (start == 0 || thread == null || config == null || !config.isCaptureSpikeReports()
+                || spikeStackSequence == sequence) {
+            return;
+        }
+        
+        if (System.nanoTime() - start > config.getTickSpikeThresholdMs() * 1_000_000L) {
+            try {
+                spikeStack = thread.getStackTrace();
+                spikeStackSequence = sequence;
+            } catch (SecurityException e) {
+                ArisLogger.debug("Failed to capture server thread stack: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 卡顿tick结束（主线程）：统计实体分布并交给IO线程写入报告
+     */
+    private void onSpike(long durationNanos) {
+        long nowMillis = System.currentTimeMillis();
+        if (nowMillis - lastReportMillis < Constants.Monitoring.SPIKE_REPORT_COOLDOWN_MILLIS) {
+            return;
+        }
+        lastReportMillis = nowMillis;
+        
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        StackTraceElement[] stack = spikeStackSequence == tickSequence ? spikeStack : null;
+        String report = buildReport(server, nowMillis, durationNanos, stack);
+        
+        ArisLogger.warn("Tick spike detected: {}ms, writing spike report", durationNanos / 1_000_000);
+        AsyncTaskManager taskManager = ArisSweepingMod.getTaskManager();
+        if (taskManager != null) {
+            taskManager.submitIOTask(() -> writeReport(nowMillis, report));
+        }
+    }
+    
+    private String buildReport(MinecraftServer server, long nowMillis, long durationNanos, StackTraceElement[] stack) {
+        StringBuilder report = new StringBuilder();
+        report.append("=== ArisSweeping 卡顿报告 ===\n");
+        report.append(String.format("时间: %s\n", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(nowMillis))));
+        report.append(String.format("tick耗时: %.2fms\n", durationNanos / 1_000_000.0));
+        
+        TickStats stats = getStats(Constants.Monitoring.TICKS_PER_MINUTE);
+        if (stats != null) {
+            report.append(String.format("最近1分钟: %s\n", stats));
+        }
+        
+        report.append("\n--- 服务器线程调用栈 ---\n");
+        if (stack != null) {
+            for (StackTraceElement element : stack) {
+                report.append("    at ").append(element).append('\n');
+            }
+        } else {
+            report.append("未捕获（tick在看门狗检查前已结束）\n");
+        }
+        
+        report.append("\n--- 实体分布 ---\n");
+        if (server != null) {
+            EntityChunkIndex index = EntityChunkIndex.getInstance();
+            for (ServerLevel level : server.getAllLevels()) {
+                appendCensus(report, level, index);
+            }
+        }
+        return report.toString();
+    }
+    
+    private void appendCensus(StringBuilder report, ServerLevel level, EntityChunkIndex index) {
+        Reference2IntOpenHashMap<EntityType<?>> byType = new Reference2IntOpenHashMap<>();
+        int total = 0;
+        for (Entity entity : level.getAllEntities()) {
+            byType.addTo(entity.getType(), 1);
+            total++;
+        }
+        
+        report.append(String.format("%s: 共%d个实体, 掉落物%d, 动物%d, 已索引区块%d\n",
+            level.dimension().location(), total,
+            index.getTotalCount(level, EntityCategory.ITEM),
+            index.getTotalCount(level, EntityCategory.ANIMAL),
+            index.getIndexedChunkCount(level)));
+        
+        List<Reference2IntMap.Entry<EntityType<?>>> entries = new ArrayList<>(byType.reference2IntEntrySet());
+        entries.sort((a, b) -> Integer.compare(b.getIntValue(), a.getIntValue()));
+        int limit = Math.min(entries.size(), Constants.Monitoring.SPIKE_REPORT_TOP_TYPES);
+        for (int i = 0; i < limit; i++) {
+            Reference2IntMap.Entry<EntityType<?>> entry = entries.get(i);
+            report.append(String.format("    %-40s %d\n", EntityType.getKey(entry.getKey()), entry.getIntValue()));
+        }
+    }
+    
+    private void writeReport(long nowMillis, String report) {
+        try {
+            Path dir = Paths.get("config", "aris-sweeping", "spikes");
+            Files.createDirectories(dir);
+            Path file = dir.resolve("spike-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(nowMillis)) + ".txt");
+            Files.writeString(file, report, StandardCharsets.UTF_8);
+            ArisLogger.info("Spike report written to {}", file);
+        } catch (IOException e) {
+            ArisLogger.error("Failed to write spike report", e);
+        }
+    }
+    
+    // ==================== 统计 ====================
+    
+    /**
+     * 计算最近若干tick的MSPT/TPS统计
+     * 
+     * @param windowTicks 统计窗口（tick数），超出已记录数量时使用全部样本
+     * @return 尚无样本时返回null
+     */
+    public synchronized TickStats getStats(int windowTicks) {
+        long recorded = recordedTicks;
+        int count = (int) Math.min(Math.min(windowTicks, recorded), CAPACITY);
+        if (count <= 0) {
+            return null;
+        }
+        
+        // MSPT百分位
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            long value = durations[(int) ((recorded - 1 - i) % CAPACITY)];
+            scratch[i] = value;
+            total += value;
+        }
+        Arrays.sort(scratch, 0, count);
+        double mean = total / (double) count / 1_000_000.0;
+        double p50 = percentile(scratch, count, 0.50) / 1_000_000.0;
+        double p95 = percentile(scratch, count, 0.95) / 1_000_000.0;
+        double p99 = percentile(scratch, count, 0.99) / 1_000_000.0;
+        double max = scratch[count - 1] / 1_000_000.0;
+        
+        // TPS由相邻tick开始时间的间隔计算，限制在20以内
+        int intervalCount = 0;
+        long intervalTotal = 0;
+        for (int i = 0; i < count; i++) {
+            long value = intervals[(int) ((recorded - 1 - i) % CAPACITY)];
+            if (value > 0) {
+                scratch[intervalCount++] = value;
+                intervalTotal += value;
+            }
+        }
+        double tpsMean = 20.0;
+        double tpsLow = 20.0;
+        if (intervalCount > 0) {
+            Arrays.sort(scratch, 0, intervalCount);
+            tpsMean = toTps(intervalTotal / (double) intervalCount);
+            tpsLow = toTps(percentile(scratch, intervalCount, 0.95));
+        }
+        
+        return new TickStats(count, mean, p50, p95, p99, max, tpsMean, tpsLow);
+    }
+    
+    private static long percentile(long[] sorted, int count, double p) {
+        int rank = (int) Math.ceil(p * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, rank))];
+    }
+    
+    private static double toTps(double intervalNanos) {
+        return Math.min(20.0, 1_000_000_000.0 / intervalNanos);
+    }
+    
+    /**
+     * 获取已记录的tick总数
+     */
+    public long getRecordedTicks() {
+        return recordedTicks;
+    }
+    
+    /**
+     * tick耗时统计结果
+     */
+    public static class TickStats {
+        private final int samples;
+        private final double meanMspt;
+        private final double p50Mspt;
+        private final double p95Mspt;
+        private final double p99Mspt;
+        private final double maxMspt;
+        private final double meanTps;
+        private final double lowTps;
+        
+        public TickStats(int samples, double meanMspt, double p50Mspt, double p95Mspt, double p99Mspt,
+                         double maxMspt, double meanTps, double lowTps) {
+            this.samples = samples;
+            this.meanMspt = meanMspt;
+            this.p50Mspt = p50Mspt;
+            this.p95Mspt = p95Mspt;
+            this.p99Mspt = p99Mspt;
+            this.maxMspt = maxMspt;
+            this.meanTps = meanTps;
+            this.lowTps = lowTps;
+        }
+        
+        public int getSamples() { return samples; }
+        public double getMeanMspt() { return meanMspt; }
+        public double getP50Mspt() { return p50Mspt; }
+        public double getP95Mspt() { return p95Mspt; }
+        public double getP99Mspt() { return p99Mspt; }
+        public double getMaxMspt() { return maxMspt; }
+        public double getMeanTps() { return meanTps; }
+        /** 最差5%的tick间隔对应的TPS */
+        public double getLowTps() { return lowTps; }
+        
+        @Override
+        public String toString() {
+            return String.format("MSPT avg=%.1f p50=%.1f p95=%.1f p99=%.1f max=%.1f, TPS avg=%.1f low=%.1f (%d ticks)",
+                meanMspt, p50Mspt, p95Mspt, p99Mspt, maxMspt, meanTps, lowTps, samples);
+        }
+    }
+}
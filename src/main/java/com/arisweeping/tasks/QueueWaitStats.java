@@ -0,0 +1,113 @@
+package com.arisweeping.tasks;
+
+import java.util.Arrays;
+
+import com.arisweeping.core.Constants;
+import com.arisweeping.tasks.enums.TaskPriority;
+
+/**
+ * 按优先级统计的排队耗时
+ * 
+ * 每个优先级保留最近若干次排队耗时的环形缓冲，查询时复制排序计算百分位。
+ * 记录在调度线程上进行，查询可以来自任意线程，每个优先级单独加锁
+ */
+public class QueueWaitStats {
+    
+    private static final int CAPACITY = Constants.TaskManagement.QUEUE_WAIT_SAMPLE_CAPACITY;
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+    
+    private final long[][] samples = new long[PRIORITIES.length][CAPACITY];
+    private final long[] recorded = new long[PRIORITIES.length];
+    
+    /**
+     * 记录一次排队耗时
+     */
+    public void record(TaskPriority priority, long waitNanos) {
+        int level = priority.ordinal();
+        long[] ring = samples[level];
+        synchronized (ring) {
+            ring[(int) (recorded[level] % CAPACITY)] = waitNanos;
+            recorded[level]++;
+        }
+    }
+    
+    /**
+     * 计算指定优先级最近样本的百分位，没有样本时返回null
+     */
+    public Percentiles getPercentiles(TaskPriority priority) {
+        int level = priority.ordinal();
+        long[] ring = samples[level];
+        long[] sorted;
+        long total;
+        synchronized (ring) {
+            total = recorded[level];
+            sorted = Arrays.copyOf(ring, (int) Math.min(total, CAPACITY));
+        }
+        if (sorted.length == 0) {
+            return null;
+        }
+        
+        Arrays.sort(sorted);
+        return new Percentiles(total, sorted.length,
+            percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+            sorted[sorted.length - 1]);
+    }
+    
+    private static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+    }
+    
+    /**
+     * 各优先级的百分位摘要，只包含有样本的优先级
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (int level = PRIORITIES.length - 1; level >= 0; level--) {
+            Percentiles percentiles = getPercentiles(PRIORITIES[level]);
+            if (percentiles != null) {
+                if (summary.length() > 0) {
+                    summary.append(", ");
+                }
+                summary.append(PRIORITIES[level].name()).append(percentiles);
+            }
+        }
+        return summary.length() > 0 ? summary.toString() : "no samples";
+    }
+    
+    /**
+     * 排队耗时百分位（纳秒）
+     */
+    public static final class Percentiles {
+        private final long totalCount;
+        private final int sampleCount;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long max;
+        
+        private Percentiles(long totalCount, int sampleCount, long p50, long p90, long p99, long max) {
+            this.totalCount = totalCount;
+            this.sampleCount = sampleCount;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+        
+        /** 累计记录的次数 */
+        public long getTotalCount() { return totalCount; }
+        /** 参与计算的最近样本数 */
+        public int getSampleCount() { return sampleCount; }
+        public long getP50Nanos() { return p50; }
+        public long getP90Nanos() { return p90; }
+        public long getP99Nanos() { return p99; }
+        public long getMaxNanos() { return max; }
+        
+        @Override
+        public String toString() {
+            return String.format("[p50=%.2fms, p90=%.2fms, p99=%.2fms, max=%.2fms, n=%d]",
+                p50 / 1_000_000.0, p90 / 1_000_000.0, p99 / 1_000_000.0, max / 1_000_000.0, sampleCount);
+        }
+    }
+}
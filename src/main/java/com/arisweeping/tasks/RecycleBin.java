@@ -0,0 +1,356 @@
+package com.arisweeping.tasks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.arisweeping.collections.Long2ObjectTable;
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.core.Constants;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+/**
+ * 物品回收站
+ * 
+ * 与 {@link UndoManager} 并列的另一种恢复方式：被清理的掉落物不保存位置和实体NBT，
+ * 只按 维度+区域+物品+标签 合并为计数，大量重复掉落只占一个条目。
+ * 管理员通过 {@link RecycleBinMenu} 分页取回物品
+ * 
+ * 只在服务器主线程访问。内容作为 {@link SavedData} 保存在主世界存档中，首次访问时加载，重启后不会丢失
+ */
+@Mod.EventBusSubscriber(modid = ArisSweepingMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class RecycleBin {
+    
+    private static final String DATA_NAME = "arisweeping_recycle_bin";
+    
+    private static final RecycleBin INSTANCE = new RecycleBin();
+    
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator
+        .comparing((Entry entry) -> entry.dimension)
+        .thenComparingInt(entry -> entry.regionX)
+        .thenComparingInt(entry -> entry.regionZ)
+        .thenComparing(entry -> BuiltInRegistries.ITEM.getKey(entry.key.item).toString());
+    
+    // 维度 -> 区域 -> 物品条目
+    private final Map<String, Long2ObjectTable<Map<StackKey, Entry>>> dimensions = new HashMap<>();
+    private int entryCount = 0;
+    private long totalItems = 0;
+    private long version = 0;
+    private boolean fullWarned = false;
+    private BinData data;
+    
+    private RecycleBin() {
+    }
+    
+    /**
+     * 获取回收站实例
+     */
+    public static RecycleBin getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * 服务器停止时释放内存中的内容（已随主世界存档保存）
+     */
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        INSTANCE.reset();
+        INSTANCE.data = null;
+    }
+    
+    /**
+     * 首次访问时从主世界存档加载
+     */
+    private void ensureLoaded() {
+        if (data != null) {
+            return;
+        }
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        ServerLevel overworld = server != null ? server.overworld() : null;
+        if (overworld != null) {
+            data = overworld.getDataStorage().computeIfAbsent(this::load, BinData::new, DATA_NAME);
+        }
+    }
+    
+    /**
+     * 把即将移除的掉落物计入回收站
+     * 
+     * @return 是否已收入；条目数达到上限且没有可合并的条目时返回false，调用方应改用撤销数据记录
+     */
+    public boolean add(ItemEntity itemEntity) {
+        ItemStack stack = itemEntity.getItem();
+        if (stack.isEmpty()) {
+            return true;
+        }
+        
+        ensureLoaded();
+        String dimension = itemEntity.level().dimension().location().toString();
+        int regionX = Mth.floor(itemEntity.getX()) >> Constants.TaskManagement.RECYCLE_BIN_REGION_SHIFT;
+        int regionZ = Mth.floor(itemEntity.getZ()) >> Constants.TaskManagement.RECYCLE_BIN_REGION_SHIFT;
+        Map<StackKey, Entry> region = regionOf(dimension, regionX, regionZ);
+        
+        Entry entry = region.get(new StackKey(stack.getItem(), stack.getTag()));
+        if (entry == null) {
+            if (entryCount >= Constants.TaskManagement.RECYCLE_BIN_MAX_ENTRIES) {
+                if (!fullWarned) {
+                    fullWarned = true;
+                    ArisLogger.warn("Recycle bin is full ({} entries), new item kinds fall back to undo data",
+                        entryCount);
+                }
+                if (region.isEmpty()) {
+                    dimensions.get(dimension).remove(ChunkPos.asLong(regionX, regionZ));
+                }
+                return false;
+            }
+            ItemStack template = stack.copyWithCount(1);
+            entry = new Entry(new StackKey(template.getItem(), template.getTag()), template,
+                dimension, regionX, regionZ);
+            region.put(entry.key, entry);
+            entryCount++;
+        }
+        
+        entry.count += stack.getCount();
+        totalItems += stack.getCount();
+        changed();
+        return true;
+    }
+    
+    private Map<StackKey, Entry> regionOf(String dimension, int regionX, int regionZ) {
+        return dimensions
+            .computeIfAbsent(dimension, key -> new Long2ObjectTable<>())
+            .computeIfAbsent(ChunkPos.asLong(regionX, regionZ), key -> new HashMap<>());
+    }
+    
+    /**
+     * 从条目中取出最多一组物品
+     * 
+     * @return 取出的物品，条目已空时返回空物品
+     */
+    public ItemStack take(Entry entry, int maxCount) {
+        if (entry.count <= 0) {
+            return ItemStack.EMPTY;
+        }
+        
+        int count = (int) Math.min(Math.min(entry.count, maxCount), entry.template.getMaxStackSize());
+        entry.count -= count;
+        totalItems -= count;
+        changed();
+        if (entry.count == 0) {
+            removeEntry(entry);
+        }
+        return entry.template.copyWithCount(count);
+    }
+    
+    private void removeEntry(Entry entry) {
+        Long2ObjectTable<Map<StackKey, Entry>> regions = dimensions.get(entry.dimension);
+        if (regions == null) {
+            return;
+        }
+        long regionKey = ChunkPos.asLong(entry.regionX, entry.regionZ);
+        Map<StackKey, Entry> region = regions.get(regionKey);
+        if (region != null && region.remove(entry.key, entry)) {
+            entryCount--;
+            fullWarned = false;
+            if (region.isEmpty()) {
+                regions.remove(regionKey);
+            }
+        }
+    }
+    
+    /**
+     * 当前所有条目的快照，按 维度、区域、物品ID 排序，分页时顺序稳定
+     */
+    public List<Entry> getEntries() {
+        ensureLoaded();
+        List<Entry> result = new ArrayList<>(entryCount);
+        for (Long2ObjectTable<Map<StackKey, Entry>> regions : dimensions.values()) {
+            for (int slot = regions.nextSlot(-1); slot >= 0; slot = regions.nextSlot(slot)) {
+                result.addAll(regions.valueAt(slot).values());
+            }
+        }
+        result.sort(ENTRY_ORDER);
+        return result;
+    }
+    
+    /**
+     * 清空回收站
+     */
+    public void clear() {
+        ensureLoaded();
+        reset();
+        changed();
+    }
+    
+    private void reset() {
+        dimensions.clear();
+        entryCount = 0;
+        totalItems = 0;
+        fullWarned = false;
+    }
+    
+    /**
+     * 内容变化后递增版本并标记存档需要保存
+     */
+    private void changed() {
+        version++;
+        if (data != null) {
+            data.setDirty();
+        }
+    }
+    
+    /**
+     * 内容每次变化时递增，用于判断快照是否过期
+     */
+    public long getVersion() {
+        ensureLoaded();
+        return version;
+    }
+    
+    public int getEntryCount() {
+        ensureLoaded();
+        return entryCount;
+    }
+    
+    public long getTotalItems() {
+        ensureLoaded();
+        return totalItems;
+    }
+    
+    // ==================== 存档 ====================
+    
+    /**
+     * 每个条目保存 维度、区域、物品样本和数量
+     */
+    private CompoundTag save(CompoundTag tag) {
+        ListTag list = new ListTag();
+        for (Entry entry : getEntries()) {
+            CompoundTag entryTag = new CompoundTag();
+            entryTag.putString("Dimension", entry.dimension);
+            entryTag.putInt("RegionX", entry.regionX);
+            entryTag.putInt("RegionZ", entry.regionZ);
+            entryTag.put("Item", entry.template.save(new CompoundTag()));
+            entryTag.putLong("Count", entry.count);
+            list.add(entryTag);
+        }
+        tag.put("Entries", list);
+        return tag;
+    }
+    
+    /**
+     * 读取存档中的条目；物品已不存在（如对应模组已移除）的条目被丢弃
+     */
+    private BinData load(CompoundTag tag) {
+        ListTag list = tag.getList("Entries", Tag.TAG_COMPOUND);
+        for (int i = 0; i < list.size() && entryCount < Constants.TaskManagement.RECYCLE_BIN_MAX_ENTRIES; i++) {
+            CompoundTag entryTag = list.getCompound(i);
+            ItemStack template = ItemStack.of(entryTag.getCompound("Item"));
+            long count = entryTag.getLong("Count");
+            if (template.isEmpty() || count <= 0) {
+                continue;
+            }
+            
+            String dimension = entryTag.getString("Dimension");
+            int regionX = entryTag.getInt("RegionX");
+            int regionZ = entryTag.getInt("RegionZ");
+            Map<StackKey, Entry> region = regionOf(dimension, regionX, regionZ);
+            StackKey key = new StackKey(template.getItem(), template.getTag());
+            Entry entry = region.get(key);
+            if (entry == null) {
+                entry = new Entry(key, template.copyWithCount(1), dimension, regionX, regionZ);
+                region.put(key, entry);
+                entryCount++;
+            }
+            entry.count += count;
+            totalItems += count;
+        }
+        version++;
+        
+        ArisLogger.debug("Loaded {} recycle bin entries ({} items)", entryCount, totalItems);
+        return new BinData();
+    }
+    
+    /**
+     * 主世界存档中的回收站数据，内容由回收站本身持有
+     */
+    private class BinData extends SavedData {
+        @Override
+        public CompoundTag save(CompoundTag tag) {
+            return RecycleBin.this.save(tag);
+        }
+    }
+    
+    /**
+     * 合并键：物品 + 标签，哈希值只计算一次
+     */
+    private static final class StackKey {
+        final Item item;
+        final CompoundTag tag;
+        final int hash;
+        
+        StackKey(Item item, CompoundTag tag) {
+            this.item = item;
+            this.tag = tag;
+            this.hash = 31 * System.identityHashCode(item) + Objects.hashCode(tag);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj || obj instanceof StackKey other
+                && item == other.item && hash == other.hash && Objects.equals(tag, other.tag);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    /**
+     * 回收站条目：某个区域内同种物品的总数
+     */
+    public static final class Entry {
+        private final StackKey key;
+        private final ItemStack template;
+        private final String dimension;
+        private final int regionX;
+        private final int regionZ;
+        private long count;
+        
+        private Entry(StackKey key, ItemStack template, String dimension, int regionX, int regionZ) {
+            this.key = key;
+            this.template = template;
+            this.dimension = dimension;
+            this.regionX = regionX;
+            this.regionZ = regionZ;
+        }
+        
+        /**
+         * 数量为1的物品样本，调用方不应修改
+         */
+        public ItemStack getTemplate() { return template; }
+        public String getDimension() { return dimension; }
+        public int getRegionX() { return regionX; }
+        public int getRegionZ() { return regionZ; }
+        public long getCount() { return count; }
+    }
+}
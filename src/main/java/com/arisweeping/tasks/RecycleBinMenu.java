@@ -0,0 +1,167 @@
+package com.arisweeping.tasks;
+
+import java.util.List;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.SimpleContainer;
+import net.minecraft.world.SimpleMenuProvider;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.ChestMenu;
+import net.minecraft.world.inventory.ClickType;
+import net.minecraft.world.inventory.MenuType;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+/**
+ * 回收站分页视图
+ * 
+ * 使用原版 9x6 箱子界面，客户端无需安装模组：前5行显示当前页的条目，
+ * 最后一行是翻页按钮和页码。左键取出一组，右键取出一个；界面中的物品只是展示，
+ * 点击由服务端处理后重新同步，玩家不能向其中放入物品
+ */
+public class RecycleBinMenu extends ChestMenu {
+    
+    private static final int ROWS = 6;
+    private static final int PAGE_SIZE = (ROWS - 1) * 9;
+    private static final int PREV_SLOT = PAGE_SIZE;
+    private static final int INFO_SLOT = PAGE_SIZE + 4;
+    private static final int NEXT_SLOT = PAGE_SIZE + 8;
+    
+    private final SimpleContainer display;
+    private List<RecycleBin.Entry> entries = List.of();
+    private long version = -1;
+    private int page = 0;
+    
+    private RecycleBinMenu(int containerId, Inventory inventory, SimpleContainer display) {
+        super(MenuType.GENERIC_9x6, containerId, inventory, display, ROWS);
+        this.display = display;
+        refresh();
+    }
+    
+    /**
+     * 为玩家打开回收站
+     */
+    public static void open(ServerPlayer player) {
+        player.openMenu(new SimpleMenuProvider(
+            (containerId, inventory, p) -> new RecycleBinMenu(containerId, inventory, new SimpleContainer(ROWS * 9)),
+            Component.translatable("gui.arisweeping.recycle_bin.title")));
+    }
+    
+    @Override
+    public void clicked(int slotId, int button, ClickType clickType, Player player) {
+        if (slotId < 0 || slotId >= ROWS * 9) {
+            // 玩家背包中的操作照常处理，但不允许 shift 点击移入回收站
+            if (clickType != ClickType.QUICK_MOVE) {
+                super.clicked(slotId, button, clickType, player);
+            }
+            return;
+        }
+        
+        if (slotId == PREV_SLOT) {
+            page--;
+        } else if (slotId == NEXT_SLOT) {
+            page++;
+        } else if (slotId < PAGE_SIZE && clickType != ClickType.CLONE) {
+            takeEntry(page * PAGE_SIZE + slotId, button == 1 ? 1 : Integer.MAX_VALUE, player);
+        }
+        refresh();
+        sendAllDataToRemote();
+    }
+    
+    @Override
+    public ItemStack quickMoveStack(Player player, int index) {
+        return ItemStack.EMPTY;
+    }
+    
+    @Override
+    public boolean canTakeItemForPickAll(ItemStack stack, Slot slot) {
+        return slot.container != display && super.canTakeItemForPickAll(stack, slot);
+    }
+    
+    @Override
+    public void broadcastChanges() {
+        // 其他管理员取出物品或发生新的清理时刷新当前页
+        if (version != RecycleBin.getInstance().getVersion()) {
+            refresh();
+        }
+        super.broadcastChanges();
+    }
+    
+    private void takeEntry(int index, int maxCount, Player player) {
+        if (index >= entries.size()) {
+            return;
+        }
+        ItemStack taken = RecycleBin.getInstance().take(entries.get(index), maxCount);
+        if (!taken.isEmpty() && !player.getInventory().add(taken)) {
+            player.drop(taken, false);
+        }
+    }
+    
+    /**
+     * 回收站内容变化时重新取快照，并重绘当前页
+     */
+    private void refresh() {
+        RecycleBin bin = RecycleBin.getInstance();
+        if (version != bin.getVersion()) {
+            entries = bin.getEntries();
+            version = bin.getVersion();
+        }
+        
+        int pages = Math.max(1, (entries.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        page = Math.max(0, Math.min(page, pages - 1));
+        
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            int index = page * PAGE_SIZE + i;
+            display.setItem(i, index < entries.size() ? displayStack(entries.get(index)) : ItemStack.EMPTY);
+        }
+        for (int i = PAGE_SIZE; i < ROWS * 9; i++) {
+            display.setItem(i, ItemStack.EMPTY);
+        }
+        if (page > 0) {
+            display.setItem(PREV_SLOT, named(new ItemStack(Items.ARROW),
+                Component.translatable("gui.arisweeping.recycle_bin.previous_page")));
+        }
+        if (page < pages - 1) {
+            display.setItem(NEXT_SLOT, named(new ItemStack(Items.ARROW),
+                Component.translatable("gui.arisweeping.recycle_bin.next_page")));
+        }
+        display.setItem(INFO_SLOT, named(new ItemStack(Items.PAPER),
+            Component.translatable("gui.arisweeping.recycle_bin.page", page + 1, pages),
+            Component.translatable("gui.arisweeping.recycle_bin.summary", bin.getEntryCount(), bin.getTotalItems())));
+    }
+    
+    private static ItemStack displayStack(RecycleBin.Entry entry) {
+        ItemStack template = entry.getTemplate();
+        ItemStack stack = template.copyWithCount((int) Math.min(entry.getCount(), template.getMaxStackSize()));
+        return withLore(stack,
+            Component.translatable("gui.arisweeping.recycle_bin.entry_count", entry.getCount()),
+            Component.translatable("gui.arisweeping.recycle_bin.entry_region",
+                entry.getDimension(), entry.getRegionX(), entry.getRegionZ()),
+            Component.translatable("gui.arisweeping.recycle_bin.entry_hint"));
+    }
+    
+    private static ItemStack named(ItemStack stack, Component name, Component... lore) {
+        stack.setHoverName(name);
+        return withLore(stack, lore);
+    }
+    
+    private static ItemStack withLore(ItemStack stack, Component... lines) {
+        if (lines.length == 0) {
+            return stack;
+        }
+        CompoundTag displayTag = stack.getOrCreateTagElement(ItemStack.TAG_DISPLAY);
+        ListTag lore = displayTag.getList(ItemStack.TAG_LORE, Tag.TAG_STRING);
+        for (Component line : lines) {
+            lore.add(StringTag.valueOf(Component.Serializer.toJson(line)));
+        }
+        displayTag.put(ItemStack.TAG_LORE, lore);
+        return stack;
+    }
+}
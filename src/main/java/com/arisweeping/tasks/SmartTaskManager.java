@@ -1,22 +1,48 @@
 package com.arisweeping.tasks;
 
 import com.arisweeping.async.AsyncTaskManager;
+import com.arisweeping.async.TaskCheckpoint;
+import com.arisweeping.cleaning.CleaningRequest;
+import com.arisweeping.cleaning.EntityCleaner;
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
 import com.arisweeping.core.Constants;
+import com.arisweeping.data.ConfigData;
 import com.arisweeping.tasks.enums.TaskPriority;
 import com.arisweeping.tasks.enums.TaskStatus;
 import com.arisweeping.tasks.models.TaskExecution;
 import com.arisweeping.tasks.models.TaskResult;
 
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 智能任务管理器
  * 
  * 核心任务管理系统，负责任务的提交、执行、监控和协调
  * 提供智能的任务调度和执行机制
+ * 
+ * 调度由信号驱动：提交任务或有任务结束时唤醒调度器，一次取出与空闲执行名额一样多的任务，
+ * 不再定时轮询，也没有每轮只执行一个任务的限制
+ * 
+ * 与排队中或执行中的任务指纹相同的请求不会重复排队，而是共用该任务的Future，
+ * 必要时提升该任务的优先级
+ * 
+ * 执行名额已满时，更高优先级任务的到来会请求优先级最低的运行中任务在下一个检查点让出，
+ * 该任务保留进度重新排队；暂停和恢复同样在检查点生效（见 {@link TaskCheckpoint}）
+ * 
+ * 任务可以带截止时间，同一优先级内截止时间早的先执行；排队过久的任务有效优先级逐步提高（见 {@link TaskQueue}）
  */
 public class SmartTaskManager {
     
@@ -28,19 +54,32 @@ public class SmartTaskManager {
     private final TaskQueue taskQueue;
     private final UndoManager undoManager;
     private final TaskHistoryManager historyManager;
+    private EntityCleaner entityCleaner;
+    private ConfigData cleanerConfig;
     
     // 任务状态追踪
     private final Map<UUID, TaskExecution> activeTasks = new ConcurrentHashMap<>();
+    private final Map<Object, TaskExecution> tasksByFingerprint = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedTasks = new AtomicLong(0);
     private final AtomicLong taskIdGenerator = new AtomicLong(0);
     
     // 执行控制
     private volatile boolean isRunning = false;
-    private ScheduledFuture<?> schedulerFuture;
+    private final int maxConcurrentTasks = Constants.AsyncProcessing.CORE_THREAD_POOL_SIZE;
+    private final AtomicInteger runningTasks = new AtomicInteger(0);
+    private final AtomicInteger dispatchSignals = new AtomicInteger(0);
+    
+    // 排队耗时统计
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final AtomicLong dispatchedTasks = new AtomicLong(0);
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong(0);
+    private final QueueWaitStats queueWaitStats = new QueueWaitStats();
     
     public SmartTaskManager() {
         this.asyncManager = new AsyncTaskManager();
         this.taskQueue = new TaskQueue();
         this.undoManager = new UndoManager(
+            asyncManager,
             Constants.TaskManagement.MAX_UNDO_OPERATIONS,
             Constants.TaskManagement.UNDO_TIMEOUT_MINUTES
         );
@@ -71,15 +110,10 @@ public class SmartTaskManager {
         
         isRunning = true;
         
-        // 启动任务处理调度器
-        schedulerFuture = asyncManager.scheduleAtFixedRate(
-            this::processTaskQueue, 
-            0, 
-            100, // 100ms间隔
-            TimeUnit.MILLISECONDS
-        );
+        // 执行启动前已提交的任务
+        signalDispatch();
         
-        System.out.println("SmartTaskManager started");
+        ArisLogger.info("SmartTaskManager started");
     }
     
     /**
@@ -92,10 +126,6 @@ public class SmartTaskManager {
         
         isRunning = false;
         
-        if (schedulerFuture != null) {
-            schedulerFuture.cancel(false);
-        }
-        
         // 取消所有活跃任务
         for (TaskExecution execution : activeTasks.values()) {
             if (execution.isCancellable()) {
@@ -106,10 +136,11 @@ public class SmartTaskManager {
             }
         }
         
-        // 关闭异步管理器
+        // 关闭异步管理器和撤销日志
         asyncManager.shutdown();
+        undoManager.close();
         
-        System.out.println("SmartTaskManager stopped");
+        ArisLogger.info("SmartTaskManager stopped");
     }
     
     /**
@@ -121,24 +152,99 @@ public class SmartTaskManager {
      * @return 任务执行结果的Future
      */
     public CompletableFuture<TaskResult> submitCleaningTask(String taskType, TaskPriority priority, Object requestData) {
-        UUID taskId = UUID.randomUUID();
-        long sequence = taskIdGenerator.incrementAndGet();
+        return submitCleaningTask(taskType, priority, requestData, null);
+    }
+    
+    /**
+     * 提交带截止时间的清理任务
+     * 
+     * 同一优先级内截止时间早的任务先执行；与排队中的任务合并时，截止时间更早则提前该任务
+     * 
+     * @param deadline 从现在起算的截止时间，为null时使用默认期限
+     * @return 任务执行结果的Future
+     */
+    public CompletableFuture<TaskResult> submitCleaningTask(String taskType, TaskPriority priority, Object requestData,
+                                                            Duration deadline) {
+        Object fingerprint = fingerprintOf(taskType, requestData);
+        if (fingerprint == null) {
+            return enqueueExecution(createExecution(taskType, priority, requestData, deadline));
+        }
         
-        TaskExecution execution = new TaskExecution(taskId, sequence, taskType, priority, requestData);
+        // 指纹相同且尚未结束的任务直接复用；查找和登记在同一个原子操作中完成
+        TaskExecution[] created = new TaskExecution[1];
+        TaskExecution execution = tasksByFingerprint.compute(fingerprint, (key, existing) -> {
+            if (existing != null && !existing.isFinished()) {
+                return existing;
+            }
+            created[0] = createExecution(taskType, priority, requestData, deadline);
+            return created[0];
+        });
         
-        // 创建任务Future
-        CompletableFuture<TaskResult> taskFuture = new CompletableFuture<>();
-        execution.setFuture(taskFuture);
+        if (created[0] == null) {
+            coalescedTasks.incrementAndGet();
+            // 运行中的任务只记下提升后的优先级，在检查点让出后按它重新入队
+            if (taskQueue.promote(execution, priority, deadline)) {
+                preemptFor(execution);
+                signalDispatch();
+            }
+            ArisLogger.debug("Coalesced {} request into pending task {} ({})",
+                taskType, execution.getTaskId(), execution.getStatus());
+            return execution.getFuture();
+        }
+        return enqueueExecution(execution);
+    }
+    
+    private TaskExecution createExecution(String taskType, TaskPriority priority, Object requestData,
+                                          Duration deadline) {
+        TaskExecution execution = new TaskExecution(UUID.randomUUID(), taskIdGenerator.incrementAndGet(),
+            taskType, priority, requestData);
+        if (deadline != null) {
+            execution.setDeadline(deadline);
+        }
         
+        // 创建任务Future
+        execution.setFuture(new CompletableFuture<>());
+        return execution;
+    }
+    
+    private CompletableFuture<TaskResult> enqueueExecution(TaskExecution execution) {
         // 添加到活跃任务列表
-        activeTasks.put(taskId, execution);
+        activeTasks.put(execution.getTaskId(), execution);
         
-        // 添加到任务队列
-        taskQueue.enqueue(execution);
+        // 添加到任务队列并唤醒调度器
+        if (taskQueue.enqueue(execution)) {
+            preemptFor(execution);
+            signalDispatch();
+        } else {
+            execution.markFailed("Task queue is full");
+            activeTasks.remove(execution.getTaskId());
+            forgetFingerprint(execution);
+            execution.getFuture().complete(TaskResult.failure(execution.getTaskId(), "Task queue is full", 0));
+        }
         
-        System.out.println("Submitted cleaning task: " + taskType + " with priority: " + priority);
+        ArisLogger.debug("Submitted cleaning task: {} with priority: {}", execution.getTaskType(), execution.getPriority());
         
-        return taskFuture;
+        return execution.getFuture();
+    }
+    
+    /**
+     * 计算请求指纹，相同指纹的任务执行结果相同；无法判断的请求返回null，不参与合并
+     */
+    private static Object fingerprintOf(String taskType, Object requestData) {
+        if (requestData instanceof CleaningRequest request) {
+            return List.of(taskType, request.getFingerprint());
+        }
+        if (requestData instanceof UUID originalTaskId) {
+            return List.of(taskType, originalTaskId);
+        }
+        return null;
+    }
+    
+    private void forgetFingerprint(TaskExecution execution) {
+        Object fingerprint = fingerprintOf(execution.getTaskType(), execution.getRequestData());
+        if (fingerprint != null) {
+            tasksByFingerprint.remove(fingerprint, execution);
+        }
     }
     
     /**
@@ -161,10 +267,12 @@ public class SmartTaskManager {
                 execution.getFuture().complete(TaskResult.cancelled(taskId, execution.getExecutionDurationMs()));
             }
             
-            // 从活跃任务中移除
+            // 从活跃任务中移除；运行中的任务在下一个检查点停下
             activeTasks.remove(taskId);
+            forgetFingerprint(execution);
+            execution.getCheckpoint().requestYield();
             
-            System.out.println("Cancelled task: " + taskId);
+            ArisLogger.info("Cancelled task: {}", taskId);
             return true;
         }
         return false;
@@ -172,12 +280,22 @@ public class SmartTaskManager {
     
     /**
      * 暂停任务
+     * 
+     * 排队中的任务立即移出队列；运行中的任务在下一个检查点停下，之后状态变为PAUSED并保留进度
      */
     public boolean pauseTask(UUID taskId) {
         TaskExecution execution = activeTasks.get(taskId);
-        if (execution != null && execution.getStatus() == TaskStatus.RUNNING) {
+        if (execution == null) {
+            return false;
+        }
+        if (execution.getStatus() == TaskStatus.RUNNING) {
+            execution.getCheckpoint().requestPause();
+            ArisLogger.info("Pausing task at next checkpoint: {}", taskId);
+            return true;
+        }
+        if (execution.getStatus() == TaskStatus.PENDING && taskQueue.removeTask(execution)) {
             execution.markPaused();
-            System.out.println("Paused task: " + taskId);
+            ArisLogger.info("Paused task: {}", taskId);
             return true;
         }
         return false;
@@ -185,13 +303,26 @@ public class SmartTaskManager {
     
     /**
      * 恢复任务
+     * 
+     * 暂停请求尚未生效时直接撤回；已暂停的任务重新排队，从检查点继续
      */
     public boolean resumeTask(UUID taskId) {
         TaskExecution execution = activeTasks.get(taskId);
-        if (execution != null && execution.getStatus() == TaskStatus.PAUSED) {
+        if (execution == null) {
+            return false;
+        }
+        TaskCheckpoint checkpoint = execution.getCheckpoint();
+        if (execution.getStatus() == TaskStatus.RUNNING && checkpoint.getRequest() == TaskCheckpoint.Request.PAUSE) {
+            checkpoint.clearRequest();
+            return true;
+        }
+        if (execution.getStatus() == TaskStatus.PAUSED) {
+            checkpoint.resume();
             execution.setStatus(TaskStatus.PENDING);
-            taskQueue.enqueue(execution);
-            System.out.println("Resumed task: " + taskId);
+            if (taskQueue.enqueue(execution)) {
+                signalDispatch();
+            }
+            ArisLogger.info("Resumed task: {}", taskId);
             return true;
         }
         return false;
@@ -215,72 +346,137 @@ public class SmartTaskManager {
      * 获取任务队列状态
      */
     public String getQueueStatus() {
-        return taskQueue.getStatus();
+        long dispatched = dispatchedTasks.get();
+        return String.format("%s, running=%d/%d, coalesced=%d, queueWait[avg=%.2fms, max=%.2fms, tasks=%d], " +
+            "waitByPriority[%s]",
+            taskQueue.getStatus(), runningTasks.get(), maxConcurrentTasks, coalescedTasks.get(),
+            dispatched > 0 ? totalQueueWaitNanos.sum() / (double) dispatched / 1_000_000.0 : 0.0,
+            maxQueueWaitNanos.get() / 1_000_000.0, dispatched, queueWaitStats.getSummary());
     }
     
     /**
-     * 处理任务队列 - 由调度器定期调用
+     * 获取按优先级统计的排队耗时百分位
      */
-    private void processTaskQueue() {
-        if (!isRunning) {
-            return;
+    public QueueWaitStats getQueueWaitStats() {
+        return queueWaitStats;
+    }
+    
+    /**
+     * 唤醒调度器
+     * 
+     * 调度器未运行时提交到调度线程；正在运行时只累加信号，由调度器在本轮结束前再检查一次队列，
+     * 同一时刻最多只有一个调度器在运行
+     */
+    private void signalDispatch() {
+        if (isRunning && dispatchSignals.getAndIncrement() == 0) {
+            try {
+                asyncManager.getSchedulerThreadPool().execute(this::dispatch);
+            } catch (RejectedExecutionException e) {
+                dispatchSignals.set(0); // 线程池已关闭
+            }
         }
-        
-        try {
+    }
+    
+    /**
+     * 调度循环：处理期间收到的信号都会触发再一轮取任务
+     */
+    private void dispatch() {
+        int signals = dispatchSignals.get();
+        while (true) {
+            try {
+                drainTaskQueue();
+            } catch (Exception e) {
+                ArisLogger.error("Error processing task queue", e);
+            }
+            signals = dispatchSignals.addAndGet(-signals);
+            if (signals == 0) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 在空闲执行名额内尽可能多地取出任务执行
+     */
+    private void drainTaskQueue() {
+        while (isRunning && tryAcquireSlot()) {
             TaskExecution nextTask = taskQueue.dequeue();
-            if (nextTask != null) {
-                executeTask(nextTask);
+            if (nextTask == null || !executeTask(nextTask)) {
+                runningTasks.decrementAndGet();
+                if (nextTask == null) {
+                    return;
+                }
             }
-        } catch (Exception e) {
-            System.err.println("Error processing task queue: " + e.getMessage());
         }
     }
     
+    private boolean tryAcquireSlot() {
+        int current;
+        do {
+            current = runningTasks.get();
+            if (current >= maxConcurrentTasks) {
+                return false;
+            }
+        } while (!runningTasks.compareAndSet(current, current + 1));
+        return true;
+    }
+    
+    /**
+     * 任务结束，归还执行名额并唤醒调度器
+     */
+    private void releaseSlot() {
+        runningTasks.decrementAndGet();
+        signalDispatch();
+    }
+    
+    /**
+     * 记录任务从提交到第一次开始执行的排队等待；在检查点让出后重新排队的等待不再计入，
+     * 每个任务在统计中只出现一次
+     */
+    private void recordQueueWait(TaskExecution execution) {
+        long waitNanos = execution.getQueueWaitNanos();
+        if (waitNanos < 0 || !execution.isFirstStart()) {
+            return;
+        }
+        totalQueueWaitNanos.add(waitNanos);
+        dispatchedTasks.incrementAndGet();
+        maxQueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        // 按提交时的优先级统计，被合并提升过的任务不计入提升后的优先级
+        queueWaitStats.record(execution.getSubmittedPriority(), waitNanos);
+        ArisLogger.debug("Task {} ({}) waited {} us in queue",
+            execution.getTaskId(), execution.getTaskType(), waitNanos / 1000);
+    }
+    
     /**
      * 执行单个任务
+     * 
+     * @return 是否已开始执行；未开始时调用方负责归还执行名额
      */
-    private void executeTask(TaskExecution execution) {
+    private boolean executeTask(TaskExecution execution) {
         if (execution.getStatus() != TaskStatus.PENDING) {
-            return;
+            return false;
         }
         
         execution.markStarted();
+        recordQueueWait(execution);
         
-        CompletableFuture<TaskResult> future = asyncManager.submitCoreTask(() -> {
-            try {
-                // 模拟任务执行
-                TaskResult result = performActualTask(execution);
-                
-                // 执行成功
-                execution.markCompleted();
-                
-                // 记录历史
-                historyManager.recordTask(execution, result);
-                
-                return result;
-                
-            } catch (Exception e) {
-                // 执行失败
-                execution.markFailed(e.getMessage());
-                TaskResult errorResult = TaskResult.failure(
-                    execution.getTaskId(), 
-                    e.getMessage(), 
-                    e, 
-                    execution.getExecutionDurationMs()
-                );
-                
-                // 记录历史
-                historyManager.recordTask(execution, errorResult);
-                
-                return errorResult;
-            } finally {
-                // 从活跃任务中移除
-                activeTasks.remove(execution.getTaskId());
-            }
-        });
+        CompletableFuture<TaskResult> future;
+        try {
+            future = startTask(execution);
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future = future.handle((result, throwable) -> completeExecution(execution, result, throwable));
         
         // 将结果传递给原始Future
         future.whenComplete((result, throwable) -> {
+            if (throwable == null && result == null) {
+                onSuspended(execution);
+                releaseSlot();
+                return;
+            }
+            forgetFingerprint(execution);
+            releaseSlot();
             CompletableFuture<TaskResult> originalFuture = execution.getFuture();
             if (originalFuture != null) {
                 if (throwable != null) {
@@ -290,35 +486,210 @@ public class SmartTaskManager {
                 }
             }
         });
+        return true;
+    }
+    
+    /**
+     * 开始执行任务，返回的Future在任务结束或在检查点停下时完成
+     * 
+     * 撤销任务的工作在IO线程和主线程上分批进行，清理任务的工作在主线程和核心线程之间按区域批次进行，
+     * 都不占用核心线程等待
+     */
+    private CompletableFuture<TaskResult> startTask(TaskExecution execution) {
+        if ("UNDO_TASK".equals(execution.getTaskType()) && execution.getRequestData() instanceof UUID originalTaskId) {
+            return performUndoTask(execution, originalTaskId);
+        }
+        if (execution.getRequestData() instanceof CleaningRequest request) {
+            return performCleaningTask(execution, request);
+        }
+        // 只有清理和撤销两种任务，其他请求明确失败而不是假装执行
+        ArisLogger.warn("Unsupported task type {} with request {} (ID: {})", execution.getTaskType(),
+            execution.getRequestData() != null ? execution.getRequestData().getClass().getSimpleName() : null,
+            execution.getTaskId());
+        return CompletableFuture.failedFuture(new UnsupportedOperationException(
+            "Unsupported task type: " + execution.getTaskType()));
+    }
+    
+    /**
+     * 记录任务的结束状态和历史；在检查点停下的任务返回null，进度保留在检查点中
+     */
+    private TaskResult completeExecution(TaskExecution execution, TaskResult result, Throwable throwable) {
+        TaskCheckpoint checkpoint = execution.getCheckpoint();
+        try {
+            if (throwable == null && checkpoint.isSuspended()) {
+                return null;
+            }
+            
+            if (throwable == null) {
+                // 执行成功
+                execution.markCompleted();
+                historyManager.recordTask(execution, result);
+                return result;
+            }
+            
+            // 执行失败
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+            execution.markFailed(cause.getMessage());
+            TaskResult errorResult = TaskResult.failure(
+                execution.getTaskId(), 
+                cause.getMessage(), 
+                cause, 
+                execution.getExecutionDurationMs()
+            );
+            historyManager.recordTask(execution, errorResult);
+            return errorResult;
+            
+        } finally {
+            // 从活跃任务中移除（挂起的任务仍然活跃）
+            if (!checkpoint.isSuspended()) {
+                activeTasks.remove(execution.getTaskId());
+            }
+        }
     }
     
     /**
-     * 执行实际任务逻辑（占位符方法）
+     * 任务在检查点停下：暂停请求使其保持PAUSED，让出请求使其保留进度重新排队
      */
-    private TaskResult performActualTask(TaskExecution execution) {
-        // 这里是实际任务执行的占位符
-        // 在后续开发中会被具体的清理逻辑替代
+    private void onSuspended(TaskExecution execution) {
+        TaskCheckpoint checkpoint = execution.getCheckpoint();
+        if (execution.getStatus() == TaskStatus.CANCELLED) {
+            activeTasks.remove(execution.getTaskId());
+            return;
+        }
         
-        String taskType = execution.getTaskType();
-        System.out.println("Executing task: " + taskType + " (ID: " + execution.getTaskId() + ")");
+        if (checkpoint.getRequest() == TaskCheckpoint.Request.PAUSE) {
+            execution.markPaused();
+            ArisLogger.info("Task {} paused at checkpoint", execution.getTaskId());
+            return;
+        }
         
-        // 模拟任务处理时间
-        try {
-            Thread.sleep(100 + (long)(Math.random() * 200)); // 100-300ms随机延迟
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Task interrupted", e);
+        checkpoint.resume();
+        execution.setStatus(TaskStatus.PENDING);
+        if (taskQueue.enqueue(execution)) {
+            ArisLogger.debug("Task {} yielded at checkpoint and was re-queued", execution.getTaskId());
+        } else {
+            execution.markFailed("Task queue is full");
+            activeTasks.remove(execution.getTaskId());
+            forgetFingerprint(execution);
+            execution.getFuture().complete(TaskResult.failure(execution.getTaskId(), "Task queue is full",
+                execution.getExecutionDurationMs()));
+        }
+    }
+    
+    /**
+     * 执行名额已满时，请求优先级低于新任务的运行中任务中优先级最低的一个在检查点让出
+     */
+    private void preemptFor(TaskExecution arrival) {
+        if (runningTasks.get() < maxConcurrentTasks) {
+            return;
         }
         
-        // 模拟处理结果
-        long processedItems = (long)(Math.random() * 50) + 1;
-        execution.updateProgress(processedItems, processedItems);
+        TaskExecution victim = null;
+        for (TaskExecution candidate : activeTasks.values()) {
+            if (candidate.getStatus() == TaskStatus.RUNNING
+                    && candidate.getPriority().isLowerThan(arrival.getPriority())
+                    && !candidate.getCheckpoint().shouldSuspend()
+                    && (victim == null || candidate.getPriority().isLowerThan(victim.getPriority()))) {
+                victim = candidate;
+            }
+        }
+        if (victim != null && victim.getCheckpoint().requestYield()) {
+            ArisLogger.debug("Task {} ({}) asked to yield for {} ({})", victim.getTaskId(), victim.getPriority(),
+                arrival.getTaskId(), arrival.getPriority());
+        }
+    }
+    
+    /**
+     * 执行清理任务：由 {@link EntityCleaner} 按区域批次清理，批次边界是检查点
+     * 
+     * 未限定维度的请求依次清理各维度；检查点的续点记录已完成的维度数，
+     * 恢复执行时从中断的维度继续，并跳过该维度中已完成的区块
+     */
+    private CompletableFuture<TaskResult> performCleaningTask(TaskExecution execution, CleaningRequest request) {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Server is not running"));
+        }
         
-        return TaskResult.success(
-            execution.getTaskId(), 
-            execution.getExecutionDurationMs(), 
-            processedItems
-        );
+        List<ServerLevel> levels = new ArrayList<>();
+        for (ServerLevel level : server.getAllLevels()) {
+            if (request.getDimension() == null
+                    || request.getDimension().equals(level.dimension().location().toString())) {
+                levels.add(level);
+            }
+        }
+        if (levels.isEmpty()) {
+            return CompletableFuture.failedFuture(
+                new IllegalArgumentException("Unknown dimension: " + request.getDimension()));
+        }
+        
+        ArisLogger.debug("Executing cleaning task {} in {} dimension(s) from dimension {}",
+            execution.getTaskId(), levels.size(), execution.getCheckpoint().getResumeIndex());
+        return cleanLevels(execution, request, levels);
+    }
+    
+    /**
+     * 从检查点的续点开始依次清理剩余维度，在检查点停下时返回
+     */
+    private CompletableFuture<TaskResult> cleanLevels(TaskExecution execution, CleaningRequest request,
+                                                      List<ServerLevel> levels) {
+        TaskCheckpoint checkpoint = execution.getCheckpoint();
+        int next = (int) checkpoint.getResumeIndex();
+        if (next >= levels.size() || checkpoint.isSuspended()) {
+            return CompletableFuture.completedFuture(TaskResult.success(
+                execution.getTaskId(),
+                execution.getExecutionDurationMs(),
+                checkpoint.getProcessedCount()
+            ));
+        }
+        
+        return getEntityCleaner().performCleaningOperation(levels.get(next), request, checkpoint)
+            .thenCompose(result -> {
+                if (!result.isSuccessful()) {
+                    throw new IllegalStateException(result.getErrorMessage());
+                }
+                checkpoint.addProcessedCount(
+                    result.getItemsRemoved() + result.getAnimalsRemoved() + result.getItemEntitiesMerged());
+                if (!checkpoint.isSuspended()) {
+                    // 维度已清理完毕，区块键不区分维度，转到下一维度前清空
+                    checkpoint.clearCompletedChunks();
+                    checkpoint.setResumeIndex(next + 1);
+                    execution.updateProgress(next + 1, levels.size());
+                }
+                return cleanLevels(execution, request, levels);
+            });
+    }
+    
+    /**
+     * 获取实体清理器，配置数据被替换后重新创建
+     */
+    private synchronized EntityCleaner getEntityCleaner() {
+        ConfigData configData = ArisSweepingMod.getConfigData();
+        if (configData == null) {
+            throw new IllegalStateException("Config data is not loaded");
+        }
+        if (entityCleaner == null || cleanerConfig != configData) {
+            entityCleaner = new EntityCleaner(asyncManager, configData);
+            cleanerConfig = configData;
+        }
+        return entityCleaner;
+    }
+    
+    /**
+     * 执行撤销任务：实体在主线程上分批恢复，进度通过 {@link TaskExecution#updateProgress} 报告
+     */
+    private CompletableFuture<TaskResult> performUndoTask(TaskExecution execution, UUID originalTaskId) {
+        return undoManager.performUndo(originalTaskId, execution).thenApply(undoResult -> {
+            if (!undoResult.isSuccessful()) {
+                throw new IllegalStateException(undoResult.getErrorMessage());
+            }
+            return TaskResult.success(
+                execution.getTaskId(),
+                execution.getExecutionDurationMs(),
+                undoResult.getRestoredCount()
+            );
+        });
     }
     
     /**
@@ -357,7 +728,7 @@ public class SmartTaskManager {
         try {
             return undoManager.undoLastOperation();
         } catch (Exception e) {
-            com.arisweeping.core.ArisLogger.error("撤销操作失败", e);
+            ArisLogger.error("撤销操作失败", e);
             return false;
         }
     }
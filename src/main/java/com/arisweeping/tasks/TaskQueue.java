@@ -1,10 +1,14 @@
 package com.arisweeping.tasks;
 
-import java.util.concurrent.PriorityBlockingQueue;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.arisweeping.core.ArisLogger;
 import com.arisweeping.core.Constants;
 import com.arisweeping.tasks.enums.TaskPriority;
 import com.arisweeping.tasks.enums.TaskStatus;
@@ -13,39 +17,36 @@ import com.arisweeping.tasks.models.TaskExecution;
 /**
  * 任务队列管理器
  * 
- * 负责管理优先级任务队列，提供线程安全的任务排队和出队操作
+ * 每个优先级按截止时间分桶，桶内是无锁FIFO队列：截止时间早的桶先出队，同一桶内按提交顺序；
+ * 未指定截止时间的任务按 入队时间+默认期限 分桶。出队不加锁，入队、提升和移除只锁定任务对象本身，彼此互斥。
+ * 出队时比较各优先级队首任务的有效优先级：原优先级加上按等待时间计算的老化级数，相同时原优先级高者优先，
+ * 持续到来的高优先级任务不会让低优先级任务无限等待。老化最多提升到CRITICAL的下一级，不会越过CRITICAL任务。
+ * 容量通过CAS预占名额，并发提交不会超出上限。已取消或已开始的任务留在队列中，出队时循环跳过
  */
 public class TaskQueue {
     
-    private final PriorityBlockingQueue<TaskExecution> queue;
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+    private static final long AGING_NANOS = Constants.TaskManagement.TASK_AGING_INTERVAL_MILLIS * 1_000_000L;
+    private static final long BUCKET_NANOS = Constants.TaskManagement.DEADLINE_BUCKET_MILLIS * 1_000_000L;
+    private static final int AGING_CEILING = TaskPriority.CRITICAL.ordinal() - 1;
+    
+    // 按优先级序号索引
+    private final Level[] levels;
+    private final AtomicInteger[] levelSizes;
     private final AtomicInteger queueSize = new AtomicInteger(0);
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong agedDispatches = new AtomicLong(0);
     
     // 队列状态
     private volatile boolean isPaused = false;
     private volatile boolean isShutdown = false;
     
     public TaskQueue() {
-        // 使用自定义比较器创建优先级队列
-        this.queue = new PriorityBlockingQueue<>(
-            Constants.TaskManagement.MAX_TASK_QUEUE_SIZE,
-            this::compareTaskPriority
-        );
-    }
-    
-    /**
-     * 任务优先级比较器
-     * 按照优先级和提交时间排序
-     */
-    private int compareTaskPriority(TaskExecution t1, TaskExecution t2) {
-        // 首先按优先级排序（高优先级在前）
-        int priorityCompare = t2.getPriority().compareLevel(t1.getPriority());
-        if (priorityCompare != 0) {
-            return priorityCompare;
+        this.levels = new Level[PRIORITIES.length];
+        this.levelSizes = new AtomicInteger[PRIORITIES.length];
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            levels[i] = new Level();
+            levelSizes[i] = new AtomicInteger(0);
         }
-        
-        // 优先级相同时按提交时间排序（早提交的在前）
-        return Long.compare(t1.getSequence(), t2.getSequence());
     }
     
     /**
@@ -60,89 +61,163 @@ public class TaskQueue {
             return false;
         }
         
-        lock.writeLock().lock();
-        try {
-            // 检查队列容量
-            if (queueSize.get() >= Constants.TaskManagement.MAX_TASK_QUEUE_SIZE) {
-                System.err.println("Task queue is full, rejecting task: " + execution.getTaskId());
-                return false;
-            }
-            
-            boolean added = queue.offer(execution);
-            if (added) {
-                queueSize.incrementAndGet();
-                System.out.println("Enqueued task: " + execution.getTaskId() + 
-                                 " with priority: " + execution.getPriority() + 
-                                 ", queue size: " + queueSize.get());
-            }
-            return added;
-            
-        } finally {
-            lock.writeLock().unlock();
+        // 先预占容量名额，再入队
+        if (!reserveSlot()) {
+            ArisLogger.warn("Task queue is full, rejecting task: {}", execution.getTaskId());
+            return false;
         }
+        
+        // 与提升互斥，入队使用的优先级不会在读取后被改掉
+        synchronized (execution) {
+            int level = execution.getPriority().ordinal();
+            execution.markEnqueued();
+            levelSizes[level].incrementAndGet();
+            levels[level].offer(execution);
+        }
+        return true;
     }
     
     /**
      * 从队列中取出下一个任务
+     * 
+     * 比较各优先级最早截止桶的队首任务，只取出参与比较的那个任务；
+     * 它已被并发取走或移动时重新比较
      */
     public TaskExecution dequeue() {
         if (isShutdown || isPaused) {
             return null;
         }
         
-        lock.readLock().lock();
-        try {
-            TaskExecution execution = queue.poll();
-            if (execution != null) {
-                queueSize.decrementAndGet();
-                
-                // 验证任务状态
-                if (execution.getStatus() != TaskStatus.PENDING) {
-                    System.out.println("Skipping task with invalid status: " + execution.getTaskId() + 
-                                     ", status: " + execution.getStatus());
-                    return dequeue(); // 递归查找下一个有效任务
+        long now = System.nanoTime();
+        while (true) {
+            int best = -1;
+            long bestLevel = Long.MIN_VALUE;
+            Queue<TaskExecution> bestBucket = null;
+            TaskExecution bestHead = null;
+            for (int level = levels.length - 1; level >= 0; level--) {
+                Queue<TaskExecution> bucket = levels[level].firstBucket();
+                TaskExecution head = bucket != null ? bucket.peek() : null;
+                if (head == null) {
+                    continue;
                 }
-                
-                System.out.println("Dequeued task: " + execution.getTaskId() + 
-                                 ", remaining queue size: " + queueSize.get());
+                // 从高到低遍历，有效优先级相同时保留原优先级更高的
+                long effective = effectiveLevel(level, head, now);
+                if (effective > bestLevel) {
+                    best = level;
+                    bestLevel = effective;
+                    bestBucket = bucket;
+                    bestHead = head;
+                }
+            }
+            if (best < 0) {
+                return null;
             }
-            return execution;
             
-        } finally {
-            lock.readLock().unlock();
+            // 按对象原子地认领，并发出队方中只有一个能取到同一个任务
+            if (!bestBucket.remove(bestHead)) {
+                continue;
+            }
+            release(best);
+            
+            // 跳过状态已变化的任务（已取消、已被其他路径执行等）
+            if (bestHead.getStatus() == TaskStatus.PENDING) {
+                if (bestLevel > best) {
+                    agedDispatches.incrementAndGet();
+                }
+                return bestHead;
+            }
+            ArisLogger.debug("Skipping task with invalid status: {}, status: {}",
+                bestHead.getTaskId(), bestHead.getStatus());
         }
     }
     
     /**
-     * 查看队列头部任务（不移除）
+     * 原优先级序号加上老化级数，每等待一个老化间隔提高一级，最多提高到CRITICAL的下一级
+     */
+    private static long effectiveLevel(int level, TaskExecution head, long now) {
+        long aged = level + Math.max(0, now - head.getEnqueuedNanos()) / AGING_NANOS;
+        return Math.min(aged, Math.max(level, AGING_CEILING));
+    }
+    
+    /**
+     * 提升排队中任务的优先级，把它移到更高优先级的队列，排队时间不重新计算
+     * 
+     * @return 是否已移动；任务已出队或优先级不低于目标时返回false
+     */
+    public boolean promote(TaskExecution execution, TaskPriority priority) {
+        return promote(execution, priority, null);
+    }
+    
+    /**
+     * 提升排队中任务的优先级，或把截止时间提前；排队时间不重新计算
+     * 
+     * 任务不在队列中（运行中或在检查点暂停）时只把新的优先级和截止时间记在任务上，
+     * 任务在检查点让出或恢复后按调整后的值重新入队
+     * 
+     * @param deadline 从现在起算的截止时间，为null时不调整
+     * @return 队列是否已调整；任务不在队列中，或优先级和截止时间都不比目标更紧时返回false
+     */
+    public boolean promote(TaskExecution execution, TaskPriority priority, Duration deadline) {
+        synchronized (execution) {
+            TaskPriority current = execution.getPriority();
+            long deadlineNanos = deadline != null ? System.nanoTime() + deadline.toNanos() : 0;
+            boolean raise = priority.isHigherThan(current);
+            boolean tighten = deadline != null && deadlineNanos - execution.getQueueDeadlineNanos() < 0;
+            if (!raise && !tighten) {
+                return false;
+            }
+            
+            // 截止时间决定所在的桶，先移出再重新加入
+            int from = current.ordinal();
+            boolean queued = levels[from].remove(execution);
+            if (raise) {
+                execution.setPriority(priority);
+            }
+            if (tighten) {
+                execution.setDeadlineNanos(deadlineNanos);
+            }
+            if (!queued) {
+                return false;
+            }
+            // 名额沿用，只在两个优先级之间转移计数
+            int to = execution.getPriority().ordinal();
+            levelSizes[from].decrementAndGet();
+            levelSizes[to].incrementAndGet();
+            levels[to].offer(execution);
+            return true;
+        }
+    }
+    
+    /**
+     * 查看最高优先级队列的队首任务（不移除，不考虑老化）
      */
     public TaskExecution peek() {
-        lock.readLock().lock();
-        try {
-            return queue.peek();
-        } finally {
-            lock.readLock().unlock();
+        for (int level = levels.length - 1; level >= 0; level--) {
+            Queue<TaskExecution> bucket = levels[level].firstBucket();
+            TaskExecution execution = bucket != null ? bucket.peek() : null;
+            if (execution != null) {
+                return execution;
+            }
         }
+        return null;
     }
     
     /**
      * 移除指定任务
      */
     public boolean removeTask(TaskExecution execution) {
-        if (isShutdown) {
+        if (isShutdown || execution == null) {
             return false;
         }
         
-        lock.writeLock().lock();
-        try {
-            boolean removed = queue.remove(execution);
+        // 与提升互斥，读取的优先级就是任务所在的队列
+        synchronized (execution) {
+            int level = execution.getPriority().ordinal();
+            boolean removed = levels[level].remove(execution);
             if (removed) {
-                queueSize.decrementAndGet();
-                System.out.println("Removed task from queue: " + execution.getTaskId());
+                release(level);
             }
             return removed;
-        } finally {
-            lock.writeLock().unlock();
         }
     }
     
@@ -151,7 +226,7 @@ public class TaskQueue {
      */
     public void pause() {
         isPaused = true;
-        System.out.println("Task queue paused");
+        ArisLogger.info("Task queue paused");
     }
     
     /**
@@ -159,22 +234,23 @@ public class TaskQueue {
      */
     public void resume() {
         isPaused = false;
-        System.out.println("Task queue resumed");
+        ArisLogger.info("Task queue resumed");
     }
     
     /**
      * 清空队列
+     * 
+     * 逐个出队并归还名额，与并发入队交错时计数仍然准确
      */
     public void clear() {
-        lock.writeLock().lock();
-        try {
-            int clearedCount = queue.size();
-            queue.clear();
-            queueSize.set(0);
-            System.out.println("Cleared " + clearedCount + " tasks from queue");
-        } finally {
-            lock.writeLock().unlock();
+        int clearedCount = 0;
+        for (int level = 0; level < levels.length; level++) {
+            while (levels[level].poll() != null) {
+                release(level);
+                clearedCount++;
+            }
         }
+        ArisLogger.debug("Cleared {} tasks from queue", clearedCount);
     }
     
     /**
@@ -183,11 +259,11 @@ public class TaskQueue {
     public void shutdown() {
         isShutdown = true;
         clear();
-        System.out.println("Task queue shutdown");
+        ArisLogger.info("Task queue shutdown");
     }
     
     /**
-     * 获取队列大小
+     * 获取队列大小（包括尚未跳过的失效任务）
      */
     public int size() {
         return queueSize.get();
@@ -207,6 +283,13 @@ public class TaskQueue {
         return isPaused;
     }
     
+    /**
+     * 因老化而先于更高原优先级任务出队的次数
+     */
+    public long getAgedDispatches() {
+        return agedDispatches.get();
+    }
+    
     /**
      * 检查队列是否已关闭
      */
@@ -218,41 +301,116 @@ public class TaskQueue {
      * 获取按优先级分组的统计信息
      */
     public String getPriorityStats() {
-        lock.readLock().lock();
-        try {
-            int[] counts = new int[TaskPriority.values().length];
-            
-            for (TaskExecution execution : queue) {
-                TaskPriority priority = execution.getPriority();
-                counts[priority.ordinal()]++;
-            }
-            
-            StringBuilder stats = new StringBuilder();
-            stats.append("Queue priority stats: ");
-            for (TaskPriority priority : TaskPriority.values()) {
-                int count = counts[priority.ordinal()];
-                if (count > 0) {
-                    stats.append(priority.name()).append("=").append(count).append(" ");
-                }
+        StringBuilder stats = new StringBuilder();
+        stats.append("Queue priority stats: ");
+        for (TaskPriority priority : PRIORITIES) {
+            int count = levelSizes[priority.ordinal()].get();
+            if (count > 0) {
+                stats.append(priority.name()).append("=").append(count).append(" ");
             }
-            
-            return stats.toString().trim();
-        } finally {
-            lock.readLock().unlock();
         }
+        return stats.toString().trim();
     }
     
     /**
      * 获取队列状态信息
      */
     public String getStatus() {
-        return String.format("TaskQueue[size=%d, paused=%s, shutdown=%s, capacity=%d]",
-                           queueSize.get(), isPaused, isShutdown, 
-                           Constants.TaskManagement.MAX_TASK_QUEUE_SIZE);
+        return String.format("TaskQueue[size=%d, paused=%s, shutdown=%s, capacity=%d, aged=%d]",
+                           queueSize.get(), isPaused, isShutdown,
+                           Constants.TaskManagement.MAX_TASK_QUEUE_SIZE, agedDispatches.get());
+    }
+    
+    /**
+     * 预占一个容量名额，队列已满时返回false
+     */
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = queueSize.get();
+            if (current >= Constants.TaskManagement.MAX_TASK_QUEUE_SIZE) {
+                return false;
+            }
+        } while (!queueSize.compareAndSet(current, current + 1));
+        return true;
+    }
+    
+    /**
+     * 任务离开队列时归还名额
+     */
+    private void release(int level) {
+        levelSizes[level].decrementAndGet();
+        queueSize.decrementAndGet();
     }
     
     @Override
     public String toString() {
         return getStatus() + " - " + getPriorityStats();
     }
-}
\ No newline at end of file
+    
+    /**
+     * 一个优先级的队列：按截止时间分桶的无锁有序映射，桶内是无锁FIFO
+     * 
+     * 出队方会移除空桶；入队方在加入后确认桶仍在映射中，否则把任务从废弃的桶中取回重新加入，
+     * 出队方移除空桶后也会把并发加入的任务重新加入，任务不会丢失，也不会被取出两次
+     */
+    private static final class Level {
+        private final ConcurrentSkipListMap<Long, Queue<TaskExecution>> buckets = new ConcurrentSkipListMap<>();
+        
+        private static long bucketOf(TaskExecution execution) {
+            return Math.floorDiv(execution.getQueueDeadlineNanos(), BUCKET_NANOS);
+        }
+        
+        void offer(TaskExecution execution) {
+            long key = bucketOf(execution);
+            while (true) {
+                Queue<TaskExecution> bucket = buckets.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>());
+                bucket.offer(execution);
+                // 取回失败说明任务已被出队或被移除空桶的一方重新加入
+                if (buckets.get(key) == bucket || !bucket.remove(execution)) {
+                    return;
+                }
+            }
+        }
+        
+        /**
+         * 截止时间最早的非空桶，顺带移除遇到的空桶
+         */
+        Queue<TaskExecution> firstBucket() {
+            for (Map.Entry<Long, Queue<TaskExecution>> entry = buckets.firstEntry(); entry != null;
+                    entry = buckets.higherEntry(entry.getKey())) {
+                Queue<TaskExecution> bucket = entry.getValue();
+                if (!bucket.isEmpty()) {
+                    return bucket;
+                }
+                prune(entry.getKey(), bucket);
+            }
+            return null;
+        }
+        
+        private void prune(Long key, Queue<TaskExecution> bucket) {
+            if (bucket.isEmpty() && buckets.remove(key, bucket)) {
+                TaskExecution orphan;
+                while ((orphan = bucket.poll()) != null) {
+                    offer(orphan);
+                }
+            }
+        }
+        
+        boolean remove(TaskExecution execution) {
+            Queue<TaskExecution> bucket = buckets.get(bucketOf(execution));
+            return bucket != null && bucket.remove(execution);
+        }
+        
+        TaskExecution poll() {
+            Queue<TaskExecution> bucket;
+            while ((bucket = firstBucket()) != null) {
+                TaskExecution execution = bucket.poll();
+                if (execution != null) {
+                    return execution;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,571 @@
+package com.arisweeping.tasks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import com.arisweeping.cleaning.EntityRemovalInfo;
+import com.arisweeping.core.ArisLogger;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
+
+/**
+ * 撤销日志
+ * 
+ * 被移除实体的NBT以追加方式写入世界目录下的内存映射分段文件，堆上只保留每个任务的记录位置
+ * 及其所在的维度和区块，撤销时按区块分组后再从磁盘逐组读回。每条记录的格式为：
+ * <pre>
+ * [魔数 int][负载长度 int][CRC32 int][GZIP压缩的NBT负载]
+ * </pre>
+ * 记录分为任务头、实体记录和任务结束标记三种。启动时按顺序扫描所有分段重建索引，
+ * 魔数、长度或校验不符的位置即视为该分段的写入末尾，崩溃时写了一半的记录会被丢弃，之前的数据不受影响
+ * 
+ * 分段文件只追加不修改。分段按从旧到新的顺序整体删除：最旧的分段中没有未结束的任务或者已全部过期时才删除，
+ * 这样任务的结束标记总是比任务本身的记录保留得更久
+ * 
+ * 所有公开方法都是同步的，应在IO线程上调用
+ */
+public class UndoJournal {
+    
+    private static final int RECORD_MAGIC = 0x4152554A; // "ARUJ"
+    private static final int HEADER_BYTES = 12;
+    private static final String SEGMENT_PREFIX = "undo-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    
+    private static final byte KIND_TASK = 1;
+    private static final byte KIND_ENTITY = 2;
+    private static final byte KIND_END = 3;
+    
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Segment> segments = new ArrayList<>(); // 按编号从旧到新
+    private final Map<UUID, TaskIndex> tasks = new LinkedHashMap<>();
+    private final List<Path> pendingDeletes = new ArrayList<>();
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(4096);
+    private final CRC32 crc = new CRC32();
+    private Segment active;
+    private long nextSegmentId;
+    
+    private UndoJournal(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+    
+    /**
+     * 打开日志目录，扫描已有分段并丢弃早于 retainAfterMillis 的任务
+     */
+    public static UndoJournal open(Path directory, int segmentBytes, long retainAfterMillis) throws IOException {
+        Files.createDirectories(directory);
+        UndoJournal journal = new UndoJournal(directory, segmentBytes);
+        journal.recover(retainAfterMillis);
+        return journal;
+    }
+    
+    // ==================== 写入 ====================
+    
+    /**
+     * 追加一批实体记录，返回任务索引
+     * 
+     * 同一任务可以分多批追加（清理按区域分批进行），已有索引时只追加实体记录并扩展该索引，
+     * 任务时间和名称保持第一批的值
+     */
+    public synchronized TaskIndex appendTask(UUID taskId, String taskName, long timestamp,
+                                             Collection<EntityRemovalInfo> entities) throws IOException {
+        TaskIndex index = tasks.get(taskId);
+        if (index == null) {
+            index = new TaskIndex(taskId, taskName, timestamp);
+            
+            CompoundTag header = new CompoundTag();
+            header.putByte("Kind", KIND_TASK);
+            header.putUUID("Task", taskId);
+            header.putString("Name", taskName);
+            header.putLong("Time", timestamp);
+            header.putInt("Count", entities.size());
+            writeRecord(header, index, timestamp);
+            tasks.put(taskId, index);
+        }
+        
+        for (EntityRemovalInfo info : entities) {
+            CompoundTag record = new CompoundTag();
+            record.putByte("Kind", KIND_ENTITY);
+            record.putUUID("Task", taskId);
+            record.put("Info", info.toTag());
+            index.addRecord(writeRecord(record, index, timestamp), info.getDimensionKey(),
+                chunkKey(info.getX(), info.getZ()));
+        }
+        
+        active.buffer.force();
+        return index;
+    }
+    
+    /**
+     * 结束任务（已撤销或被淘汰）：写入结束标记并释放其分段引用
+     */
+    public synchronized void endTask(UUID taskId) throws IOException {
+        TaskIndex index = tasks.remove(taskId);
+        if (index == null) {
+            return;
+        }
+        
+        CompoundTag record = new CompoundTag();
+        record.putByte("Kind", KIND_END);
+        record.putUUID("Task", taskId);
+        writeRecord(record, null, System.currentTimeMillis());
+        active.buffer.force();
+        
+        release(index);
+        deleteReleasedSegments(Long.MIN_VALUE);
+    }
+    
+    /**
+     * 丢弃早于 cutoffMillis 的任务，并整体删除已过期的分段
+     */
+    public synchronized void expire(long cutoffMillis) {
+        Iterator<TaskIndex> iterator = tasks.values().iterator();
+        while (iterator.hasNext()) {
+            TaskIndex index = iterator.next();
+            if (index.timestamp < cutoffMillis) {
+                iterator.remove();
+                release(index);
+            }
+        }
+        deleteReleasedSegments(cutoffMillis);
+    }
+    
+    private long writeRecord(CompoundTag tag, TaskIndex owner, long timestamp) throws IOException {
+        scratch.reset();
+        NbtIo.writeCompressed(tag, scratch);
+        byte[] payload = scratch.toByteArray();
+        
+        ensureCapacity(HEADER_BYTES + payload.length);
+        int offset = active.size;
+        MappedByteBuffer buffer = active.buffer;
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        
+        // 先写负载和校验，最后写魔数，使记录只有在完整写入后才会被扫描识别
+        buffer.put(offset + HEADER_BYTES, payload);
+        buffer.putInt(offset + 4, payload.length);
+        buffer.putInt(offset + 8, (int) crc.getValue());
+        buffer.putInt(offset, RECORD_MAGIC);
+        
+        active.size = offset + HEADER_BYTES + payload.length;
+        active.newestTime = Math.max(active.newestTime, timestamp);
+        if (owner != null) {
+            owner.touch(active);
+        }
+        return position(active.id, offset);
+    }
+    
+    private void ensureCapacity(int recordBytes) throws IOException {
+        if (active != null && active.size + recordBytes <= active.capacity) {
+            return;
+        }
+        if (active != null) {
+            active.seal();
+        }
+        
+        long id = nextSegmentId++;
+        Path path = directory.resolve(segmentName(id));
+        int capacity = Math.max(segmentBytes, recordBytes);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        
+        Segment segment = new Segment(id, path, capacity);
+        segment.channel = channel;
+        segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        segments.add(segment);
+        active = segment;
+        ArisLogger.debug("Opened undo journal segment {}", path.getFileName());
+    }
+    
+    // ==================== 读取 ====================
+    
+    /**
+     * 按写入顺序逐条读回任务的实体记录，每次只有一条记录在堆上
+     * 
+     * @return 读回的记录数；任务不存在时返回-1
+     */
+    public synchronized int forEachEntity(UUID taskId, Consumer<EntityRemovalInfo> consumer) throws IOException {
+        TaskIndex index = tasks.get(taskId);
+        if (index == null) {
+            return -1;
+        }
+        return readEntities(index.positions, consumer);
+    }
+    
+    /**
+     * 按写入顺序列出任务每条实体记录的位置、维度和区块，只读取堆上的索引，不访问磁盘
+     * 
+     * @return 记录数；任务不存在时返回-1
+     */
+    public synchronized int forEachLocation(UUID taskId, LocationConsumer consumer) {
+        TaskIndex index = tasks.get(taskId);
+        if (index == null) {
+            return -1;
+        }
+        for (int i = 0; i < index.positions.size(); i++) {
+            consumer.accept(index.positions.getLong(i), index.dimensionNames.get(index.dimensions.getInt(i)),
+                index.chunks.getLong(i));
+        }
+        return index.positions.size();
+    }
+    
+    /**
+     * 读回指定位置的实体记录（位置来自 {@link #forEachLocation}）；
+     * 缺失或损坏的记录跳过，所在分段已被删除（任务已结束或过期）的记录同样跳过
+     * 
+     * @return 读回的记录数
+     */
+    public synchronized int readEntities(LongList positions, Consumer<EntityRemovalInfo> consumer) throws IOException {
+        int count = 0;
+        Segment segment = null;
+        ByteBuffer view = null;
+        for (int i = 0; i < positions.size(); i++) {
+            long position = positions.getLong(i);
+            long segmentId = position >>> 32;
+            if (segment == null || segment.id != segmentId) {
+                segment = findSegment(segmentId);
+                view = segment != null ? segment.view() : null;
+            }
+            
+            int offset = (int) position;
+            int length = view != null ? validLength(view, offset) : -1;
+            if (length < 0) {
+                ArisLogger.warn("Undo journal record at segment {} offset {} is missing or corrupt",
+                    position >>> 32, offset);
+                continue;
+            }
+            consumer.accept(EntityRemovalInfo.fromTag(decode(view, offset, length).getCompound("Info")));
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * 按时间顺序返回未结束的任务
+     */
+    public synchronized List<TaskIndex> getTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+    
+    public synchronized boolean contains(UUID taskId) {
+        return tasks.containsKey(taskId);
+    }
+    
+    /**
+     * 分段文件占用的磁盘空间（字节）
+     */
+    public synchronized long getDiskBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.capacity;
+        }
+        return total;
+    }
+    
+    /**
+     * 刷新并关闭当前分段
+     */
+    public synchronized void close() {
+        if (active != null) {
+            active.seal();
+            active = null;
+        }
+    }
+    
+    // ==================== 恢复 ====================
+    
+    private void recover(long retainAfterMillis) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                if (parseSegmentId(path) >= 0) {
+                    paths.add(path);
+                }
+            }
+        }
+        paths.sort((a, b) -> Long.compare(parseSegmentId(a), parseSegmentId(b)));
+        
+        for (Path path : paths) {
+            long id = parseSegmentId(path);
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            Segment segment = new Segment(id, path, (int) Files.size(path));
+            segments.add(segment);
+            scanSegment(segment);
+        }
+        
+        int recovered = tasks.size();
+        expire(retainAfterMillis);
+        ArisLogger.info("Undo journal opened at {}: {} segments, {} tasks recovered, {} still undoable",
+            directory, segments.size(), recovered, tasks.size());
+    }
+    
+    private void scanSegment(Segment segment) throws IOException {
+        ByteBuffer view = segment.view();
+        int offset = 0;
+        while (true) {
+            int length = validLength(view, offset);
+            if (length < 0) {
+                break;
+            }
+            
+            CompoundTag record = decode(view, offset, length);
+            UUID taskId = record.getUUID("Task");
+            switch (record.getByte("Kind")) {
+                case KIND_TASK -> {
+                    TaskIndex index = tasks.computeIfAbsent(taskId,
+                        k -> new TaskIndex(k, record.getString("Name"), record.getLong("Time")));
+                    index.touch(segment);
+                    segment.newestTime = Math.max(segment.newestTime, index.timestamp);
+                }
+                case KIND_ENTITY -> {
+                    TaskIndex index = tasks.get(taskId);
+                    if (index != null) {
+                        CompoundTag info = record.getCompound("Info");
+                        index.touch(segment);
+                        index.addRecord(position(segment.id, offset), info.getString("Dimension"),
+                            chunkKey(info.getDouble("X"), info.getDouble("Z")));
+                        segment.newestTime = Math.max(segment.newestTime, index.timestamp);
+                    }
+                }
+                case KIND_END -> {
+                    TaskIndex index = tasks.remove(taskId);
+                    if (index != null) {
+                        release(index);
+                    }
+                }
+                default -> ArisLogger.warn("Unknown undo journal record in {} at {}", segment.path.getFileName(), offset);
+            }
+            offset += HEADER_BYTES + length;
+        }
+        segment.size = offset;
+    }
+    
+    // ==================== 分段管理 ====================
+    
+    private void release(TaskIndex index) {
+        for (Segment segment : segments) {
+            if (index.segmentIds.contains(segment.id)) {
+                segment.liveTasks--;
+            }
+        }
+    }
+    
+    /**
+     * 从最旧的分段开始整体删除：没有未结束任务、或最新记录早于 cutoffMillis 的非活动分段
+     */
+    private void deleteReleasedSegments(long cutoffMillis) {
+        Iterator<Path> pending = pendingDeletes.iterator();
+        while (pending.hasNext()) {
+            if (tryDelete(pending.next())) {
+                pending.remove();
+            }
+        }
+        
+        while (!segments.isEmpty()) {
+            Segment oldest = segments.get(0);
+            if (oldest == active || (oldest.liveTasks > 0 && oldest.newestTime >= cutoffMillis)) {
+                break;
+            }
+            segments.remove(0);
+            if (!tryDelete(oldest.path)) {
+                pendingDeletes.add(oldest.path);
+            }
+        }
+    }
+    
+    private boolean tryDelete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+            ArisLogger.debug("Deleted undo journal segment {}", path.getFileName());
+            return true;
+        } catch (IOException e) {
+            // 某些平台上仍被映射的文件无法删除，下次再试
+            ArisLogger.debug("Failed to delete undo journal segment {}: {}", path.getFileName(), e.getMessage());
+            return false;
+        }
+    }
+    
+    private Segment findSegment(long id) {
+        for (Segment segment : segments) {
+            if (segment.id == id) {
+                return segment;
+            }
+        }
+        return null;
+    }
+    
+    // ==================== 编码 ====================
+    
+    /**
+     * 校验 offset 处的记录，返回负载长度；不是完整有效的记录时返回-1
+     */
+    private int validLength(ByteBuffer view, int offset) {
+        if (offset < 0 || offset + HEADER_BYTES > view.limit() || view.getInt(offset) != RECORD_MAGIC) {
+            return -1;
+        }
+        int length = view.getInt(offset + 4);
+        if (length <= 0 || length > view.limit() - offset - HEADER_BYTES) {
+            return -1;
+        }
+        
+        crc.reset();
+        crc.update(view.slice(offset + HEADER_BYTES, length));
+        return (int) crc.getValue() == view.getInt(offset + 8) ? length : -1;
+    }
+    
+    private static CompoundTag decode(ByteBuffer view, int offset, int length) throws IOException {
+        byte[] payload = new byte[length];
+        view.get(offset + HEADER_BYTES, payload);
+        return NbtIo.readCompressed(new ByteArrayInputStream(payload));
+    }
+    
+    private static long chunkKey(double x, double z) {
+        return ChunkPos.asLong(Mth.floor(x) >> 4, Mth.floor(z) >> 4);
+    }
+    
+    private static long position(long segmentId, int offset) {
+        return (segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+    
+    private static String segmentName(long id) {
+        return String.format("%s%012d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX);
+    }
+    
+    private static long parseSegmentId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * 单个分段文件
+     */
+    private static class Segment {
+        private final long id;
+        private final Path path;
+        private final int capacity;
+        private FileChannel channel;
+        private MappedByteBuffer buffer; // 仅活动分段持有可写映射
+        private int size;
+        private long newestTime = Long.MIN_VALUE;
+        private int liveTasks;
+        
+        Segment(long id, Path path, int capacity) {
+            this.id = id;
+            this.path = path;
+            this.capacity = capacity;
+        }
+        
+        /**
+         * 活动分段直接使用写映射，其余分段临时只读映射
+         */
+        ByteBuffer view() throws IOException {
+            if (buffer != null) {
+                return buffer.duplicate().limit(size);
+            }
+            try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+            }
+        }
+        
+        void seal() {
+            if (buffer != null) {
+                buffer.force();
+                buffer = null;
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    ArisLogger.warn("Failed to close undo journal segment {}: {}", path.getFileName(), e.getMessage());
+                }
+                channel = null;
+            }
+        }
+    }
+    
+    /**
+     * 实体记录的位置及其所在的维度和区块
+     */
+    @FunctionalInterface
+    public interface LocationConsumer {
+        void accept(long position, String dimensionKey, long chunkKey);
+    }
+    
+    /**
+     * 单个任务在日志中的索引：实体记录的位置（高32位分段编号，低32位偏移），以及每条记录的维度和区块，
+     * 撤销时无需读回实体数据即可按区块分组
+     */
+    public static class TaskIndex {
+        private final UUID taskId;
+        private final String taskName;
+        private final long timestamp;
+        private final LongArrayList positions = new LongArrayList();
+        private final LongArrayList chunks = new LongArrayList();
+        private final IntArrayList dimensions = new IntArrayList();
+        private final List<String> dimensionNames = new ArrayList<>(1);
+        private final LongArrayList segmentIds = new LongArrayList(1); // 写入过记录的分段，从旧到新
+        
+        TaskIndex(UUID taskId, String taskName, long timestamp) {
+            this.taskId = taskId;
+            this.taskName = taskName;
+            this.timestamp = timestamp;
+        }
+        
+        /**
+         * 任务的记录写入了该分段；分批追加时中间可能夹着其他任务的分段，因此逐个记录分段编号
+         */
+        void touch(Segment segment) {
+            if (segmentIds.isEmpty() || segmentIds.getLong(segmentIds.size() - 1) != segment.id) {
+                segmentIds.add(segment.id);
+                segment.liveTasks++;
+            }
+        }
+        
+        void addRecord(long position, String dimensionKey, long chunkKey) {
+            int dimension = dimensionNames.indexOf(dimensionKey);
+            if (dimension < 0) {
+                dimension = dimensionNames.size();
+                dimensionNames.add(dimensionKey);
+            }
+            positions.add(position);
+            chunks.add(chunkKey);
+            dimensions.add(dimension);
+        }
+        
+        public UUID getTaskId() { return taskId; }
+        public String getTaskName() { return taskName; }
+        public long getTimestamp() { return timestamp; }
+        public int getEntityCount() { return positions.size(); }
+    }
+}
@@ -1,188 +1,275 @@
 package com.arisweeping.tasks;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
 
+import com.arisweeping.async.AsyncTaskManager;
+import com.arisweeping.async.MainThreadDrain;
+import com.arisweeping.async.TaskContext;
 import com.arisweeping.cleaning.EntityRemovalInfo;
 import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.core.Constants;
+import com.arisweeping.tasks.enums.TaskPriority;
 import com.arisweeping.tasks.models.TaskExecution;
-import com.arisweeping.tasks.models.TaskResult;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraftforge.server.ServerLifecycleHooks;
 
 /**
  * 撤销管理器
  * 
  * 负责管理任务的撤销操作和数据恢复
- * 支持实体NBT数据保存和安全的实体恢复机制
+ * 被移除实体的NBT写入世界目录下的 {@link UndoJournal}，堆上只保留撤销栈和记录位置，
+ * 撤销时从磁盘逐条读回；服务器重启后仍可撤销未过期的任务
+ * 
+ * 任务的撤销数据在恢复全部完成后才从日志中结束。恢复中途服务器停止时数据保留，重启后可再次撤销：
+ * 已恢复的实体随区块保存，再次恢复时按UUID跳过，不会重复生成
+ * 
+ * 日志读写都在模组的IO线程池上进行，恢复本身在主线程上分批完成，撤销期间不占用任何工作线程
  */
 public class UndoManager {
     
+    private final AsyncTaskManager asyncManager;
     private final int maxUndoOperations;
     private final long undoTimeoutMinutes;
     
-    // 撤销数据存储
+    // 撤销数据存储：撤销栈在堆上，实体数据在日志中
     private final ConcurrentLinkedQueue<UndoOperation> undoStack = new ConcurrentLinkedQueue<>();
-    private final ConcurrentHashMap<UUID, UndoData> undoDataMap = new ConcurrentHashMap<>();
+    private final Set<UUID> restoring = ConcurrentHashMap.newKeySet();
+    private UndoJournal journal;
+    private Path journalDirectory;
     
-    public UndoManager(int maxUndoOperations, long undoTimeoutMinutes) {
+    public UndoManager(AsyncTaskManager asyncManager, int maxUndoOperations, long undoTimeoutMinutes) {
+        this.asyncManager = asyncManager;
         this.maxUndoOperations = maxUndoOperations;
         this.undoTimeoutMinutes = undoTimeoutMinutes;
         ArisLogger.info("UndoManager initialized with max operations: {}, timeout: {} minutes", 
                    maxUndoOperations, undoTimeoutMinutes);
         
+        // 打开当前世界的撤销日志，恢复重启前未过期的操作
+        journal();
+        
         // 启动清理过期数据的定时任务
         startCleanupTask();
     }
     
     /**
-     * 记录任务用于撤销
+     * 把一次清理移除的实体写入撤销日志（在IO线程调用）
+     * 
+     * 清理按区域分批记录，同一任务的后续批次并入已有的撤销操作，撤销栈中每个任务只占一项
+     * 
+     * @return 是否记录成功
      */
-    public void recordForUndo(TaskExecution execution, TaskResult result) {
-        if (result == null || !result.isSuccess()) {
-            return;
+    public synchronized boolean recordRemovals(UUID taskId, String taskName, List<EntityRemovalInfo> removedEntities) {
+        ArisLogger.debug("Recording task for undo: {}", taskId);
+        
+        UndoJournal journal = journal();
+        if (journal == null) {
+            ArisLogger.warn("Undo journal unavailable, task {} cannot be undone", taskId);
+            return false;
         }
         
-        UUID taskId = execution.getTaskId();
-        ArisLogger.debug("Recording task for undo: {}", taskId);
+        if (restoring.contains(taskId)) {
+            ArisLogger.warn("Task {} is being restored, dropping {} late undo records", taskId, removedEntities.size());
+            return false;
+        }
         
         try {
-            // 创建撤销数据
-            UndoData undoData = createUndoData(execution, result);
-            
-            // 检查容量限制
-            enforceCapacityLimit();
-            
-            // 添加到撤销栈
-            UndoOperation operation = new UndoOperation(
-                taskId,
-                System.currentTimeMillis(),
-                execution.getTaskType(),
-                undoData.getEntityCount()
-            );
+            // 清理过期数据；只有新任务才占用撤销栈容量
+            purgeExpired(journal);
+            UndoOperation previous = findOperation(taskId);
+            if (previous == null) {
+                enforceCapacityLimit(journal);
+            }
             
-            undoStack.offer(operation);
-            undoDataMap.put(taskId, undoData);
+            // 写入日志并添加到撤销栈，已有的操作替换为更新了实体数的一项
+            UndoJournal.TaskIndex index = journal.appendTask(taskId, taskName, System.currentTimeMillis(), removedEntities);
+            if (previous != null) {
+                undoStack.remove(previous);
+            }
+            undoStack.offer(new UndoOperation(taskId, index.getTimestamp(), index.getTaskName(), index.getEntityCount()));
             
-            ArisLogger.info("Recorded undo operation for task: {} with {} entities", 
-                       taskId, undoData.getEntityCount());
+            ArisLogger.info("Recorded undo operation for task: {} with {} entities ({} in this batch)", 
+                       taskId, index.getEntityCount(), removedEntities.size());
+            return true;
             
         } catch (Exception e) {
             ArisLogger.error("Failed to record undo data for task: {}", taskId, e);
+            return false;
         }
     }
     
     /**
-     * 创建撤销数据
+     * 获取当前世界的撤销日志，世界切换时重新打开并从日志恢复撤销栈
      */
-    private UndoData createUndoData(TaskExecution execution, TaskResult result) {
-        List<EntityRemovalInfo> removedEntities = extractRemovedEntities(result);
+    private synchronized UndoJournal journal() {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) {
+            return null;
+        }
         
-        return new UndoData.Builder()
-            .setTaskId(execution.getTaskId())
-            .setTaskName(execution.getTaskType())
-            .setTimestamp(System.currentTimeMillis())
-            .setRemovedEntities(removedEntities)
-            .setDescription(String.format("Cleaning operation: %s", execution.getTaskType()))
-            .build();
+        Path directory = server.getWorldPath(LevelResource.ROOT)
+            .resolve(ArisSweepingMod.MODID).resolve("undo").normalize();
+        if (journal != null && directory.equals(journalDirectory)) {
+            return journal;
+        }
+        
+        close();
+        undoStack.clear();
+        try {
+            journal = UndoJournal.open(directory, Constants.TaskManagement.UNDO_SEGMENT_BYTES,
+                System.currentTimeMillis() - getTimeoutMillis());
+            journalDirectory = directory;
+            for (UndoJournal.TaskIndex index : journal.getTasks()) {
+                undoStack.offer(new UndoOperation(index.getTaskId(), index.getTimestamp(),
+                    index.getTaskName(), index.getEntityCount()));
+            }
+        } catch (IOException e) {
+            ArisLogger.error("Failed to open undo journal at {}", directory, e);
+            journal = null;
+            journalDirectory = null;
+        }
+        return journal;
     }
     
     /**
-     * 从任务结果中提取被移除的实体信息
+     * 关闭撤销日志（服务器停止时调用）
      */
-    @SuppressWarnings("unchecked")
-    private List<EntityRemovalInfo> extractRemovedEntities(TaskResult result) {
-        // TODO: 实现从TaskResult中提取EntityRemovalInfo的逻辑
-        // 这需要TaskResult类包含被移除实体的详细信息
-        return new ArrayList<>(); // 暂时返回空列表
+    public synchronized void close() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+            journalDirectory = null;
+        }
     }
     
     /**
      * 执行撤销操作
      */
     public CompletableFuture<UndoResult> performUndo(UUID originalTaskId) {
-        return CompletableFuture.supplyAsync(() -> {
-            ArisLogger.info("Performing undo for task: {}", originalTaskId);
-            
-            UndoData undoData = undoDataMap.get(originalTaskId);
-            if (undoData == null) {
-                ArisLogger.warn("No undo data found for task: {}", originalTaskId);
-                return UndoResult.failure(originalTaskId, "No undo data available");
+        return performUndo(originalTaskId, null);
+    }
+    
+    /**
+     * 执行撤销操作
+     * 
+     * 在工作线程上按日志索引把记录按区块分组（不读取实体数据），然后交给 {@link UndoRestoreBatch}
+     * 在主线程上按每tick预算分批生成，各组实体数据在轮到之前才读回；返回的Future在全部实体处理完后完成
+     * 
+     * @param execution 用于报告恢复进度的任务，可以为null
+     */
+    public CompletableFuture<UndoResult> performUndo(UUID originalTaskId, TaskExecution execution) {
+        TaskContext context = TaskContext.create(execution != null ? execution.getPriority() : TaskPriority.CRITICAL);
+        return asyncManager.submitIOTask(context, () -> startRestore(originalTaskId, execution, context))
+            .thenCompose(Function.identity());
+    }
+    
+    /**
+     * 按区块分组撤销记录并提交恢复批次
+     */
+    private CompletableFuture<UndoResult> startRestore(UUID originalTaskId, TaskExecution execution,
+                                                       TaskContext context) {
+        ArisLogger.info("Performing undo for task: {}", originalTaskId);
+        
+        UndoOperation operation = findOperation(originalTaskId);
+        UndoJournal journal = journal();
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (operation == null || journal == null || server == null || !journal.contains(originalTaskId)) {
+            ArisLogger.warn("No undo data found for task: {}", originalTaskId);
+            return CompletableFuture.completedFuture(UndoResult.failure(originalTaskId, "No undo data available"));
+        }
+        
+        // 检查撤销是否已超时
+        if (isOperationExpired(operation, System.currentTimeMillis())) {
+            ArisLogger.warn("Undo operation expired for task: {}", originalTaskId);
+            removeUndoData(originalTaskId);
+            return CompletableFuture.completedFuture(UndoResult.failure(originalTaskId, "Undo operation expired"));
+        }
+        
+        // 同一任务同时只能有一个恢复在进行
+        if (!restoring.add(originalTaskId)) {
+            return CompletableFuture.completedFuture(UndoResult.failure(originalTaskId, "Undo already in progress"));
+        }
+        
+        try {
+            UndoRestoreBatch batch = new UndoRestoreBatch(originalTaskId, server, execution,
+                positions -> readRecords(positions, context));
+            if (journal.forEachLocation(originalTaskId, batch::addRecord) < 0) {
+                restoring.remove(originalTaskId);
+                return CompletableFuture.completedFuture(UndoResult.failure(originalTaskId, "No undo data available"));
             }
             
-            // 检查撤销是否已超时
-            if (isUndoExpired(undoData)) {
-                ArisLogger.warn("Undo operation expired for task: {}", originalTaskId);
-                removeUndoData(originalTaskId);
-                return UndoResult.failure(originalTaskId, "Undo operation expired");
+            // 恢复期间不再出现在撤销栈中；日志中的记录保留到恢复完成
+            undoStack.remove(operation);
+            if (execution != null) {
+                execution.updateProgress(0, batch.size());
             }
+            MainThreadDrain.getInstance().submit(batch);
             
-            try {
-                // 执行实体恢复
-                int restoredCount = restoreEntities(undoData);
-                
-                // 移除撤销数据
-                removeUndoData(originalTaskId);
-                
+            // 批次在主线程上结束，写日志转到IO线程
+            return batch.getCompletion().thenCompose(restoredCount -> asyncManager.submitIOTask(context, () -> {
+                restoring.remove(originalTaskId);
+                if (!batch.isCompleted()) {
+                    // 批次被丢弃（服务器停止），保留撤销数据以便重启后再次撤销
+                    undoStack.offer(operation);
+                    return UndoResult.failure(originalTaskId,
+                        "Undo interrupted after restoring " + restoredCount + " entities");
+                }
+                endInJournal(originalTaskId);
                 ArisLogger.info("Successfully restored {} entities for task: {}", restoredCount, originalTaskId);
                 return UndoResult.success(originalTaskId, restoredCount);
-                
-            } catch (Exception e) {
-                ArisLogger.error("Failed to perform undo for task: {}", originalTaskId, e);
-                return UndoResult.failure(originalTaskId, "Undo operation failed: " + e.getMessage());
-            }
-        });
+            }));
+            
+        } catch (Exception e) {
+            restoring.remove(originalTaskId);
+            ArisLogger.error("Failed to perform undo for task: {}", originalTaskId, e);
+            return CompletableFuture.completedFuture(
+                UndoResult.failure(originalTaskId, "Undo operation failed: " + e.getMessage()));
+        }
     }
     
     /**
-     * 恢复被移除的实体
+     * 读回一组撤销记录；日志已关闭或记录所在分段已删除时返回缺少的部分
      */
-    private int restoreEntities(UndoData undoData) {
-        int restoredCount = 0;
-        
-        for (EntityRemovalInfo entityInfo : undoData.getRemovedEntities()) {
-            if (restoreEntity(entityInfo)) {
-                restoredCount++;
+    private CompletableFuture<List<EntityRemovalInfo>> readRecords(LongArrayList positions, TaskContext context) {
+        return asyncManager.submitIOTask(context, () -> {
+            List<EntityRemovalInfo> entities = new ArrayList<>(positions.size());
+            UndoJournal journal = journal();
+            if (journal != null) {
+                journal.readEntities(positions, entities::add);
             }
-        }
-        
-        return restoredCount;
+            return entities;
+        });
     }
     
     /**
-     * 恢复单个实体
+     * 在撤销栈中查找任务
      */
-    private boolean restoreEntity(EntityRemovalInfo entityInfo) {
-        try {
-            // TODO: 实现实体恢复逻辑
-            // 需要：
-            // 1. 根据NBT数据重新创建实体
-            // 2. 在指定位置生成实体
-            // 3. 恢复实体的所有属性
-            
-            ArisLogger.debug("Restoring entity: {} at ({}, {}, {})", 
-                        entityInfo.getEntityType(),
-                        entityInfo.getX(), 
-                        entityInfo.getY(), 
-                        entityInfo.getZ());
-            
-            // 暂时的占位符实现
-            return true;
-            
-        } catch (Exception e) {
-            ArisLogger.error("Failed to restore entity: {}", entityInfo.getEntityId(), e);
-            return false;
+    private UndoOperation findOperation(UUID taskId) {
+        for (UndoOperation operation : undoStack) {
+            if (operation.getTaskId().equals(taskId)) {
+                return operation;
+            }
         }
+        return null;
     }
     
     /**
      * 检查任务是否可以撤销
      */
     public boolean canUndo(UUID taskId) {
-        UndoData undoData = undoDataMap.get(taskId);
-        return undoData != null && !isUndoExpired(undoData);
+        UndoOperation operation = findOperation(taskId);
+        return operation != null && !isOperationExpired(operation, System.currentTimeMillis());
     }
     
     /**
@@ -210,7 +297,9 @@ public class UndoManager {
     
     /**
      * 撤销最后一次操作
-     * @return 是否成功撤销
+     * 
+     * 实体在后续tick中分批恢复，这里不等待恢复完成（调用方可能就是服务器主线程），结果写入日志
+     * @return 是否已开始撤销
      */
     public boolean undoLastOperation() {
         List<UndoOperation> undoableOps = getUndoableOperations();
@@ -222,57 +311,57 @@ public class UndoManager {
         // 获取最新的操作
         UndoOperation lastOperation = undoableOps.get(undoableOps.size() - 1);
         
-        try {
-            CompletableFuture<UndoResult> future = performUndo(lastOperation.getTaskId());
-            UndoResult result = future.get(30, java.util.concurrent.TimeUnit.SECONDS); // 30秒超时
-            
-            if (result.isSuccessful()) {
+        performUndo(lastOperation.getTaskId()).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                ArisLogger.error("执行撤销操作时发生异常", throwable);
+            } else if (result.isSuccessful()) {
                 ArisLogger.info("成功撤销任务: {}, 恢复了{}个实体", lastOperation.getTaskId(), result.getRestoredCount());
-                return true;
             } else {
                 ArisLogger.warn("撤销任务失败: {}, 错误: {}", lastOperation.getTaskId(), result.getErrorMessage());
-                return false;
             }
-        } catch (Exception e) {
-            ArisLogger.error("执行撤销操作时发生异常", e);
-            return false;
-        }
+        });
+        return true;
     }
     
     /**
      * 清空所有撤销数据
      */
     public void clearAllUndoData() {
-        undoStack.clear();
-        undoDataMap.clear();
+        UndoOperation operation;
+        while ((operation = undoStack.poll()) != null) {
+            endInJournal(operation.getTaskId());
+        }
         ArisLogger.info("Cleared all undo data");
     }
     
-    /**
-     * 检查撤销是否已过期
-     */
-    private boolean isUndoExpired(UndoData undoData) {
-        long currentTime = System.currentTimeMillis();
-        long timeoutMillis = undoTimeoutMinutes * 60 * 1000;
-        return (currentTime - undoData.getTimestamp()) > timeoutMillis;
+    private long getTimeoutMillis() {
+        return undoTimeoutMinutes * 60 * 1000;
     }
     
     /**
      * 检查操作是否已过期
      */
     private boolean isOperationExpired(UndoOperation operation, long currentTime) {
-        long timeoutMillis = undoTimeoutMinutes * 60 * 1000;
-        return (currentTime - operation.getTimestamp()) > timeoutMillis;
+        return (currentTime - operation.getTimestamp()) > getTimeoutMillis();
+    }
+    
+    /**
+     * 移除过期的操作，并整体删除日志中已过期的分段
+     */
+    private void purgeExpired(UndoJournal journal) {
+        long currentTime = System.currentTimeMillis();
+        undoStack.removeIf(operation -> isOperationExpired(operation, currentTime));
+        journal.expire(currentTime - getTimeoutMillis());
     }
     
     /**
      * 强制执行容量限制
      */
-    private void enforceCapacityLimit() {
+    private void enforceCapacityLimit(UndoJournal journal) throws IOException {
         while (undoStack.size() >= maxUndoOperations) {
             UndoOperation oldest = undoStack.poll();
             if (oldest != null) {
-                undoDataMap.remove(oldest.getTaskId());
+                journal.endTask(oldest.getTaskId());
                 ArisLogger.debug("Removed oldest undo operation: {}", oldest.getTaskId());
             }
         }
@@ -282,8 +371,22 @@ public class UndoManager {
      * 移除撤销数据
      */
     private void removeUndoData(UUID taskId) {
-        undoDataMap.remove(taskId);
         undoStack.removeIf(op -> op.getTaskId().equals(taskId));
+        endInJournal(taskId);
+    }
+    
+    /**
+     * 在日志中结束任务，使其在重启后不再可撤销
+     */
+    private synchronized void endInJournal(UUID taskId) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.endTask(taskId);
+        } catch (IOException e) {
+            ArisLogger.error("Failed to end undo journal task: {}", taskId, e);
+        }
     }
     
     /**
@@ -323,74 +426,6 @@ public class UndoManager {
         }
     }
     
-    /**
-     * 撤销数据存储
-     */
-    public static class UndoData {
-        private final UUID taskId;
-        private final String taskName;
-        private final long timestamp;
-        private final List<EntityRemovalInfo> removedEntities;
-        private final String description;
-        
-        private UndoData(Builder builder) {
-            this.taskId = builder.taskId;
-            this.taskName = builder.taskName;
-            this.timestamp = builder.timestamp;
-            this.removedEntities = builder.removedEntities != null ? 
-                List.copyOf(builder.removedEntities) : Collections.emptyList();
-            this.description = builder.description;
-        }
-        
-        public static Builder builder() {
-            return new Builder();
-        }
-        
-        public UUID getTaskId() { return taskId; }
-        public String getTaskName() { return taskName; }
-        public long getTimestamp() { return timestamp; }
-        public List<EntityRemovalInfo> getRemovedEntities() { return removedEntities; }
-        public String getDescription() { return description; }
-        public int getEntityCount() { return removedEntities.size(); }
-        
-        public static class Builder {
-            private UUID taskId;
-            private String taskName;
-            private long timestamp;
-            private List<EntityRemovalInfo> removedEntities;
-            private String description;
-            
-            public Builder setTaskId(UUID taskId) {
-                this.taskId = taskId;
-                return this;
-            }
-            
-            public Builder setTaskName(String taskName) {
-                this.taskName = taskName;
-                return this;
-            }
-            
-            public Builder setTimestamp(long timestamp) {
-                this.timestamp = timestamp;
-                return this;
-            }
-            
-            public Builder setRemovedEntities(List<EntityRemovalInfo> removedEntities) {
-                this.removedEntities = removedEntities;
-                return this;
-            }
-            
-            public Builder setDescription(String description) {
-                this.description = description;
-                return this;
-            }
-            
-            public UndoData build() {
-                return new UndoData(this);
-            }
-        }
-    }
-    
     /**
      * 撤销结果
      */
@@ -0,0 +1,409 @@
+package com.arisweeping.tasks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.arisweeping.async.MainThreadDrain;
+import com.arisweeping.cleaning.EntityRemovalInfo;
+import com.arisweeping.collections.Long2ObjectTable;
+import com.arisweeping.core.ArisLogger;
+import com.arisweeping.core.ArisSweepingMod;
+import com.arisweeping.core.Constants;
+import com.arisweeping.data.ConfigData;
+import com.arisweeping.tasks.models.TaskExecution;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.ChunkPos;
+
+/**
+ * 撤销恢复批次
+ * 
+ * 被移除的实体按 维度+区块 分组，由 {@link MainThreadDrain} 在主线程上按每tick预算逐个生成，
+ * 可跨多个tick完成，大批量撤销不会造成tick尖峰。
+ * 
+ * 分组只保存撤销日志中的记录位置，实体数据由 {@link RecordLoader} 在IO线程上按组读回：
+ * 当前区块之后的若干区块提前读回记录并加上临时票据异步加载，堆上最多只有这几组实体的NBT，
+ * 轮到某个区块时其记录和实体通常都已就绪；仍未就绪时任务让出本tick（见 {@link MainThreadDrain.DrainTask#isWaiting()}），
+ * 不会空转消耗预算
+ */
+public class UndoRestoreBatch implements MainThreadDrain.DrainTask {
+    
+    private static final TicketType<ChunkPos> UNDO_TICKET = TicketType.create(
+        ArisSweepingMod.MODID + "_undo", Comparator.comparingLong(ChunkPos::toLong),
+        Constants.TaskManagement.UNDO_TICKET_LIFESPAN_TICKS);
+    
+    /**
+     * 按位置读回一组撤销记录
+     */
+    @FunctionalInterface
+    public interface RecordLoader {
+        CompletableFuture<List<EntityRemovalInfo>> load(LongArrayList positions);
+    }
+    
+    private final UUID taskId;
+    private final MinecraftServer server;
+    private final TaskExecution execution; // 不报告进度时为null
+    private final RecordLoader loader;
+    private final List<ChunkGroup> groups = new ArrayList<>();
+    private final CompletableFuture<Integer> completion = new CompletableFuture<>();
+    private volatile boolean completed = false;
+    
+    // 提交前在工作线程上按区块分组
+    private Map<String, Long2ObjectTable<ChunkGroup>> groupIndex = new HashMap<>();
+    private int total = 0;
+    
+    // 以下字段只在主线程访问
+    private Map<String, ServerLevel> levels;
+    private int groupCursor = 0;
+    private int entryIndex = 0;
+    private int ticketCursor = 0;
+    private int waitedTicks = 0;
+    private int lastWaitTick = -1;
+    private boolean waiting = false;
+    private int processed = 0;
+    private int restoredCount = 0;
+    private int skippedCount = 0;
+    
+    // 主线程耗时和内存占用统计，结束时与每tick预算上限对比输出
+    private int currentTick = -1;
+    private long currentTickNanos = 0;
+    private long maxTickNanos = 0;
+    private long totalNanos = 0;
+    private long budgetNanos = 0;
+    private int tickCount = 0;
+    private int overBudgetTicks = 0;
+    private int residentRecords = 0;
+    private int peakResidentRecords = 0;
+    
+    /**
+     * 创建空批次，通过 {@link #addRecord} 加入记录后提交给 {@link MainThreadDrain}
+     * 
+     * @param execution 用于报告进度的任务，可以为null
+     */
+    public UndoRestoreBatch(UUID taskId, MinecraftServer server, TaskExecution execution, RecordLoader loader) {
+        this.taskId = taskId;
+        this.server = server;
+        this.execution = execution;
+        this.loader = loader;
+    }
+    
+    /**
+     * 按 维度+区块 分组加入一条记录，保持各区块首次出现的顺序（移除时已按区块排序）；只能在提交前调用
+     */
+    public void addRecord(long position, String dimensionKey, long chunkKey) {
+        Long2ObjectTable<ChunkGroup> table = groupIndex.computeIfAbsent(dimensionKey, key -> new Long2ObjectTable<>());
+        ChunkGroup group = table.computeIfAbsent(chunkKey, key -> {
+            ChunkGroup created = new ChunkGroup(dimensionKey, ChunkPos.getX(chunkKey), ChunkPos.getZ(chunkKey));
+            groups.add(created);
+            return created;
+        });
+        group.positions.add(position);
+        total++;
+    }
+    
+    @Override
+    public boolean runStep() {
+        long start = System.nanoTime();
+        try {
+            return step();
+        } finally {
+            recordTime(start);
+        }
+    }
+    
+    private boolean step() {
+        waiting = false;
+        if (levels == null) {
+            groupIndex = null;
+            ConfigData config = ArisSweepingMod.getConfigData();
+            budgetNanos = (config != null ? config.getTickBudgetMaxMicros()
+                : Constants.MainThread.DEFAULT_TICK_BUDGET_MAX_MICROS) * 1000L;
+            levels = new HashMap<>();
+            for (ServerLevel level : server.getAllLevels()) {
+                levels.put(level.dimension().toString(), level);
+            }
+        }
+        
+        if (groupCursor >= groups.size()) {
+            finish();
+            return false;
+        }
+        
+        prefetch();
+        ChunkGroup group = groups.get(groupCursor);
+        ServerLevel level = levels.get(group.dimensionKey);
+        if (level == null) {
+            ArisLogger.warn("Dimension {} not found, skipping {} entities of undo task {}",
+                group.dimensionKey, group.positions.size(), taskId);
+            skipRest(group);
+            return advance(group, null);
+        }
+        
+        // 记录还在IO线程上读取
+        if (group.entities == null) {
+            if (!group.loading.isDone()) {
+                waiting = true;
+                return true;
+            }
+            if (!takeLoaded(group)) {
+                skipRest(group);
+                return advance(group, level);
+            }
+            if (group.entities.isEmpty()) {
+                return advance(group, level);
+            }
+        }
+        
+        if (!isReady(level, group)) {
+            if (server.getTickCount() != lastWaitTick) {
+                lastWaitTick = server.getTickCount();
+                if (waitedTicks++ == 0) {
+                    addTicket(group); // 提前加的票据可能已过期，重复添加会刷新存活时间
+                }
+            }
+            if (waitedTicks <= Constants.TaskManagement.UNDO_CHUNK_WAIT_TICKS) {
+                waiting = true;
+                return true;
+            }
+            ArisLogger.warn("Chunk [{}, {}] in {} did not load in time, skipping {} entities of undo task {}",
+                group.chunkX, group.chunkZ, group.dimensionKey, group.remaining(entryIndex), taskId);
+            skipRest(group);
+            return advance(group, level);
+        }
+        
+        EntityRemovalInfo info = group.entities.get(entryIndex);
+        group.entities.set(entryIndex, null); // 尽早释放NBT
+        entryIndex++;
+        processed++;
+        if (restoreEntity(level, info)) {
+            restoredCount++;
+        } else {
+            skippedCount++;
+        }
+        
+        if (entryIndex >= group.entities.size()) {
+            return advance(group, level);
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean isWaiting() {
+        return waiting;
+    }
+    
+    @Override
+    public void onDiscarded() {
+        ArisLogger.warn("Undo task {} discarded after restoring {}/{} entities", taskId, restoredCount, total);
+        completion.complete(restoredCount);
+    }
+    
+    /**
+     * 批次结束（处理完毕或被丢弃）时返回实际生成的实体数
+     */
+    public CompletableFuture<Integer> getCompletion() {
+        return completion;
+    }
+    
+    /**
+     * 是否所有记录都已处理；被丢弃的批次返回false，撤销数据应保留以便重试
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+    
+    /**
+     * 批次总实体数
+     */
+    public int size() {
+        return total;
+    }
+    
+    /**
+     * 区块加载完成且实体已从存储中读入，此时生成实体不会与磁盘上的数据冲突
+     */
+    private static boolean isReady(ServerLevel level, ChunkGroup group) {
+        return level.hasChunk(group.chunkX, group.chunkZ)
+            && level.areEntitiesLoaded(ChunkPos.asLong(group.chunkX, group.chunkZ));
+    }
+    
+    /**
+     * 为当前区块及其后的若干区块读回记录并加临时票据
+     */
+    private void prefetch() {
+        int limit = Math.min(groups.size(), groupCursor + 1 + Constants.TaskManagement.UNDO_CHUNK_LOOKAHEAD);
+        while (ticketCursor < limit) {
+            ChunkGroup group = groups.get(ticketCursor++);
+            group.loading = loader.load(group.positions);
+            residentRecords += group.positions.size();
+            peakResidentRecords = Math.max(peakResidentRecords, residentRecords);
+            addTicket(group);
+        }
+    }
+    
+    /**
+     * 取出读回的记录，读取失败时返回false；日志中缺失的记录计为跳过
+     */
+    private boolean takeLoaded(ChunkGroup group) {
+        try {
+            group.entities = group.loading.join();
+        } catch (Exception e) {
+            ArisLogger.error("Failed to read undo records for chunk [{}, {}] of undo task {}",
+                group.chunkX, group.chunkZ, taskId, e);
+            return false;
+        } finally {
+            group.loading = null;
+        }
+        int missing = group.positions.size() - group.entities.size();
+        processed += missing;
+        skippedCount += missing;
+        return true;
+    }
+    
+    private void addTicket(ChunkGroup group) {
+        ServerLevel level = levels.get(group.dimensionKey);
+        if (level != null) {
+            ChunkPos pos = new ChunkPos(group.chunkX, group.chunkZ);
+            level.getChunkSource().addRegionTicket(UNDO_TICKET, pos, 0, pos);
+        }
+    }
+    
+    private void skipRest(ChunkGroup group) {
+        int remaining = group.remaining(entryIndex);
+        processed += remaining;
+        skippedCount += remaining;
+        entryIndex = 0;
+        group.entities = List.of();
+    }
+    
+    /**
+     * 当前区块处理完毕：释放票据，报告进度，转到下一个区块
+     */
+    private boolean advance(ChunkGroup group, ServerLevel level) {
+        if (level != null) {
+            ChunkPos pos = new ChunkPos(group.chunkX, group.chunkZ);
+            level.getChunkSource().removeRegionTicket(UNDO_TICKET, pos, 0, pos);
+        }
+        residentRecords -= group.positions.size();
+        groups.set(groupCursor, null);
+        groupCursor++;
+        entryIndex = 0;
+        waitedTicks = 0;
+        if (execution != null) {
+            execution.updateProgress(processed, total);
+        }
+        
+        if (groupCursor >= groups.size()) {
+            finish();
+            return false;
+        }
+        return true;
+    }
+    
+    private void finish() {
+        if (completion.isDone()) {
+            return;
+        }
+        completed = true;
+        closeTick();
+        ArisLogger.info("Undo task {} restored {}/{} entities ({} skipped) over {} ticks, longest tick slice {} us",
+            taskId, restoredCount, total, skippedCount, tickCount, maxTickNanos / 1000);
+        ArisLogger.info("Undo task {} main thread: mean slice {} us, budget {} us, {}/{} ticks over budget, "
+                + "peak {} records resident in {} chunk groups",
+            taskId, tickCount > 0 ? totalNanos / tickCount / 1000 : 0, budgetNanos / 1000,
+            overBudgetTicks, tickCount, peakResidentRecords, groups.size());
+        completion.complete(restoredCount);
+    }
+    
+    /**
+     * 从NBT重建实体并加入世界；同UUID的实体已存在时跳过，避免重复撤销造成复制
+     */
+    private boolean restoreEntity(ServerLevel level, EntityRemovalInfo info) {
+        try {
+            String typeKey = info.getTypeKey();
+            if (typeKey == null || typeKey.isEmpty()) {
+                return false; // 旧版本记录没有实体类型
+            }
+            if (level.getEntity(UUID.fromString(info.getEntityId())) != null) {
+                return false;
+            }
+            
+            CompoundTag tag = info.getEntityNBT();
+            tag.putString("id", typeKey);
+            Optional<Entity> entity = EntityType.create(tag, level);
+            if (entity.isEmpty()) {
+                ArisLogger.debug("Unknown entity type {} in undo data, skipping", typeKey);
+                return false;
+            }
+            return level.addFreshEntity(entity.get());
+            
+        } catch (Exception e) {
+            ArisLogger.error("Failed to restore entity: {}", info.getEntityId(), e);
+            return false;
+        }
+    }
+    
+    /**
+     * 累计本批次在每个tick中占用的主线程时间，记录最长的一次
+     */
+    private void recordTime(long start) {
+        int tick = server.getTickCount();
+        if (tick != currentTick) {
+            closeTick();
+            currentTick = tick;
+            currentTickNanos = 0;
+            tickCount++;
+        }
+        long elapsed = System.nanoTime() - start;
+        currentTickNanos += elapsed;
+        totalNanos += elapsed;
+        maxTickNanos = Math.max(maxTickNanos, currentTickNanos);
+    }
+    
+    /**
+     * 结束一个tick的统计：本tick累计时间超过预算上限时计数
+     */
+    private void closeTick() {
+        if (currentTick >= 0 && budgetNanos > 0 && currentTickNanos > budgetNanos) {
+            overBudgetTicks++;
+        }
+        currentTickNanos = 0;
+    }
+    
+    /**
+     * 同一区块中待恢复的实体：先只有日志中的记录位置，预取后才有实体数据
+     */
+    private static final class ChunkGroup {
+        final String dimensionKey;
+        final int chunkX;
+        final int chunkZ;
+        final LongArrayList positions = new LongArrayList();
+        CompletableFuture<List<EntityRemovalInfo>> loading;
+        List<EntityRemovalInfo> entities;
+        
+        /**
+         * 从 entryIndex 起尚未处理的记录数
+         */
+        int remaining(int entryIndex) {
+            return (entities != null ? entities.size() : positions.size()) - entryIndex;
+        }
+        
+        ChunkGroup(String dimensionKey, int chunkX, int chunkZ) {
+            this.dimensionKey = dimensionKey;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.arisweeping.tasks.models;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
+import com.arisweeping.async.TaskCheckpoint;
+import com.arisweeping.core.Constants;
 import com.arisweeping.tasks.enums.TaskPriority;
 import com.arisweeping.tasks.enums.TaskStatus;
 
@@ -17,10 +20,12 @@ public class TaskExecution {
     private final UUID taskId;
     private final long sequence;
     private final String taskType;
-    private final TaskPriority priority;
     private final Instant createTime;
     private final Object requestData;
+    private final TaskPriority submittedPriority;
+    private final TaskCheckpoint checkpoint = new TaskCheckpoint();
     
+    private volatile TaskPriority priority;
     private volatile TaskStatus status;
     private volatile Instant startTime;
     private volatile Instant endTime;
@@ -32,6 +37,16 @@ public class TaskExecution {
     private volatile long totalItems;
     private volatile double progressPercentage;
     
+    // 排队耗时（System.nanoTime）
+    private volatile long enqueuedNanos;
+    private volatile long queueWaitNanos = -1;
+    private volatile int startCount = 0;
+    
+    // 截止时间（System.nanoTime），未设置时队列按 入队时间+默认期限 排序
+    private volatile boolean hasDeadline = false;
+    private volatile long deadlineNanos;
+    private volatile long queueDeadlineNanos;
+    
     /**
      * 构造函数
      * 
@@ -46,8 +61,10 @@ public class TaskExecution {
         this.sequence = sequence;
         this.taskType = taskType;
         this.priority = priority;
+        this.submittedPriority = priority;
         this.requestData = requestData;
         this.createTime = Instant.now();
+        this.enqueuedNanos = System.nanoTime();
         this.status = TaskStatus.PENDING;
         this.processedItems = 0;
         this.totalItems = 0;
@@ -60,6 +77,63 @@ public class TaskExecution {
     public void markStarted() {
         this.status = TaskStatus.RUNNING;
         this.startTime = Instant.now();
+        this.queueWaitNanos = System.nanoTime() - enqueuedNanos;
+        this.startCount++;
+    }
+    
+    /**
+     * 是否是第一次开始执行；在检查点让出或暂停后重新开始时返回false
+     */
+    public boolean isFirstStart() {
+        return startCount == 1;
+    }
+    
+    /**
+     * 记录入队时间（任务恢复后重新入队时，排队耗时从这里重新计算）
+     */
+    public void markEnqueued() {
+        long now = System.nanoTime();
+        this.enqueuedNanos = now;
+        this.queueDeadlineNanos = hasDeadline ? deadlineNanos
+            : now + Constants.TaskManagement.DEFAULT_TASK_DEADLINE_MILLIS * 1_000_000L;
+    }
+    
+    /**
+     * 设置从现在起算的截止时间，应在入队前调用；排队中的任务通过 {@link com.arisweeping.tasks.TaskQueue#promote} 调整
+     */
+    public void setDeadline(Duration deadline) {
+        setDeadlineNanos(System.nanoTime() + deadline.toNanos());
+    }
+    
+    /**
+     * 设置截止时间（System.nanoTime），同时更新队列排序使用的截止时间
+     */
+    public void setDeadlineNanos(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = true;
+        this.queueDeadlineNanos = deadlineNanos;
+    }
+    
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+    
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+    
+    /**
+     * 队列排序使用的截止时间：显式截止时间，或 入队时间+默认期限
+     */
+    public long getQueueDeadlineNanos() {
+        return queueDeadlineNanos;
+    }
+    
+    /**
+     * 最近一次入队的时间（System.nanoTime）
+     */
+    public long getEnqueuedNanos() {
+        return enqueuedNanos;
     }
     
     /**
@@ -158,6 +232,20 @@ public class TaskExecution {
         return priority;
     }
     
+    /**
+     * 提交时的优先级，不随合并提升而改变
+     */
+    public TaskPriority getSubmittedPriority() {
+        return submittedPriority;
+    }
+    
+    /**
+     * 修改优先级，排队中的任务应通过 {@link com.arisweeping.tasks.TaskQueue#promote} 调整
+     */
+    public void setPriority(TaskPriority priority) {
+        this.priority = priority;
+    }
+    
     public Instant getCreateTime() {
         return createTime;
     }
@@ -166,6 +254,13 @@ public class TaskExecution {
         return requestData;
     }
     
+    /**
+     * 任务的检查点：挂起请求和已完成的进度，跨多次执行保留
+     */
+    public TaskCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+    
     public TaskStatus getStatus() {
         return status;
     }
@@ -206,6 +301,13 @@ public class TaskExecution {
         return progressPercentage;
     }
     
+    /**
+     * 最近一次从入队到开始执行的等待时间（纳秒），尚未开始时返回-1
+     */
+    public long getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+    
     @Override
     public String toString() {
         return "TaskExecution{" +
@@ -0,0 +1,110 @@
+package com.arisweeping.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.arisweeping.tasks.enums.TaskPriority;
+import com.arisweeping.tasks.enums.TaskStatus;
+import com.arisweeping.tasks.models.TaskExecution;
+
+/**
+ * 任务队列的优先级提升测试
+ */
+class TaskQueueTest {
+    
+    private long sequence;
+    
+    private TaskExecution execution(TaskPriority priority) {
+        return new TaskExecution(UUID.randomUUID(), ++sequence, "TEST", priority, null);
+    }
+    
+    @Test
+    void promoteMovesQueuedTaskAhead() {
+        TaskQueue queue = new TaskQueue();
+        TaskExecution low = execution(TaskPriority.LOW);
+        TaskExecution normal = execution(TaskPriority.NORMAL);
+        assertTrue(queue.enqueue(low));
+        assertTrue(queue.enqueue(normal));
+        
+        assertTrue(queue.promote(low, TaskPriority.HIGH));
+        assertEquals(TaskPriority.HIGH, low.getPriority());
+        assertEquals(2, queue.size());
+        assertSame(low, queue.dequeue());
+        assertSame(normal, queue.dequeue());
+    }
+    
+    /**
+     * 运行中的任务被更高优先级的重复请求合并后，在检查点让出时按提升后的优先级重新入队
+     */
+    @Test
+    void promoteRunningTaskAppliesOnRequeue() {
+        TaskQueue queue = new TaskQueue();
+        TaskExecution running = execution(TaskPriority.LOW);
+        assertTrue(queue.enqueue(running));
+        assertSame(running, queue.dequeue());
+        running.markStarted();
+        
+        assertFalse(queue.promote(running, TaskPriority.HIGH));
+        assertEquals(TaskPriority.HIGH, running.getPriority());
+        assertEquals(TaskPriority.LOW, running.getSubmittedPriority());
+        
+        // 让出前已有一个普通优先级任务在排队
+        TaskExecution normal = execution(TaskPriority.NORMAL);
+        assertTrue(queue.enqueue(normal));
+        running.setStatus(TaskStatus.PENDING);
+        assertTrue(queue.enqueue(running));
+        
+        assertSame(running, queue.dequeue());
+        assertSame(normal, queue.dequeue());
+    }
+    
+    @Test
+    void promoteNeverLowersRunningTask() {
+        TaskQueue queue = new TaskQueue();
+        TaskExecution running = execution(TaskPriority.HIGH);
+        assertTrue(queue.enqueue(running));
+        assertSame(running, queue.dequeue());
+        running.markStarted();
+        
+        assertFalse(queue.promote(running, TaskPriority.LOW));
+        assertEquals(TaskPriority.HIGH, running.getPriority());
+    }
+    
+    @Test
+    void removeTaskAfterPromote() {
+        TaskQueue queue = new TaskQueue();
+        TaskExecution low = execution(TaskPriority.LOW);
+        assertTrue(queue.enqueue(low));
+        assertTrue(queue.promote(low, TaskPriority.HIGH));
+        
+        assertTrue(queue.removeTask(low));
+        assertEquals(0, queue.size());
+        assertNull(queue.dequeue());
+    }
+    
+    /**
+     * 在检查点让出后重新开始的任务不再是第一次开始，排队等待只按第一次统计
+     */
+    @Test
+    void requeuedTaskIsNotFirstStart() {
+        TaskQueue queue = new TaskQueue();
+        TaskExecution task = execution(TaskPriority.NORMAL);
+        assertTrue(queue.enqueue(task));
+        assertSame(task, queue.dequeue());
+        task.markStarted();
+        assertTrue(task.isFirstStart());
+        
+        task.setStatus(TaskStatus.PENDING);
+        assertTrue(queue.enqueue(task));
+        assertSame(task, queue.dequeue());
+        task.markStarted();
+        assertFalse(task.isFirstStart());
+    }
+}